@@ -2,13 +2,16 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.2.0"
 	id("io.spring.dependency-management") version "1.1.4"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.test-task"
 version = "0.0.1-SNAPSHOT"
 
 java {
-	sourceCompatibility = JavaVersion.VERSION_17
+	toolchain {
+		languageVersion.set(JavaLanguageVersion.of(21))
+	}
 }
 
 configurations {
@@ -28,18 +31,35 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-webflux")
 	developmentOnly("org.springframework.boot:spring-boot-docker-compose")
 
+	/**
+	 * Metrics
+	 */
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-aop")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
 	/**
 	 * Database
 	 */
 	implementation("org.liquibase:liquibase-core")
-	runtimeOnly("org.postgresql:postgresql")
+	implementation("org.postgresql:postgresql")
+	implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
+	runtimeOnly("org.postgresql:r2dbc-postgresql")
+
+	/**
+	 * Cache
+	 */
+	implementation("com.github.ben-manes.caffeine:caffeine")
 
 	/**
 	 * Utils & Logging
 	 */
 	implementation("org.mapstruct:mapstruct:1.5.3.Final")
+	implementation("net.logstash.logback:logstash-logback-encoder:7.4")
 	compileOnly("org.projectlombok:lombok")
 	annotationProcessor("org.projectlombok:lombok")
 	annotationProcessor("org.mapstruct:mapstruct-processor:1.5.3.Final")
@@ -67,3 +87,17 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+/**
+ * Benchmarks: ./gradlew jmh, результаты сохраняются в build/reports/jmh/results-<version>.json,
+ * профилировщик gc добавляет аллокации на операцию (gc.alloc.rate.norm)
+ */
+jmh {
+	jmhVersion.set("1.37")
+	resultFormat.set("JSON")
+	resultsFile.set(layout.buildDirectory.file("reports/jmh/results-${project.version}.json"))
+	fork.set(1)
+	warmupIterations.set(3)
+	iterations.set(5)
+	profilers.set(listOf("gc"))
+}
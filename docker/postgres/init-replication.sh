@@ -0,0 +1,5 @@
+#!/bin/bash
+# Разрешает потоковую репликацию для локальной реплики из docker-compose.yaml
+set -e
+
+echo "host replication all all md5" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,15 @@
+#!/bin/bash
+# Запускает потоковую реплику master_postgres. При первом запуске копирует данные через pg_basebackup,
+# флаг -R создает standby.signal и primary_conninfo.
+set -e
+
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until gosu postgres pg_basebackup -h master_postgres -U "$POSTGRES_USER" -D "$PGDATA" -R -X stream; do
+        echo "Waiting for master_postgres"
+        rm -rf "${PGDATA:?}"/*
+        sleep 1
+    done
+    chmod 700 "$PGDATA"
+fi
+
+exec gosu postgres postgres -c hot_standby=on
@@ -0,0 +1,62 @@
+// Нагрузочный тест с тысячами редко активных keep-alive клиентов (k6, https://k6.io).
+//
+// Сравнение Spring MVC и WebFlux + R2DBC на одной БД:
+//   ./gradlew bootRun
+//   ./gradlew bootRun --args='--spring.profiles.active=reactive'
+//   k6 run load-test/tasks-idle-clients.js --summary-export=build/load-test/mvc.json
+//   k6 run -e BASE_URL=http://localhost:8081 load-test/tasks-idle-clients.js --summary-export=build/load-test/reactive.json
+//
+// Каждый виртуальный пользователь держит свое соединение открытым и большую часть времени простаивает.
+// Сравниваются http_req_duration p(99) и память процесса на пике (jvm_memory_used_bytes, process RSS),
+// деленная на количество соединений.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TASK_COUNT = Number(__ENV.TASK_COUNT || 200);
+const CLIENTS = Number(__ENV.CLIENTS || 5000);
+
+export const options = {
+    scenarios: {
+        idle_keep_alive: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '1m', target: CLIENTS },
+                { duration: '3m', target: CLIENTS },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < TASK_COUNT; i++) {
+        const task = { name: `idle-${Date.now()}-${i}`, description: `Idle clients task #${i}`, status: 'PENDING', priority: 'LOW' };
+        const response = http.post(`${BASE_URL}/tasks`, JSON.stringify(task), {
+            headers: { 'Content-Type': 'application/json' },
+        });
+        check(response, { 'task created': (r) => r.status === 201 });
+        ids.push(response.json().id);
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    const response = Math.random() < 0.8
+        ? http.get(`${BASE_URL}/tasks/${id}`)
+        : http.get(`${BASE_URL}/tasks/cursor?limit=20`);
+    check(response, { 'status is 200': (r) => r.status === 200 });
+    sleep(5 + Math.random() * 10);
+}
+
+export function teardown(data) {
+    for (const id of data.ids) {
+        http.del(`${BASE_URL}/tasks/${id}`);
+    }
+}
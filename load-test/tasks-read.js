@@ -0,0 +1,57 @@
+// Нагрузочный тест чтения задач (k6, https://k6.io).
+//
+// Сравнение платформенных и виртуальных потоков при высокой конкуренции:
+//   ./gradlew bootRun
+//   k6 run load-test/tasks-read.js --summary-export=build/load-test/platform-threads.json
+//   ./gradlew bootRun --args='--spring.profiles.active=virtual-threads'
+//   k6 run load-test/tasks-read.js --summary-export=build/load-test/virtual-threads.json
+//
+// Сравниваются http_reqs (пропускная способность), http_req_duration p(95)/p(99) и http_req_failed.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TASK_COUNT = Number(__ENV.TASK_COUNT || 1000);
+
+export const options = {
+    scenarios: {
+        high_concurrency: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 500 },
+                { duration: '1m', target: 2000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const tasks = [];
+    for (let i = 0; i < TASK_COUNT; i++) {
+        tasks.push({ name: `load-${Date.now()}-${i}`, description: `Load test task #${i}`, status: 'PENDING', priority: 'LOW' });
+    }
+    const response = http.post(`${BASE_URL}/tasks/batch`, JSON.stringify(tasks), {
+        headers: { 'Content-Type': 'application/json' },
+    });
+    check(response, { 'tasks created': (r) => r.status === 201 });
+    return { ids: response.json().map((task) => task.id) };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    const response = Math.random() < 0.8
+        ? http.get(`${BASE_URL}/tasks/${id}`)
+        : http.get(`${BASE_URL}/tasks/cursor?limit=20`);
+    check(response, { 'status is 200': (r) => r.status === 200 });
+}
+
+export function teardown(data) {
+    for (let i = 0; i < data.ids.length; i += 1000) {
+        http.del(`${BASE_URL}/tasks/batch?ids=${data.ids.slice(i, i + 1000).join(',')}`);
+    }
+}
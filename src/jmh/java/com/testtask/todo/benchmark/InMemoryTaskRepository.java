@@ -0,0 +1,59 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.repository.TaskRepository;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory замена {@link TaskRepository} для бенчмарков сервисного слоя без базы данных.
+ * Поддерживает только методы, которые вызываются из бенчмарков.
+ */
+final class InMemoryTaskRepository {
+
+    private final NavigableMap<Long, Task> tasksById = new ConcurrentSkipListMap<>();
+    private final Map<String, Task> tasksByName = new ConcurrentHashMap<>();
+
+    private InMemoryTaskRepository() {
+    }
+
+    static TaskRepository create(List<Task> tasks) {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        tasks.forEach(repository::save);
+        return (TaskRepository) Proxy.newProxyInstance(
+                TaskRepository.class.getClassLoader(),
+                new Class<?>[]{TaskRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(repository.tasksById.get((Long) args[0]));
+                    case "findByName" -> Optional.ofNullable(repository.tasksByName.get((String) args[0]));
+                    case "findByIdGreaterThanOrderByIdAsc" -> repository.tasksById.tailMap((Long) args[0], false).values().stream()
+                            .limit(((Limit) args[1]).max())
+                            .toList();
+                    case "save" -> repository.save((Task) args[0]);
+                    case "deleteById" -> {
+                        Task removed = repository.tasksById.remove((Long) args[0]);
+                        if (removed != null) {
+                            repository.tasksByName.remove(removed.getName());
+                        }
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryTaskRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private Task save(Task task) {
+        tasksById.put(task.getId(), task);
+        tasksByName.put(task.getName(), task);
+        return task;
+    }
+}
@@ -0,0 +1,54 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.entity.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskEqualityBenchmark {
+
+    private Task task;
+    private Task equalTask;
+    private Task otherTask;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        task = TaskFixtures.task(1);
+        equalTask = TaskFixtures.task(1);
+        otherTask = TaskFixtures.task(2);
+        tasks = TaskFixtures.tasks(1000);
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return task.equals(equalTask);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return task.equals(otherTask);
+    }
+
+    @Benchmark
+    public int hashCodeTask() {
+        return task.hashCode();
+    }
+
+    @Benchmark
+    public Set<Task> hashSetOf1000() {
+        return new HashSet<>(tasks);
+    }
+}
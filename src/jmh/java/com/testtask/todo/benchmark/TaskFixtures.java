@@ -0,0 +1,54 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.entity.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Тестовые данные для бенчмарков.
+ */
+final class TaskFixtures {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2023, 12, 7, 15, 9, 24);
+
+    private TaskFixtures() {
+    }
+
+    static Task task(long id) {
+        return Task.builder()
+                .id(id)
+                .name("Task" + id)
+                .description("This is a task #" + id + " with a description of a typical length for the service")
+                .createdAt(CREATED_AT)
+                .updatedAt(CREATED_AT.plusMinutes(id))
+                .status(Status.values()[(int) (id % Status.values().length)])
+                .priority(Priority.values()[(int) (id % Priority.values().length)])
+                .build();
+    }
+
+    static List<Task> tasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            tasks.add(task(id));
+        }
+        return tasks;
+    }
+
+    static TaskDto taskDto(long id) {
+        Task task = task(id);
+        return TaskDto.builder()
+                .id(task.getId())
+                .name(task.getName())
+                .description(task.getDescription())
+                .createdAt(task.getCreatedAt())
+                .updatedAt(task.getUpdatedAt())
+                .status(task.getStatus())
+                .priority(task.getPriority())
+                .build();
+    }
+}
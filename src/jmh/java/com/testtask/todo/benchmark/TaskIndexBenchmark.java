@@ -0,0 +1,66 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.mapper.TaskMapperImpl;
+import com.testtask.todo.store.TaskIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение из индекса задач в памяти: поиск по id и имени, листинг с фильтром.
+ * Сравнивается с TaskServiceBenchmark (store=jpa) при запуске с профилировщиком gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskIndexBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int taskCount;
+
+    private TaskIndex index;
+    private TaskFilterDto activeHighPriority;
+
+    @Setup
+    public void setUp() {
+        TaskMapperImpl taskMapper = new TaskMapperImpl();
+        index = new TaskIndex(taskCount);
+        for (long id = 1; id <= taskCount; id++) {
+            TaskDto taskDto = taskMapper.toDto(TaskFixtures.task(id));
+            taskDto.setVersion(0L);
+            index.put(taskDto);
+        }
+        activeHighPriority = TaskFilterDto.builder()
+                .status(List.of(Status.PENDING, Status.IN_PROGRESS))
+                .priority(List.of(Priority.HIGH))
+                .build();
+    }
+
+    @Benchmark
+    public TaskDto get() {
+        return index.get(ThreadLocalRandom.current().nextLong(1, taskCount + 1));
+    }
+
+    @Benchmark
+    public TaskDto getByName() {
+        return index.getByName("Task" + ThreadLocalRandom.current().nextLong(1, taskCount + 1));
+    }
+
+    @Benchmark
+    public List<TaskDto> findAfterFiltered() {
+        return index.findAfter(activeHighPriority, ThreadLocalRandom.current().nextLong(0, taskCount / 2), 20);
+    }
+}
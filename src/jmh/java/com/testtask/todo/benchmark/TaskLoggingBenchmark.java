@@ -0,0 +1,61 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.dto.TaskDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость построения сообщений журнала: полный toString DTO против полей-сводки.
+ * Форматирование выполняется так же, как в SLF4J при включенном уровне.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskLoggingBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private TaskDto taskDto;
+    private List<TaskDto> taskDtos;
+
+    @Setup
+    public void setUp() {
+        taskDto = TaskFixtures.taskDto(1);
+        taskDtos = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            taskDtos.add(TaskFixtures.taskDto(id));
+        }
+    }
+
+    @Benchmark
+    public String fullTask() {
+        return MessageFormatter.format("Task found: {}", taskDto).getMessage();
+    }
+
+    @Benchmark
+    public String summaryTask() {
+        return MessageFormatter.format("Task found: id={}", taskDto.getId()).getMessage();
+    }
+
+    @Benchmark
+    public String fullList() {
+        return MessageFormatter.format("Tasks found: {}", taskDtos).getMessage();
+    }
+
+    @Benchmark
+    public String summaryList() {
+        return MessageFormatter.format("Tasks found: count={}", taskDtos.size()).getMessage();
+    }
+}
@@ -0,0 +1,60 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.mapper.TaskMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskMapperBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private final TaskMapper taskMapper = new TaskMapperImpl();
+
+    private Task task;
+    private TaskDto taskDto;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        task = TaskFixtures.task(1);
+        taskDto = TaskFixtures.taskDto(2);
+        tasks = TaskFixtures.tasks(size);
+    }
+
+    @Benchmark
+    public TaskDto toDto() {
+        return taskMapper.toDto(task);
+    }
+
+    @Benchmark
+    public Task toEntity() {
+        return taskMapper.toEntity(taskDto);
+    }
+
+    @Benchmark
+    public List<TaskDto> toDtoList() {
+        return taskMapper.toDtoList(tasks);
+    }
+
+    @Benchmark
+    public Task update() {
+        taskMapper.update(taskDto, task);
+        return task;
+    }
+}
@@ -0,0 +1,121 @@
+package com.testtask.todo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность вставки и переименования задач в PostgreSQL с индексами имени до task_V010_name_lower.sql
+ * (UNIQUE, index_task_name, index_task_name_prefix) и после (один уникальный индекс по lower(name)).
+ * <p>
+ * Нужен запущенный PostgreSQL (docker compose up), подключение задается свойствами todo.benchmark.jdbc-url,
+ * todo.benchmark.username и todo.benchmark.password. Бенчмарк создает и удаляет свою таблицу tasks_name_benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskNameIndexBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int INITIAL_COUNT = 100_000;
+
+    @Param({"before", "after"})
+    private String indexes;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement rename;
+    private long nextId;
+    private long renameVersion;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("todo.benchmark.jdbc-url", "jdbc:postgresql://localhost:5432/postgres?reWriteBatchedInserts=true"),
+                System.getProperty("todo.benchmark.username", "user"),
+                System.getProperty("todo.benchmark.password", "password"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS tasks_name_benchmark");
+            statement.execute("""
+                    CREATE TABLE tasks_name_benchmark
+                    (
+                        id          BIGINT PRIMARY KEY,
+                        name        VARCHAR(100) NOT NULL,
+                        description VARCHAR(1000),
+                        status      SMALLINT,
+                        priority    SMALLINT
+                    )
+                    """);
+            if (indexes.equals("before")) {
+                statement.execute("ALTER TABLE tasks_name_benchmark ADD CONSTRAINT tasks_name_benchmark_name_key UNIQUE (name)");
+                statement.execute("CREATE INDEX index_tasks_name_benchmark_name ON tasks_name_benchmark (name)");
+                statement.execute("CREATE INDEX index_tasks_name_benchmark_name_prefix ON tasks_name_benchmark (name varchar_pattern_ops)");
+            } else {
+                statement.execute("CREATE UNIQUE INDEX index_tasks_name_benchmark_lower_name ON tasks_name_benchmark (lower(name) text_pattern_ops)");
+            }
+            statement.execute("""
+                    INSERT INTO tasks_name_benchmark (id, name, description, status, priority)
+                    SELECT g, 'Task' || g, 'This is a task #' || g, g % 3, g % 3
+                    FROM generate_series(1, %d) g
+                    """.formatted(INITIAL_COUNT));
+            statement.execute("ANALYZE tasks_name_benchmark");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement(
+                "INSERT INTO tasks_name_benchmark (id, name, description, status, priority) VALUES (?, ?, ?, 1, 1)");
+        rename = connection.prepareStatement("UPDATE tasks_name_benchmark SET name = ? WHERE id = ?");
+        nextId = INITIAL_COUNT + 1;
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE tasks_name_benchmark");
+        }
+        connection.close();
+    }
+
+    /**
+     * Вставка пакета задач одним batch и одним коммитом, результат в задачах в секунду.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long id = nextId++;
+            insert.setLong(1, id);
+            insert.setString(2, "Task" + id);
+            insert.setString(3, "This is a task #" + id);
+            insert.addBatch();
+        }
+        int[] inserted = insert.executeBatch();
+        connection.commit();
+        return inserted;
+    }
+
+    @Benchmark
+    public int rename() throws SQLException {
+        long id = ThreadLocalRandom.current().nextLong(1, INITIAL_COUNT + 1);
+        rename.setString(1, "Renamed" + id + "-" + renameVersion++);
+        rename.setLong(2, id);
+        int updated = rename.executeUpdate();
+        connection.commit();
+        return updated;
+    }
+}
@@ -0,0 +1,61 @@
+package com.testtask.todo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.testtask.todo.dto.TaskDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация TaskDto с настройками ObjectMapper как в Spring Boot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectWriter listWriter;
+    private ObjectMapper objectMapper;
+    private List<TaskDto> taskDtos;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, TaskDto.class));
+
+        taskDtos = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            taskDtos.add(TaskFixtures.taskDto(id));
+        }
+        json = listWriter.writeValueAsBytes(taskDtos);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(taskDtos);
+    }
+
+    @Benchmark
+    public TaskDto[] deserializeList() throws Exception {
+        return objectMapper.readValue(json, TaskDto[].class);
+    }
+}
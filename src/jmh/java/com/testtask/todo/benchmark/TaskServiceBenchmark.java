@@ -0,0 +1,109 @@
+package com.testtask.todo.benchmark;
+
+import com.testtask.todo.cache.CaffeineTaskCache;
+import com.testtask.todo.cache.NoOpTaskCache;
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.config.TaskCacheProperties;
+import com.testtask.todo.dto.CursorPageDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.mapper.TaskMapperImpl;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.service.TaskPatchParser;
+import com.testtask.todo.service.TaskService;
+import com.testtask.todo.store.JpaTaskStore;
+import com.testtask.todo.store.TaskIndex;
+import com.testtask.todo.store.TaskStore;
+import com.testtask.todo.writebehind.NoOpPendingTaskWrites;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы сервисного слоя (кэш, маппинг) поверх in-memory репозитория
+ * или поверх индекса задач в памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskServiceBenchmark {
+
+    private static final int TASK_COUNT = 10_000;
+
+    @Param({"none", "caffeine"})
+    private String cache;
+
+    @Param({"jpa", "index"})
+    private String store;
+
+    private TaskService taskService;
+
+    @Setup
+    public void setUp() {
+        TaskRepository taskRepository = InMemoryTaskRepository.create(TaskFixtures.tasks(TASK_COUNT));
+        TaskCache taskCache = "caffeine".equals(cache) ? new CaffeineTaskCache(new TaskCacheProperties()) : new NoOpTaskCache();
+        TaskMapperImpl taskMapper = new TaskMapperImpl();
+        TaskStore taskStore = "index".equals(store)
+                ? indexStore(taskMapper.toDtoList(TaskFixtures.tasks(TASK_COUNT)))
+                : new JpaTaskStore(taskRepository, taskMapper);
+        // Архив не нужен: бенчмарк читает только существующие задачи
+        taskService = new TaskService(taskMapper, taskRepository, taskCache,
+                new TaskPatchParser(Validation.buildDefaultValidatorFactory().getValidator()), new NoOpPendingTaskWrites(),
+                taskStore, null);
+    }
+
+    /**
+     * То же, что InMemoryTaskStore после загрузки, без загрузки из БД и ленты изменений.
+     */
+    private static TaskStore indexStore(List<TaskDto> tasks) {
+        TaskIndex index = new TaskIndex(tasks.size());
+        tasks.forEach(index::put);
+        return new TaskStore() {
+            @Override
+            public Optional<TaskDto> findById(long id) {
+                return Optional.ofNullable(index.get(id));
+            }
+
+            @Override
+            public Optional<TaskDto> findByName(String name) {
+                return Optional.ofNullable(index.getByName(name));
+            }
+
+            @Override
+            public Optional<TaskDto> findByNameIgnoreCase(String name) {
+                return Optional.ofNullable(index.getByNameIgnoreCase(name));
+            }
+
+            @Override
+            public List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit) {
+                return index.findAfter(filter, afterId, limit);
+            }
+        };
+    }
+
+    @Benchmark
+    public TaskDto getTask() {
+        return taskService.getTask(ThreadLocalRandom.current().nextLong(1, TASK_COUNT + 1));
+    }
+
+    @Benchmark
+    public TaskDto getTaskByName() {
+        return taskService.getTaskByName("Task" + ThreadLocalRandom.current().nextLong(1, TASK_COUNT + 1));
+    }
+
+    @Benchmark
+    public CursorPageDto<TaskDto> getTasksByCursor() {
+        return taskService.getTasksByCursor(null, 20);
+    }
+}
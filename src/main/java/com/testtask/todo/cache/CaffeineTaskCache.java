@@ -0,0 +1,125 @@
+package com.testtask.todo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.testtask.todo.config.TaskCacheProperties;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.routing.ReplicaRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Ограниченный по размеру in-process кэш задач на Caffeine (W-TinyLFU).
+ * <p>
+ * Загруженная задача кладется в кэш, только если с момента начала загрузки не было ни одного удаления.
+ * Иначе чтение, начавшееся до коммита обновления, могло бы вернуть в кэш старое состояние задачи.
+ * По той же причине задачи для кэша загружаются из primary, а не из отстающей реплики.
+ *
+ * @author Sergey Gerasimov
+ */
+public class CaffeineTaskCache implements TaskCache {
+
+    private final Cache<Long, TaskDto> tasksById;
+    private final Cache<String, Long> taskIdsByName;
+
+    private final Object lock = new Object();
+    private long invalidations;
+
+    public CaffeineTaskCache(TaskCacheProperties properties) {
+        tasksById = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        taskIdsByName = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .build();
+    }
+
+    @Override
+    public TaskDto get(long id, LongFunction<TaskDto> loader) {
+        TaskDto cached = tasksById.getIfPresent(id);
+        if (cached != null) {
+            return cached.toBuilder().build();
+        }
+
+        long stamp = invalidationStamp();
+        TaskDto loaded = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(id));
+        put(loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public TaskDto getByName(String name, Function<String, TaskDto> loader) {
+        Long id = taskIdsByName.getIfPresent(name);
+        if (id != null) {
+            TaskDto cached = tasksById.getIfPresent(id);
+            if (cached != null && name.equals(cached.getName())) {
+                return cached.toBuilder().build();
+            }
+        }
+
+        long stamp = invalidationStamp();
+        TaskDto loaded = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(name));
+        put(loaded, stamp);
+        return loaded;
+    }
+
+    @Override
+    public void evict(long id) {
+        invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return tasksById.stats();
+    }
+
+    public Cache<Long, TaskDto> getTasksById() {
+        return tasksById;
+    }
+
+    private long invalidationStamp() {
+        synchronized (lock) {
+            return invalidations;
+        }
+    }
+
+    private void invalidate(long id) {
+        synchronized (lock) {
+            invalidations++;
+            TaskDto removed = tasksById.asMap().remove(id);
+            if (removed != null && removed.getName() != null) {
+                taskIdsByName.asMap().remove(removed.getName(), id);
+            }
+        }
+    }
+
+    private void put(TaskDto taskDto, long stamp) {
+        if (taskDto == null || taskDto.getId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (stamp != invalidations) {
+                return;
+            }
+            tasksById.put(taskDto.getId(), taskDto.toBuilder().build());
+            if (taskDto.getName() != null) {
+                taskIdsByName.put(taskDto.getName(), taskDto.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.testtask.todo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.testtask.todo.dto.TaskDto;
+
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Реализация без кэширования, все чтения идут напрямую в loader.
+ *
+ * @author Sergey Gerasimov
+ */
+public class NoOpTaskCache implements TaskCache {
+
+    @Override
+    public TaskDto get(long id, LongFunction<TaskDto> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public TaskDto getByName(String name, Function<String, TaskDto> loader) {
+        return loader.apply(name);
+    }
+
+    @Override
+    public void evict(long id) {
+    }
+
+    @Override
+    public CacheStats stats() {
+        return CacheStats.empty();
+    }
+}
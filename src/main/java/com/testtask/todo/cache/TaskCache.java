@@ -0,0 +1,43 @@
+package com.testtask.todo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.testtask.todo.dto.TaskDto;
+
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Read-through кэш задач по id с вторичным индексом имя -> id.
+ *
+ * @author Sergey Gerasimov
+ */
+public interface TaskCache {
+
+    /**
+     * Возвращает задачу из кэша или загружает ее через loader и кладет в кэш.
+     *
+     * @param id     ID задачи
+     * @param loader загружает задачу при промахе, исключения пробрасываются вызывающему
+     * @return данные задачи
+     */
+    TaskDto get(long id, LongFunction<TaskDto> loader);
+
+    /**
+     * Возвращает задачу по имени из кэша или загружает ее через loader и кладет в кэш.
+     *
+     * @param name   имя задачи
+     * @param loader загружает задачу при промахе, исключения пробрасываются вызывающему
+     * @return данные задачи
+     */
+    TaskDto getByName(String name, Function<String, TaskDto> loader);
+
+    /**
+     * Удаляет задачу из кэша. Внутри транзакции задача удаляется повторно после ее завершения,
+     * чтобы в кэш не попало состояние, прочитанное до коммита.
+     *
+     * @param id ID задачи
+     */
+    void evict(long id);
+
+    CacheStats stats();
+}
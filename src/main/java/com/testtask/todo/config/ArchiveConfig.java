@@ -0,0 +1,32 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.repository.TaskArchiveRepository;
+import com.testtask.todo.service.TaskArchiveService;
+import com.testtask.todo.store.TaskStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Включает перенос старых завершенных задач в архив, если задано свойство todo.archive.enabled=true.
+ * Чтение из архива в {@link com.testtask.todo.service.TaskService#getTask(Long)} работает и без него.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(ArchiveProperties.class)
+@ConditionalOnProperty(prefix = "todo.archive", name = "enabled", havingValue = "true")
+public class ArchiveConfig {
+
+    @Bean
+    public TaskArchiveService taskArchiveService(TaskArchiveRepository taskArchiveRepository,
+                                                 TransactionTemplate transactionTemplate,
+                                                 TaskCache taskCache,
+                                                 TaskStore taskStore,
+                                                 ArchiveProperties properties) {
+        return new TaskArchiveService(taskArchiveRepository, transactionTemplate, taskCache, taskStore, properties);
+    }
+}
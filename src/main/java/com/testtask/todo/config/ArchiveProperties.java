@@ -0,0 +1,36 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.archive")
+public class ArchiveProperties {
+
+    /**
+     * Включает перенос старых завершенных задач в tasks_archive.
+     */
+    private boolean enabled;
+
+    /**
+     * Задача переносится, когда она завершена и не менялась дольше этого срока.
+     */
+    private Duration maxAge = Duration.ofDays(90);
+
+    /**
+     * Количество задач, переносимых одной транзакцией.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Пауза между пакетами, чтобы перенос не занимал диск и WAL целиком.
+     */
+    private Duration pause = Duration.ofMillis(100);
+
+    /**
+     * Сколько пакетов перенести за один запуск, остальное переносится следующими запусками.
+     */
+    private int maxBatchesPerRun = 100;
+}
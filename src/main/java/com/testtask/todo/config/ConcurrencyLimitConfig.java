@@ -0,0 +1,31 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.filter.ConcurrencyLimitFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Включает {@link ConcurrencyLimitFilter}, если задано свойство todo.concurrency.max-in-flight.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(ConcurrencyProperties.class)
+@ConditionalOnProperty(prefix = "todo.concurrency", name = "max-in-flight")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyProperties properties) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(properties.getMaxInFlight(), properties.getAcquireTimeout()));
+        registration.addUrlPatterns("/tasks/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
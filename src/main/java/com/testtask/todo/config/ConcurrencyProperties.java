@@ -0,0 +1,21 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.concurrency")
+public class ConcurrencyProperties {
+
+    /**
+     * Максимальное количество одновременно обрабатываемых запросов.
+     */
+    private int maxInFlight;
+
+    /**
+     * Сколько запрос ждет свободного слота, прежде чем получить 503.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(1);
+}
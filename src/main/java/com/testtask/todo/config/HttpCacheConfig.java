@@ -0,0 +1,32 @@
+package com.testtask.todo.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Добавляет ETag к ответам списков задач, для которых контроллер не вычисляет его сам.
+ * <p>
+ * {@link ShallowEtagHeaderFilter} буферизует тело ответа и считает по нему хэш, поэтому он подключается
+ * только к небольшим страницам и не затрагивает выгрузку и ленту изменений. ETag слабый: Tomcat не сжимает
+ * ответы с сильным ETag.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HttpCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/tasks/cursor", "/tasks/filter", "/tasks/search");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
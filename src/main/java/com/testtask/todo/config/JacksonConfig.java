@@ -0,0 +1,27 @@
+package com.testtask.todo.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.testtask.todo.controller.TaskFieldsResponseBodyAdvice;
+import com.testtask.todo.dto.TaskDto;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Подключает к TaskDto фильтр полей для параметра fields. По умолчанию фильтр сериализует все поля,
+ * поэтому ответы без fields, выгрузка и лента изменений не меняются.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer taskFieldsCustomizer() {
+        return builder -> builder
+                .mixIn(TaskDto.class, TaskFieldsResponseBodyAdvice.TaskFieldsMixin.class)
+                .filters(new SimpleFilterProvider()
+                        .addFilter(TaskFieldsResponseBodyAdvice.FILTER_ID, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
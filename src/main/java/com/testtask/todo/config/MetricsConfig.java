@@ -0,0 +1,61 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.cache.CaffeineTaskCache;
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.filter.QueryCountFilter;
+import com.testtask.todo.metrics.QueryCountInspector;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Метрики приложения сверх автоконфигурации Actuator: таймеры {@code @Timed} на сервисах,
+ * количество SQL-запросов на HTTP-запрос и статистика кэша задач.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            MeterRegistry meterRegistry,
+            @Value("${todo.metrics.query-threshold:10}") int queryThreshold) {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(
+                new QueryCountFilter(meterRegistry, queryThreshold));
+        registration.addUrlPatterns("/tasks/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder taskCacheMetrics(TaskCache taskCache) {
+        return registry -> {
+            if (taskCache instanceof CaffeineTaskCache caffeineTaskCache) {
+                new CaffeineCacheMetrics<>(caffeineTaskCache.getTasksById(), "tasks", List.of()).bindTo(registry);
+            }
+        };
+    }
+}
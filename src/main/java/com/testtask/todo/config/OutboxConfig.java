@@ -0,0 +1,16 @@
+package com.testtask.todo.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает планировщик, на котором работают relay ленты изменений задач и очистка старых событий.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+}
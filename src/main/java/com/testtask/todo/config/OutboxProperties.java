@@ -0,0 +1,32 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.outbox")
+public class OutboxProperties {
+
+    /**
+     * Максимальное количество событий, которые relay публикует или читает за один запрос к БД.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Сколько хранятся опубликованные события; продолжить чтение с более старой позиции нельзя.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Время жизни SSE-подписки, после него клиент переподключается с Last-Event-ID.
+     */
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Сколько пакетов событий может ждать отправки одному SSE-подписчику. При переполнении подписка закрывается,
+     * и клиент догоняет ленту после переподключения с Last-Event-ID.
+     */
+    private int maxPendingBatches = 100;
+}
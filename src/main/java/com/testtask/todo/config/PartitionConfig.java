@@ -0,0 +1,33 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.partition.TaskPartitionMaintenance;
+import com.testtask.todo.partition.TaskPartitionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Включает обслуживание секций tasks, если задано свойство todo.partitions.enabled=true.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(PartitionProperties.class)
+@ConditionalOnProperty(prefix = "todo.partitions", name = "enabled", havingValue = "true")
+public class PartitionConfig {
+
+    @Bean
+    public TaskPartitionRepository taskPartitionRepository(JdbcTemplate jdbcTemplate) {
+        return new TaskPartitionRepository(jdbcTemplate);
+    }
+
+    @Bean
+    public TaskPartitionMaintenance taskPartitionMaintenance(TaskPartitionRepository taskPartitionRepository,
+                                                             TransactionTemplate transactionTemplate,
+                                                             PartitionProperties properties) {
+        return new TaskPartitionMaintenance(taskPartitionRepository, transactionTemplate, properties);
+    }
+}
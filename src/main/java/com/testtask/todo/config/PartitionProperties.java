@@ -0,0 +1,34 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.partitions")
+public class PartitionProperties {
+
+    /**
+     * Включает обслуживание секций и поиск задач по имени через task_names.
+     * Требует миграции с контекстом Liquibase partitioned.
+     */
+    private boolean enabled;
+
+    /**
+     * Сколько пустых секций держать впереди последнего выданного id.
+     */
+    private int ahead = 2;
+
+    /**
+     * Секция удаляется, когда все ее задачи завершены и не менялись дольше этого срока.
+     */
+    private Duration retention = Duration.ofDays(90);
+
+    /**
+     * Сколько задание хранения ждет блокировок секции и tasks. Пока DETACH PARTITION в PostgreSQL 13 ждет
+     * ACCESS EXCLUSIVE, чтения и записи tasks ждут за ним, поэтому ожидание короткое, а неудачная попытка
+     * повторяется на следующем запуске.
+     */
+    private Duration lockTimeout = Duration.ofMillis(200);
+}
@@ -0,0 +1,14 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "todo.reactive")
+public class ReactiveProperties {
+
+    /**
+     * Количество строк, которое R2DBC-драйвер получает за один раз при выгрузке задач.
+     */
+    private int exportFetchSize = 1_000;
+}
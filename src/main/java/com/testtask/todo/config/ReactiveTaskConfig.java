@@ -0,0 +1,59 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.reactive.ReactiveTaskRepository;
+import com.testtask.todo.reactive.ReactiveTaskService;
+import com.testtask.todo.reactive.TaskErrorFilter;
+import com.testtask.todo.reactive.TaskHandler;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Реактивный вариант API задач: WebFlux на Netty и R2DBC вместо Spring MVC и JPA.
+ * Включается профилем reactive, который переключает приложение в режим WebFlux.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(ReactiveProperties.class)
+public class ReactiveTaskConfig {
+
+    @Bean
+    public ReactiveTaskRepository reactiveTaskRepository(ConnectionFactory connectionFactory, ReactiveProperties properties) {
+        return new ReactiveTaskRepository(DatabaseClient.create(connectionFactory), properties.getExportFetchSize());
+    }
+
+    @Bean
+    public ReactiveTaskService reactiveTaskService(ReactiveTaskRepository reactiveTaskRepository) {
+        return new ReactiveTaskService(reactiveTaskRepository);
+    }
+
+    @Bean
+    public TaskHandler taskHandler(ReactiveTaskService reactiveTaskService, Validator validator) {
+        return new TaskHandler(reactiveTaskService, validator);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> taskRoutes(TaskHandler taskHandler) {
+        return RouterFunctions.route()
+                .path("/tasks", builder -> builder
+                        .POST("", taskHandler::createTask)
+                        .GET("/name", taskHandler::getTaskByName)
+                        .GET("/cursor", taskHandler::getTasksByCursor)
+                        .GET("/export", taskHandler::exportTasks)
+                        .GET("/page/{offset}/limit/{limit}", taskHandler::getAllTasks)
+                        .GET("/{id:\\d+}", taskHandler::getTask)
+                        .PUT("/{id:\\d+}", taskHandler::updateTask)
+                        .DELETE("/{id:\\d+}", taskHandler::deleteTask))
+                .filter(new TaskErrorFilter())
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.routing.ReplicaLagMonitor;
+import com.testtask.todo.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Маршрутизация read-only транзакций в реплики, включается свойством todo.replica.enabled=true.
+ * Пул primary настраивается как обычно через spring.datasource, пулы реплик — через todo.replica.replicas.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "todo.replica", name = "enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource, ReplicaProperties properties,
+                                               MeterRegistry meterRegistry) {
+        List<ReplicaLagMonitor.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setConnectionTimeout(properties.getCheckTimeout().toMillis());
+            // Реплика может быть недоступна при старте, тогда чтения идут в primary до первой успешной проверки
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricRegistry(meterRegistry);
+            replicas.add(new ReplicaLagMonitor.Replica(dataSource.getPoolName(), dataSource));
+        }
+        return new ReplicaLagMonitor(primaryDataSource, replicas, properties.getMaxLag(), properties.getCheckTimeout(),
+                properties.getMaxCheckAge());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor));
+    }
+}
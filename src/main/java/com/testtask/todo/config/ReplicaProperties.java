@@ -0,0 +1,45 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "todo.replica")
+public class ReplicaProperties {
+
+    /**
+     * Включает маршрутизацию read-only транзакций в реплики.
+     */
+    private boolean enabled;
+
+    /**
+     * Реплика не получает запросы, пока ее отставание больше этого значения.
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * Максимальное время получения соединения и проверки отставания реплики.
+     */
+    private Duration checkTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Реплика не получает запросы, если ее отставание не проверялось дольше этого времени, например, пока поток
+     * планировщика занят другим заданием. Должно быть в несколько раз больше todo.replica.lag-check-interval-ms.
+     */
+    private Duration maxCheckAge = Duration.ofSeconds(2);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,31 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.filter.RequestLogFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Включает {@link RequestLogFilter}, если задано свойство todo.request-log.enabled=true.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableConfigurationProperties(RequestLogProperties.class)
+@ConditionalOnProperty(prefix = "todo.request-log", name = "enabled", havingValue = "true")
+public class RequestLogConfig {
+
+    @Bean
+    public FilterRegistrationBean<RequestLogFilter> requestLogFilter(RequestLogProperties properties) {
+        FilterRegistrationBean<RequestLogFilter> registration = new FilterRegistrationBean<>(
+                new RequestLogFilter(properties.getSampleRate(), properties.getSlowThreshold()));
+        registration.addUrlPatterns("/tasks/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.request-log")
+public class RequestLogProperties {
+
+    /**
+     * Включает журнал запросов к /tasks.
+     */
+    private boolean enabled;
+
+    /**
+     * Доля успешных быстрых запросов, которые попадают в журнал, от 0 до 1.
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * Запросы дольше этого порога и ответы 5xx пишутся всегда.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+}
@@ -0,0 +1,26 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.cache.CaffeineTaskCache;
+import com.testtask.todo.cache.NoOpTaskCache;
+import com.testtask.todo.cache.TaskCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша задач. Кэш отключается свойством todo.cache.enabled=false.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(TaskCacheProperties.class)
+public class TaskCacheConfig {
+
+    @Bean
+    public TaskCache taskCache(TaskCacheProperties properties) {
+        if (!properties.isEnabled()) {
+            return new NoOpTaskCache();
+        }
+        return new CaffeineTaskCache(properties);
+    }
+}
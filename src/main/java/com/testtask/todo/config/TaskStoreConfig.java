@@ -0,0 +1,55 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskChangeRepository;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.store.InMemoryTaskStore;
+import com.testtask.todo.store.JpaTaskStore;
+import com.testtask.todo.store.PartitionedJpaTaskStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Конфигурация источника чтения задач. Индекс в памяти включается свойством todo.store.engine=in-memory,
+ * JpaTaskStore при этом остается и обслуживает чтения, пока индекс загружается.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(TaskStoreProperties.class)
+public class TaskStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "todo.partitions", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public JpaTaskStore jpaTaskStore(TaskRepository taskRepository, TaskMapper taskMapper) {
+        return new JpaTaskStore(taskRepository, taskMapper);
+    }
+
+    /**
+     * После миграции на секционированную tasks поиск по имени идет через task_names, см. {@link PartitionedJpaTaskStore}.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "todo.partitions", name = "enabled", havingValue = "true")
+    public JpaTaskStore partitionedJpaTaskStore(TaskRepository taskRepository, TaskMapper taskMapper) {
+        return new PartitionedJpaTaskStore(taskRepository, taskMapper);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "todo.store", name = "engine", havingValue = "in-memory")
+    public InMemoryTaskStore inMemoryTaskStore(JdbcTemplate jdbcTemplate, TaskChangeRepository taskChangeRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               JpaTaskStore jpaTaskStore, TaskStoreProperties properties) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return new InMemoryTaskStore(jdbcTemplate, taskChangeRepository, transactionTemplate, jpaTaskStore, properties);
+    }
+}
@@ -0,0 +1,28 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "todo.store")
+public class TaskStoreProperties {
+
+    public enum Engine {
+        JPA, IN_MEMORY
+    }
+
+    /**
+     * Откуда TaskService читает задачи: jpa - из БД, in-memory - из индекса в памяти.
+     */
+    private Engine engine = Engine.JPA;
+
+    /**
+     * Количество строк, которое драйвер получает за один раз при загрузке индекса.
+     */
+    private int loadFetchSize = 5_000;
+
+    /**
+     * Максимальное количество событий ленты изменений, читаемых за один запрос.
+     */
+    private int syncBatchSize = 1_000;
+}
@@ -0,0 +1,39 @@
+package com.testtask.todo.config;
+
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.writebehind.NoOpPendingTaskWrites;
+import com.testtask.todo.writebehind.PendingTaskWrites;
+import com.testtask.todo.writebehind.TaskWriteQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Конфигурация отложенной записи задач. Включается свойством todo.write-behind.enabled=true.
+ *
+ * @author Sergey Gerasimov
+ */
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "todo.write-behind", name = "enabled", havingValue = "true")
+    public TaskWriteQueue taskWriteQueue(TaskRepository taskRepository, TaskMapper taskMapper, TaskCache taskCache,
+                                         PlatformTransactionManager transactionManager,
+                                         WriteBehindProperties properties) {
+        return new TaskWriteQueue(taskRepository, taskMapper, taskCache,
+                new TransactionTemplate(transactionManager), properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "todo.write-behind", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public PendingTaskWrites pendingTaskWrites() {
+        return new NoOpPendingTaskWrites();
+    }
+}
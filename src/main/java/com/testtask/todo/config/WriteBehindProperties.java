@@ -0,0 +1,46 @@
+package com.testtask.todo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "todo.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * Включает отложенную запись через /tasks/async.
+     */
+    private boolean enabled;
+
+    /**
+     * Максимальное количество незаписанных изменений в очереди.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * Максимальное количество изменений в одной транзакции.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Сколько writer ждет заполнения пакета, прежде чем записать неполный.
+     */
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    /**
+     * Сколько запрос ждет места в полной очереди, прежде чем получить 503.
+     */
+    private Duration offerTimeout = Duration.ofMillis(100);
+
+    /**
+     * Сколько при остановке приложения ждать записи оставшихся изменений.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Сколько хранится состояние записи по идентификатору отслеживания.
+     */
+    private Duration statusTtl = Duration.ofMinutes(10);
+}
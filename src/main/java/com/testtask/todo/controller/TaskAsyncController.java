@@ -0,0 +1,94 @@
+package com.testtask.todo.controller;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.WriteStatusDto;
+import com.testtask.todo.writebehind.TaskWriteQueue;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.UUID;
+
+@Validated
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/tasks/async")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "todo.write-behind", name = "enabled", havingValue = "true")
+@Tag(name = "TaskAsyncController", description = "Контроллер принимает изменения задач в очередь отложенной записи")
+public class TaskAsyncController {
+
+    private final TaskWriteQueue taskWriteQueue;
+
+    /**
+     * Принимает создание задачи в очередь.
+     *
+     * @param taskDto данные задачи
+     * @return состояние записи, в Location адрес для его отслеживания
+     */
+    @PostMapping
+    @Operation(summary = "Отложенное создание задачи", description = "Возвращает 202 и идентификатор отслеживания")
+    public ResponseEntity<WriteStatusDto> createTask(@RequestBody @Valid TaskDto taskDto) {
+        return accepted(taskWriteQueue.create(taskDto));
+    }
+
+    /**
+     * Принимает обновление задачи в очередь.
+     *
+     * @param id ID задачи
+     * @param taskDto обновленные данные задачи
+     * @return состояние записи, в Location адрес для его отслеживания
+     */
+    @PutMapping("/{id}")
+    @Operation(summary = "Отложенное обновление задачи",
+            description = "Возвращает 202 и идентификатор отслеживания, повторные обновления одной задачи объединяются")
+    public ResponseEntity<WriteStatusDto> updateTask(@PathVariable @Parameter(description = "Id задачи") long id,
+                                                     @RequestBody @Valid TaskDto taskDto) {
+        return accepted(taskWriteQueue.update(id, taskDto));
+    }
+
+    /**
+     * Принимает удаление задачи в очередь.
+     *
+     * @param id ID задачи
+     * @return состояние записи, в Location адрес для его отслеживания
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Отложенное удаление задачи", description = "Возвращает 202 и идентификатор отслеживания")
+    public ResponseEntity<WriteStatusDto> deleteTask(@PathVariable @Parameter(description = "Id задачи") long id) {
+        return accepted(taskWriteQueue.delete(id));
+    }
+
+    /**
+     * Возвращает состояние отложенной записи.
+     *
+     * @param trackingId идентификатор отслеживания
+     * @return состояние записи
+     */
+    @GetMapping("/{trackingId}")
+    @Operation(summary = "Состояние отложенной записи", description = "PENDING, COMPLETED или FAILED")
+    public WriteStatusDto getStatus(@PathVariable @Parameter(description = "Идентификатор отслеживания") UUID trackingId) {
+        return taskWriteQueue.getStatus(trackingId);
+    }
+
+    private ResponseEntity<WriteStatusDto> accepted(WriteStatusDto status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/tasks/async/" + status.getTrackingId()))
+                .body(status);
+    }
+}
@@ -1,38 +1,79 @@
 package com.testtask.todo.controller;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testtask.todo.dto.CursorPageDto;
+import com.testtask.todo.dto.DataFormat;
 import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.dto.TaskImportResultDto;
+import com.testtask.todo.dto.TaskStatsDto;
+import com.testtask.todo.dto.TaskSyncDto;
+import com.testtask.todo.outbox.TaskOutboxRelay;
+import com.testtask.todo.service.TaskBatchService;
+import com.testtask.todo.service.TaskExportService;
+import com.testtask.todo.service.TaskImportService;
 import com.testtask.todo.service.TaskService;
+import com.testtask.todo.service.TaskStatsService;
+import com.testtask.todo.service.TaskSyncService;
+import com.testtask.todo.util.ETagUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Контроллер для работы с задачами.
  *
  * @author Sergey Gerasimov
  */
+@Validated
 @RestController
 @RequestMapping("/tasks")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Tag(name = "TaskController", description = "Контроллер создает, получает, обновляет и удаляет задачи")
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskBatchService taskBatchService;
+    private final TaskExportService taskExportService;
+    private final TaskImportService taskImportService;
+    private final TaskOutboxRelay taskOutboxRelay;
+    private final TaskSyncService taskSyncService;
+    private final TaskStatsService taskStatsService;
 
     /**
      * Создает новую задачу.
@@ -49,15 +90,37 @@ public class TaskController {
     }
 
     /**
-     * Получает задачу по ее ID.
+     * Получает задачу по ее ID. С заголовками If-None-Match или If-Modified-Since сначала читаются только
+     * версия и время изменения задачи, и если задача не изменилась, возвращается 304 без тела.
      *
      * @param id ID задачи
-     * @return данные задачи
+     * @param fields поля задачи в ответе или null, чтобы вернуть все поля
+     * @param webRequest запрос с условными заголовками
+     * @return данные задачи, ETag с ее версией и Last-Modified
      */
     @GetMapping("/{id}")
-    @Operation(summary = "Получение задачи", description = "Получает задачу по id")
-    public TaskDto getTask(@PathVariable @Parameter(description = "Id задачи") long id) {
-        return taskService.getTask(id);
+    @Operation(summary = "Получение задачи",
+            description = "Получает задачу по id, в ETag возвращается версия задачи; с If-None-Match возвращает 304, если задача не изменилась")
+    public ResponseEntity<TaskDto> getTask(@PathVariable @Parameter(description = "Id задачи") long id,
+                                           @RequestParam(name = TaskFieldsResponseBodyAdvice.FIELDS_PARAMETER, required = false)
+                                           @Parameter(description = "Поля задачи через запятую, например id,name,status") String fields,
+                                           WebRequest webRequest) {
+        if (isConditional(webRequest)) {
+            TaskDto validators = taskService.getTask(id, EnumSet.of(TaskField.VERSION, TaskField.UPDATED_AT));
+            if (webRequest.checkNotModified(ETagUtils.toETag(validators.getVersion()),
+                    ETagUtils.toLastModified(validators.getUpdatedAt()))) {
+                return null;
+            }
+        }
+
+        Set<TaskField> taskFields = TaskField.parse(fields);
+        TaskDto taskDto = taskService.getTask(id, taskFields == null ? null : TaskField.with(taskFields, TaskField.UPDATED_AT));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETagUtils.toETag(taskDto.getVersion()));
+        long lastModified = ETagUtils.toLastModified(taskDto.getUpdatedAt());
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(taskDto);
     }
 
     /**
@@ -67,23 +130,89 @@ public class TaskController {
      * @return данные задачи
      */
     @GetMapping("/name")
-    @Operation(summary = "Получение задачи", description = "Получение задачи по имени")
-    public TaskDto getTaskByName(@RequestParam @Parameter(description = "Название задачи") String name) {
-        return taskService.getTaskByName(name);
+    @Operation(summary = "Получение задачи", description = "Получение задачи по имени, с ignoreCase=true без учета регистра")
+    public TaskDto getTaskByName(@RequestParam @Parameter(description = "Название задачи") String name,
+                                 @RequestParam(defaultValue = "false") @Parameter(description = "Искать без учета регистра") boolean ignoreCase) {
+        return taskService.getTaskByName(name, ignoreCase);
     }
 
     /**
-     * Обновляет задачу по ее ID.
+     * Ищет задачи по началу названия без учета регистра.
+     *
+     * @param prefix начало названия
+     * @param limit максимальное количество задач
+     * @return задачи по возрастанию названия в нижнем регистре
+     */
+    @GetMapping("/name-prefix")
+    @Operation(summary = "Поиск задач по началу названия", description = "Возвращает задачи, название которых начинается с prefix без учета регистра")
+    public List<TaskDto> getTasksByNamePrefix(@RequestParam @Parameter(description = "Начало названия") String prefix,
+                                              @RequestParam(defaultValue = "20") @Parameter(description = "Максимальное количество задач") int limit) {
+        return taskService.getTasksByNamePrefix(prefix, limit);
+    }
+
+    /**
+     * Подсказки для автодополнения названия задачи.
+     *
+     * @param prefix начало названия
+     * @param limit максимальное количество названий
+     * @return названия задач по возрастанию в нижнем регистре
+     */
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Автодополнение названия", description = "Возвращает названия задач, которые начинаются с prefix без учета регистра")
+    public List<String> autocompleteNames(@RequestParam @Parameter(description = "Начало названия") String prefix,
+                                          @RequestParam(defaultValue = "10") @Parameter(description = "Максимальное количество названий") int limit) {
+        return taskService.autocompleteNames(prefix, limit);
+    }
+
+    /**
+     * Обновляет задачу по ее ID. С заголовком If-Match задача обновляется одним условным запросом,
+     * только если ее версия совпадает с ETag, иначе возвращается 412.
      *
      * @param id ID задачи
+     * @param ifMatch ETag задачи, полученный из GET /tasks/{id}
      * @param taskDto обновленные данные задачи
+     * @return ETag с новой версией задачи
      */
     @PutMapping("/{id}")
-    @Operation(summary = "Обновление задачи", description = "Обновляет задачу по id")
+    @Operation(summary = "Обновление задачи", description = "Обновляет задачу по id, с If-Match только если версия не изменилась")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Принимает задачу, которую нужно создать")
-    public void updateTask(@PathVariable @Parameter(description = "Id задачи") long id,
-                           @RequestBody @Valid TaskDto taskDto) {
-        taskService.updateTask(id, taskDto);
+    public ResponseEntity<Void> updateTask(@PathVariable @Parameter(description = "Id задачи") long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           @Parameter(description = "ETag задачи") String ifMatch,
+                                           @RequestBody @Valid TaskDto taskDto) {
+        long version;
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            version = taskService.updateTask(id, taskDto).getVersion();
+        } else {
+            version = taskService.updateTask(id, taskDto, ETagUtils.parseVersion(ifMatch));
+        }
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.toETag(version))
+                .build();
+    }
+
+    /**
+     * Частично обновляет задачу по JSON Merge Patch (RFC 7396).
+     *
+     * @param id ID задачи
+     * @param ifMatch ETag задачи, которую видел клиент
+     * @param patch изменяемые поля задачи
+     * @return новый ETag задачи
+     */
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Частичное обновление задачи",
+            description = "Обновляет только переданные поля задачи, null очищает поле; с If-Match только если версия не изменилась")
+    public ResponseEntity<Void> patchTask(@PathVariable @Parameter(description = "Id задачи") long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                          @Parameter(description = "ETag задачи") String ifMatch,
+                                          @RequestBody ObjectNode patch) {
+        Long expectedVersion = ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())
+                ? null
+                : ETagUtils.parseVersion(ifMatch);
+        long version = taskService.patchTask(id, patch, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.toETag(version))
+                .build();
     }
 
     /**
@@ -98,16 +227,221 @@ public class TaskController {
     }
 
     /**
-     * Возвращает список задач с пагинацией.
+     * Возвращает список задач с пагинацией. ETag страницы вычисляется по id и версиям ее задач; с заголовком
+     * If-None-Match сначала читаются только они, и если страница не изменилась, возвращается 304 без тела.
      *
      * @param offset номер страницы
      * @param limit количество задач на странице
-     * @return список задач
+     * @param fields поля задачи в ответе или null, чтобы вернуть все поля
+     * @param webRequest запрос с условными заголовками
+     * @return список задач и ETag страницы
      */
     @GetMapping("/page/{offset}/limit/{limit}")
-    @Operation(summary = "Возвращает список задач", description = "Возвращает список задач с пагинацией")
-    public List<TaskDto> getAllTasks(@PathVariable @Parameter(description = "Номер страницы") int offset,
-                                     @Parameter(description = "Количество задач на странице") @PathVariable int limit) {
-        return taskService.getAllTasks(offset, limit);
+    @Operation(summary = "Возвращает список задач",
+            description = "Возвращает список задач с пагинацией; с If-None-Match возвращает 304, если страница не изменилась")
+    public ResponseEntity<List<TaskDto>> getAllTasks(@PathVariable @Parameter(description = "Номер страницы") int offset,
+                                                     @Parameter(description = "Количество задач на странице") @PathVariable int limit,
+                                                     @RequestParam(name = TaskFieldsResponseBodyAdvice.FIELDS_PARAMETER, required = false)
+                                                     @Parameter(description = "Поля задачи через запятую, например id,name,status") String fields,
+                                                     WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            List<TaskDto> validators = taskService.getAllTasks(offset, limit, EnumSet.of(TaskField.ID, TaskField.VERSION));
+            if (webRequest.checkNotModified(ETagUtils.toETag(validators))) {
+                return null;
+            }
+        }
+
+        Set<TaskField> taskFields = TaskField.parse(fields);
+        List<TaskDto> taskDtos = taskService.getAllTasks(offset, limit,
+                taskFields == null ? null : TaskField.with(taskFields, TaskField.ID, TaskField.VERSION));
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.toETag(taskDtos))
+                .body(taskDtos);
+    }
+
+    /**
+     * Возвращает список задач с курсорной пагинацией.
+     *
+     * @param cursor курсор следующей страницы
+     * @param limit количество задач на странице
+     * @param fields поля задачи в ответе или null, чтобы вернуть все поля
+     * @return страница задач и курсор следующей страницы
+     */
+    @GetMapping("/cursor")
+    @Operation(summary = "Возвращает список задач", description = "Возвращает список задач с курсорной пагинацией без подсчета количества")
+    public CursorPageDto<TaskDto> getTasksByCursor(@RequestParam(required = false) @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                   @RequestParam(defaultValue = "20") @Parameter(description = "Количество задач на странице") int limit,
+                                                   @RequestParam(name = TaskFieldsResponseBodyAdvice.FIELDS_PARAMETER, required = false)
+                                                   @Parameter(description = "Поля задачи через запятую, например id,name,status") String fields) {
+        return taskService.getTasksByCursor(cursor, limit, TaskField.parse(fields));
+    }
+
+    /**
+     * Создает задачи пакетом.
+     *
+     * @param taskDtos данные задач
+     * @return созданные задачи
+     */
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/batch")
+    @Operation(summary = "Пакетное создание задач", description = "Создает задачи пакетом с JDBC batching")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Принимает список задач, которые нужно создать")
+    public List<TaskDto> createTasks(@RequestBody List<@Valid TaskDto> taskDtos) {
+        return taskBatchService.createTasks(taskDtos);
+    }
+
+    /**
+     * Обновляет задачи пакетом.
+     *
+     * @param taskDtos обновленные данные задач, каждая с id
+     */
+    @PatchMapping("/batch")
+    @Operation(summary = "Пакетное обновление задач", description = "Обновляет задачи пакетом по их id")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Принимает список задач с id, которые нужно обновить")
+    public void updateTasks(@RequestBody List<@Valid TaskDto> taskDtos) {
+        taskBatchService.updateTasks(taskDtos);
+    }
+
+    /**
+     * Удаляет задачи пакетом.
+     *
+     * @param ids ID задач
+     */
+    @DeleteMapping("/batch")
+    @Operation(summary = "Пакетное удаление задач", description = "Удаляет задачи по списку id")
+    public void deleteTasks(@RequestParam @Parameter(description = "Id задач") List<Long> ids) {
+        taskBatchService.deleteTasks(ids);
+    }
+
+    /**
+     * Потоково выгружает все задачи.
+     *
+     * @param format формат выгрузки: ndjson или csv
+     * @param response ответ, в который пишутся задачи
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Выгрузка задач", description = "Потоково выгружает все задачи в формате NDJSON или CSV")
+    public void exportTasks(@RequestParam(defaultValue = "ndjson") @Parameter(description = "Формат выгрузки: ndjson или csv") String format,
+                            HttpServletResponse response) throws IOException {
+        DataFormat dataFormat = DataFormat.of(format);
+        response.setContentType(dataFormat.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + dataFormat.getExtension() + "\"");
+        taskExportService.exportTasks(dataFormat, response.getOutputStream());
+    }
+
+    /**
+     * Потоково загружает задачи через PostgreSQL COPY.
+     *
+     * @param format формат входных данных: ndjson или csv
+     * @param request запрос, из тела которого читаются задачи
+     * @return количество загруженных задач и отклоненные строки
+     */
+    @PostMapping("/import")
+    @Operation(summary = "Загрузка задач", description = "Потоково загружает задачи в формате NDJSON или CSV через COPY")
+    public TaskImportResultDto importTasks(@RequestParam(defaultValue = "ndjson") @Parameter(description = "Формат входных данных: ndjson или csv") String format,
+                                           HttpServletRequest request) throws IOException {
+        return taskImportService.importTasks(DataFormat.of(format), request.getInputStream());
+    }
+
+    /**
+     * Ищет задачи по фильтру с курсорной пагинацией.
+     *
+     * @param filter фильтр задач
+     * @param cursor курсор следующей страницы
+     * @param limit количество задач на странице
+     * @param fields поля задачи в ответе или null, чтобы вернуть все поля
+     * @return страница задач и курсор следующей страницы
+     */
+    @GetMapping("/filter")
+    @Operation(summary = "Фильтрация задач", description = "Ищет задачи по статусу, приоритету, датам создания и обновления и началу названия")
+    public CursorPageDto<TaskDto> filterTasks(@ModelAttribute TaskFilterDto filter,
+                                              @RequestParam(required = false) @Parameter(description = "Курсор следующей страницы") String cursor,
+                                              @RequestParam(defaultValue = "20") @Parameter(description = "Количество задач на странице") int limit,
+                                              @RequestParam(name = TaskFieldsResponseBodyAdvice.FIELDS_PARAMETER, required = false)
+                                              @Parameter(description = "Поля задачи через запятую, например id,name,status") String fields) {
+        return taskService.filterTasks(filter, cursor, limit, TaskField.parse(fields));
+    }
+
+    /**
+     * Полнотекстовый поиск задач по названию и описанию.
+     *
+     * @param query поисковый запрос
+     * @param limit максимальное количество задач
+     * @param fields поля задачи в ответе или null, чтобы вернуть все поля
+     * @return задачи в порядке релевантности
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Полнотекстовый поиск задач", description = "Ищет задачи по словам в названии и описании")
+    public List<TaskDto> searchTasks(@RequestParam("q") @Parameter(description = "Поисковый запрос") String query,
+                                     @RequestParam(defaultValue = "20") @Parameter(description = "Максимальное количество задач") int limit,
+                                     @RequestParam(name = TaskFieldsResponseBodyAdvice.FIELDS_PARAMETER, required = false)
+                                     @Parameter(description = "Поля задачи через запятую, например id,name,status") String fields) {
+        return taskService.searchTasks(query, limit, TaskField.parse(fields));
+    }
+
+    /**
+     * Возвращает статистику задач.
+     *
+     * @param days количество последних дней в статистике по дням
+     * @return количество задач по статусу и приоритету, созданные и завершенные задачи по дням
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Статистика задач",
+            description = "Количество задач по статусу и приоритету и созданные и завершенные задачи по дням")
+    public TaskStatsDto getStats(@RequestParam(defaultValue = "30") @Parameter(description = "Количество последних дней") int days) {
+        return taskStatsService.getStats(days);
+    }
+
+    /**
+     * Возвращает задачи, измененные и удаленные после отметки времени. Нужен для первой синхронизации,
+     * дальше синхронизация продолжается по позиции через {@link #getChangesAfter(long, int)}.
+     *
+     * @param timestamp отметка времени, например начало полной выгрузки
+     * @param limit количество изменений
+     * @return измененные и удаленные задачи и позиция для следующей синхронизации
+     */
+    @GetMapping("/changes-since/{timestamp}")
+    @Operation(summary = "Инкрементальная синхронизация с отметки времени",
+            description = "Возвращает задачи, измененные после отметки времени, id удаленных задач и позицию для следующей синхронизации")
+    public TaskSyncDto getChangesSince(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                       @Parameter(description = "Отметка времени, ISO 8601") LocalDateTime timestamp,
+                                       @RequestParam(defaultValue = "100") @Parameter(description = "Количество изменений") int limit) {
+        return taskSyncService.getChangesSince(timestamp, limit);
+    }
+
+    /**
+     * Возвращает задачи, измененные и удаленные после позиции ленты изменений.
+     *
+     * @param position позиция из предыдущей синхронизации или id события ленты GET /tasks/changes
+     * @param limit количество изменений
+     * @return измененные и удаленные задачи и позиция для следующей синхронизации
+     */
+    @GetMapping("/changes-after/{position}")
+    @Operation(summary = "Инкрементальная синхронизация с позиции",
+            description = "Возвращает задачи, измененные после позиции, id удаленных задач и позицию для следующей синхронизации")
+    public TaskSyncDto getChangesAfter(@PathVariable @Parameter(description = "Позиция из предыдущей синхронизации") long position,
+                                       @RequestParam(defaultValue = "100") @Parameter(description = "Количество изменений") int limit) {
+        return taskSyncService.getChangesAfter(position, limit);
+    }
+
+    /**
+     * Подписывает клиента на ленту изменений задач (Server-Sent Events).
+     *
+     * @param since позиция последнего полученного события
+     * @param lastEventId позиция последнего полученного события при переподключении, приоритетнее since
+     * @return поток событий task-created, task-updated, task-deleted
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Лента изменений задач",
+            description = "SSE-поток событий после позиции since или Last-Event-ID, без них только новые события")
+    public SseEmitter getChanges(@RequestParam(required = false) @Parameter(description = "Позиция последнего полученного события") Long since,
+                                 @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return taskOutboxRelay.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    private static boolean isConditional(WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
     }
 }
@@ -0,0 +1,73 @@
+package com.testtask.todo.controller;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.testtask.todo.dto.TaskField;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Оставляет в сериализованных задачах только поля из параметра fields запроса. Сервис при этом заполняет
+ * запрошенные поля и служебные поля, нужные ему самому (id для курсора, version для ETag), фильтр убирает служебные.
+ *
+ * @author Sergey Gerasimov
+ */
+@ControllerAdvice(assignableTypes = TaskController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TaskFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FILTER_ID = "taskFields";
+    public static final String FIELDS_PARAMETER = "fields";
+
+    /**
+     * Mix-in для TaskDto, подключает фильтр полей без аннотаций Jackson на самом DTO.
+     */
+    @JsonFilter(FILTER_ID)
+    public abstract static class TaskFieldsMixin {
+    }
+
+    /**
+     * Фильтр применяется только к методам, которые принимают параметр fields.
+     */
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (!super.supports(returnType, converterType) || returnType.getMethod() == null) {
+            return false;
+        }
+        return Arrays.stream(returnType.getMethod().getParameters())
+                .map(parameter -> parameter.getAnnotation(RequestParam.class))
+                .anyMatch(requestParam -> requestParam != null && FIELDS_PARAMETER.equals(requestParam.name()));
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        Set<TaskField> fields = TaskField.parse(servletRequest.getServletRequest().getParameter(FIELDS_PARAMETER));
+        if (fields == null) {
+            return;
+        }
+        Set<String> properties = fields.stream()
+                .map(TaskField::getProperty)
+                .collect(Collectors.toSet());
+        bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(properties)));
+    }
+}
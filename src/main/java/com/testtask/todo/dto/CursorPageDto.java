@@ -0,0 +1,22 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница с курсором на следующую страницу")
+public class CursorPageDto<T> {
+
+    private List<T> items;
+
+    @Schema(description = "Курсор следующей страницы, null если страница последняя")
+    private String nextCursor;
+}
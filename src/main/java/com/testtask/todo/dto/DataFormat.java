@@ -0,0 +1,32 @@
+package com.testtask.todo.dto;
+
+import com.testtask.todo.exception.DataValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Форматы потоковой выгрузки и загрузки задач.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum DataFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    /**
+     * @param format название формата без учета регистра
+     * @return формат
+     * @throws DataValidationException если формат не поддерживается
+     */
+    public static DataFormat of(String format) {
+        return Arrays.stream(values())
+                .filter(dataFormat -> dataFormat.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new DataValidationException("Unsupported format: " + format));
+    }
+}
@@ -0,0 +1,33 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Событие изменения задачи")
+public class TaskChangeDto {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, ARCHIVED
+    }
+
+    @Schema(description = "Позиция события в ленте, по ней продолжается чтение (since, Last-Event-ID)")
+    private long position;
+
+    private Type type;
+
+    private long taskId;
+
+    @Schema(description = "Состояние задачи после изменения, для DELETED и ARCHIVED отсутствует")
+    private TaskDto task;
+
+    private LocalDateTime occurredAt;
+}
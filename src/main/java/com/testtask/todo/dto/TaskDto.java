@@ -5,6 +5,7 @@ import com.testtask.todo.entity.Priority;
 import com.testtask.todo.entity.Status;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,7 +14,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Сущность задачи")
@@ -23,8 +24,10 @@ public class TaskDto {
     private Long id;
 
     @NotNull(message = "Name is required")
+    @Size(max = 100, message = "Name must be at most 100 characters")
     private String name;
 
+    @Size(max = 1000, message = "Description must be at most 1000 characters")
     private String description;
 
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
@@ -35,4 +38,7 @@ public class TaskDto {
 
     private Status status;
     private Priority priority;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
@@ -0,0 +1,72 @@
+package com.testtask.todo.dto;
+
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.exception.DataValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Поля задачи, которые можно запросить параметром fields.
+ */
+@RequiredArgsConstructor
+public enum TaskField {
+    ID("id", (task, value) -> task.setId((Long) value)),
+    NAME("name", (task, value) -> task.setName((String) value)),
+    DESCRIPTION("description", (task, value) -> task.setDescription((String) value)),
+    CREATED_AT("createdAt", (task, value) -> task.setCreatedAt((LocalDateTime) value)),
+    UPDATED_AT("updatedAt", (task, value) -> task.setUpdatedAt((LocalDateTime) value)),
+    STATUS("status", (task, value) -> task.setStatus((Status) value)),
+    PRIORITY("priority", (task, value) -> task.setPriority((Priority) value)),
+    VERSION("version", (task, value) -> task.setVersion((Long) value));
+
+    /**
+     * Имя поля в JSON, совпадает с именем атрибута Task.
+     */
+    @Getter
+    private final String property;
+    private final BiConsumer<TaskDto, Object> setter;
+
+    /**
+     * @param fields имена полей через запятую, например id,name,status
+     * @return запрошенные поля или null, если fields не указан и нужны все поля
+     * @throws DataValidationException если поле неизвестно
+     */
+    public static Set<TaskField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<TaskField> parsed = EnumSet.noneOf(TaskField.class);
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+            parsed.add(Arrays.stream(values())
+                    .filter(taskField -> taskField.property.equals(property))
+                    .findFirst()
+                    .orElseThrow(() -> new DataValidationException("Unknown task field: " + property)));
+        }
+        if (parsed.isEmpty()) {
+            throw new DataValidationException("Task fields are empty: " + fields);
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * @return поля вместе с обязательными полями, которые нужны сервису, например для курсора или ETag
+     */
+    public static Set<TaskField> with(Set<TaskField> fields, TaskField... required) {
+        Set<TaskField> result = EnumSet.copyOf(fields);
+        result.addAll(Arrays.asList(required));
+        return result;
+    }
+
+    public void set(TaskDto task, Object value) {
+        setter.accept(task, value);
+    }
+}
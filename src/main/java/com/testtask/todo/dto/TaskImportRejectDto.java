@@ -0,0 +1,20 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Отклоненная при загрузке запись")
+public class TaskImportRejectDto {
+
+    @Schema(description = "Номер строки во входных данных, начиная с 1")
+    private long line;
+
+    private String reason;
+}
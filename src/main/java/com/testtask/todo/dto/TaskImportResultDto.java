@@ -0,0 +1,24 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат загрузки задач")
+public class TaskImportResultDto {
+
+    private long imported;
+
+    private long rejected;
+
+    @Schema(description = "Отклоненные записи, не больше первой тысячи")
+    private List<TaskImportRejectDto> rejects;
+}
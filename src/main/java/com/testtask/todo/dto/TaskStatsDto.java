@@ -0,0 +1,52 @@
+package com.testtask.todo.dto;
+
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Статистика задач")
+public class TaskStatsDto {
+
+    private long total;
+
+    @Schema(description = "Количество задач по статусу и приоритету, null — значение не задано")
+    private List<Count> counts;
+
+    @Schema(description = "Создано и завершено задач по дням (UTC)")
+    private List<Daily> daily;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Count {
+
+        private Status status;
+
+        private Priority priority;
+
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Daily {
+
+        private LocalDate day;
+
+        private long created;
+
+        private long completed;
+    }
+}
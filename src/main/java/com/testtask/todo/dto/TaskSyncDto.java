@@ -0,0 +1,32 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Изменения задач после позиции ленты изменений")
+public class TaskSyncDto {
+
+    @Schema(description = "Созданные и измененные задачи")
+    private List<TaskDto> updated;
+
+    @Schema(description = "Id удаленных задач")
+    private List<Long> deleted;
+
+    @Schema(description = "Id задач, перенесенных в архив: они доступны только через GET /tasks/{id}")
+    private List<Long> archived;
+
+    @Schema(description = "Позиция ленты изменений, с которой продолжается синхронизация: GET /tasks/changes-after/{position}")
+    private long position;
+
+    @Schema(description = "true, если после position уже есть изменения и их нужно запросить сразу")
+    private boolean hasMore;
+}
@@ -0,0 +1,31 @@
+package com.testtask.todo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние отложенной записи задачи")
+public class WriteStatusDto {
+
+    public enum State {
+        PENDING, COMPLETED, FAILED
+    }
+
+    private UUID trackingId;
+
+    private State state;
+
+    @Schema(description = "Id задачи, для создания известен после записи")
+    private Long taskId;
+
+    @Schema(description = "Причина ошибки для FAILED")
+    private String error;
+}
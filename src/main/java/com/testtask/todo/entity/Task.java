@@ -7,15 +7,18 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -25,13 +28,15 @@ import java.util.Objects;
 @Setter
 @Builder
 @Entity
+@DynamicUpdate
 @Table(name = "tasks")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @SequenceGenerator(name = "tasks_id_seq", sequenceName = "tasks_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
@@ -58,6 +63,10 @@ public class Task {
     @Column(name = "priority")
     private Priority priority;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -65,11 +74,11 @@ public class Task {
         Task task = (Task) o;
         return Objects.equals(id, task.id) && Objects.equals(name, task.name) && Objects.equals(description, task.description)
                 && Objects.equals(createdAt, task.createdAt) && Objects.equals(updatedAt, task.updatedAt)
-                && status == task.status && priority == task.priority;
+                && status == task.status && priority == task.priority && Objects.equals(version, task.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, createdAt, updatedAt, status, priority);
+        return Objects.hash(id, name, description, createdAt, updatedAt, status, priority, version);
     }
 }
@@ -0,0 +1,7 @@
+package com.testtask.todo.exception;
+
+public class DataValidationException extends RuntimeException {
+    public DataValidationException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,11 @@
 package com.testtask.todo.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -19,6 +23,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(EntityNotFoundException.class)
@@ -28,6 +33,48 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.NOT_FOUND, "EntityNotFoundException", exception.getMessage());
     }
 
+    @ExceptionHandler(DataValidationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleDataValidationException(DataValidationException exception, HttpServletRequest request) {
+        log.error("DataValidationException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.BAD_REQUEST, "DataValidationException", exception.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailedException(PreconditionFailedException exception, HttpServletRequest request) {
+        log.error("PreconditionFailedException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.PRECONDITION_FAILED, "PreconditionFailedException", exception.getMessage());
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConflictException(ConflictException exception, HttpServletRequest request) {
+        log.error("ConflictException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.CONFLICT, "ConflictException", exception.getMessage());
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ErrorResponse handleChangesExpiredException(ChangesExpiredException exception, HttpServletRequest request) {
+        log.error("ChangesExpiredException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.GONE, "ChangesExpiredException", exception.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailableException(ServiceUnavailableException exception, HttpServletRequest request) {
+        log.warn("ServiceUnavailableException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.SERVICE_UNAVAILABLE, "ServiceUnavailableException", exception.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(OptimisticLockingFailureException exception, HttpServletRequest request) {
+        log.error("OptimisticLockingFailureException: {}", exception.getMessage());
+        return new ErrorResponse(request.getRequestURL().toString(), HttpStatus.CONFLICT, "OptimisticLockingFailureException", exception.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
@@ -39,6 +86,18 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleConstraintViolationException(ConstraintViolationException exception) {
+        log.error("ConstraintViolationException: {}", exception.getMessage());
+        return exception.getConstraintViolations().stream()
+                .collect(Collectors.toMap(
+                        violation -> violation.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (first, second) -> first
+                ));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleRuntimeException(RuntimeException exception, HttpServletRequest request) {
@@ -0,0 +1,67 @@
+package com.testtask.todo.filter;
+
+import com.testtask.todo.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Записывает количество SQL-запросов на HTTP-запрос в метрику todo.http.server.queries.
+ * <p>
+ * Если запрос выполнил больше queryThreshold запросов, он считается подозрением на N+1:
+ * увеличивается счетчик todo.http.server.n-plus-one и пишется предупреждение в лог.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int queryThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, int queryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.queryThreshold = queryThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountInspector.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int queries = QueryCountInspector.count();
+            QueryCountInspector.clear();
+
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("todo.http.server.queries")
+                    .description("SQL statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(queries);
+
+            if (queries > queryThreshold) {
+                Counter.builder("todo.http.server.n-plus-one")
+                        .description("HTTP requests that exceeded the SQL statement threshold")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Possible N+1: {} {} executed {} SQL statements", request.getMethod(), uri, queries);
+            }
+        }
+    }
+}
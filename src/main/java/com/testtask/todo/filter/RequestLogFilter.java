@@ -0,0 +1,56 @@
+package com.testtask.todo.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Пишет в журнал итог запроса одной строкой: метод, шаблон URI, статус и длительность.
+ * <p>
+ * Успешные быстрые запросы попадают в журнал с вероятностью sampleRate, медленные запросы и ответы 5xx — всегда.
+ * Поля передаются структурированными аргументами и в JSON-формате становятся отдельными полями.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public RequestLogFilter(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int status = response.getStatus();
+            boolean always = status >= 500 || elapsed >= slowThresholdNanos;
+            if (log.isInfoEnabled() && (always || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                log.info("Request completed: {} {} {} {}",
+                        kv("method", request.getMethod()),
+                        kv("uri", pattern != null ? pattern : request.getRequestURI()),
+                        kv("status", status),
+                        kv("duration_ms", elapsed / 1_000_000));
+            }
+        }
+    }
+}
@@ -14,10 +14,12 @@ public interface TaskMapper {
 
     TaskDto toDto(Task task);
 
+    @Mapping(target = "version", ignore = true)
     Task toEntity(TaskDto taskDto);
 
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void update(TaskDto taskDto, @MappingTarget Task task);
 
     List<TaskDto> toDtoList(List<Task> tasks);
@@ -0,0 +1,32 @@
+package com.testtask.todo.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-запросы, которые Hibernate выполняет в текущем потоке.
+ * Счетчик сбрасывается в начале каждого HTTP-запроса фильтром {@link com.testtask.todo.filter.QueryCountFilter}.
+ *
+ * @author Sergey Gerasimov
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTER.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNTER.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNTER.get()[0];
+    }
+
+    public static void clear() {
+        COUNTER.remove();
+    }
+}
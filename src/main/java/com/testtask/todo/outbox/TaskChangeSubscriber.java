@@ -0,0 +1,149 @@
+package com.testtask.todo.outbox;
+
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.repository.TaskChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SSE-подписчик ленты изменений. Помнит позицию последнего отправленного события
+ * и догоняет пропущенные события из БД, поэтому каждое событие отправляется ровно один раз и по порядку.
+ * <p>
+ * Relay только кладет события в ограниченную очередь подписчика, отправляет их отдельная задача на executor.
+ * Медленный или зависший клиент не задерживает relay и других подписчиков: когда его очередь переполняется,
+ * подписка закрывается, и клиент переподключается с Last-Event-ID.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+class TaskChangeSubscriber {
+
+    private record Batch(List<TaskChangeDto> events, long upTo) {
+    }
+
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final TaskChangeRepository repository;
+    private final int batchSize;
+    private final BlockingQueue<Batch> pending;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private long position;
+
+    TaskChangeSubscriber(SseEmitter emitter, long position, Executor executor, TaskChangeRepository repository,
+                         int batchSize, int maxPendingBatches) {
+        this.emitter = emitter;
+        this.position = position;
+        this.executor = executor;
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.pending = new ArrayBlockingQueue<>(maxPendingBatches);
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Ставит события в очередь отправки и не ждет самой отправки.
+     *
+     * @param events новые события по возрастанию позиции
+     * @param upTo   позиция, до которой подписчик должен быть отправлен
+     * @return false, если подписка закрыта или ее очередь переполнена и подписка закрывается
+     */
+    boolean offer(List<TaskChangeDto> events, long upTo) {
+        if (closed.get()) {
+            return false;
+        }
+        // Пустой пакет только догоняет подписчика до upTo, если очередь не пуста, это сделают пакеты в ней
+        if (events.isEmpty() && !pending.isEmpty()) {
+            return true;
+        }
+        if (!pending.offer(new Batch(events, upTo))) {
+            log.warn("Task change subscriber is too slow, closing: position={}", position);
+            close(null);
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    void close(Throwable error) {
+        if (closed.compareAndSet(false, true)) {
+            pending.clear();
+            // complete ждет отправки, которая может зависнуть на медленном клиенте, поэтому не в потоке relay
+            executor.execute(() -> {
+                try {
+                    if (error != null) {
+                        emitter.completeWithError(error);
+                    } else {
+                        emitter.complete();
+                    }
+                } catch (IllegalStateException e) {
+                    // Клиент уже отключился, и подписка завершена
+                    log.debug("Task change subscriber already completed", e);
+                }
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            Batch batch;
+            while (!closed.get() && (batch = pending.poll()) != null) {
+                deliver(batch.events(), batch.upTo());
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(e);
+        } finally {
+            draining.set(false);
+            if (!closed.get() && !pending.isEmpty() && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Отправляет события, сначала догоняя из БД события между позицией подписчика и первым из них.
+     */
+    private void deliver(List<TaskChangeDto> events, long upTo) throws IOException {
+        long catchUpTo = events.isEmpty() ? upTo : events.get(0).getPosition() - 1;
+        while (position < catchUpTo) {
+            List<TaskChangeDto> page = repository.findSince(position, batchSize);
+            long before = position;
+            for (TaskChangeDto event : page) {
+                if (event.getPosition() > catchUpTo) {
+                    break;
+                }
+                send(event);
+            }
+            // Пропуски в позициях: следующее событие уже дальше catchUpTo
+            if (position == before || page.size() < batchSize) {
+                break;
+            }
+        }
+        for (TaskChangeDto event : events) {
+            if (event.getPosition() > position) {
+                send(event);
+            }
+        }
+    }
+
+    private void send(TaskChangeDto event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getPosition()))
+                .name("task-" + event.getType().name().toLowerCase(Locale.ROOT))
+                .data(event));
+        position = event.getPosition();
+    }
+}
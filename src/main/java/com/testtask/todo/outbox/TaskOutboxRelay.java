@@ -0,0 +1,118 @@
+package com.testtask.todo.outbox;
+
+import com.testtask.todo.config.OutboxProperties;
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.exception.ChangesExpiredException;
+import com.testtask.todo.repository.TaskChangeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Публикует события из task_outbox SSE-подписчикам.
+ * <p>
+ * На каждом шаге relay назначает позиции новым закоммиченным событиям, читает из БД все события
+ * после последней опубликованной позиции, в том числе назначенные другими экземплярами приложения,
+ * и раздает их в очереди подписчиков. Отправка клиентам идет вне потока планировщика.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskOutboxRelay implements DisposableBean {
+
+    private final TaskChangeRepository taskChangeRepository;
+    private final OutboxProperties properties;
+
+    private final Set<TaskChangeSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    /**
+     * Отправка может надолго заблокироваться на медленном клиенте, виртуальный поток на подписчика при этом
+     * не занимает поток платформы.
+     */
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile long lastPublished = -1;
+
+    /**
+     * Подписывает клиента на ленту изменений.
+     *
+     * @param since позиция последнего полученного события или null, чтобы получать только новые события
+     * @return SSE-поток событий
+     * @throws ChangesExpiredException если события после since уже удалены по сроку хранения
+     */
+    public SseEmitter subscribe(Long since) {
+        long position;
+        if (since == null) {
+            position = taskChangeRepository.findLastPosition();
+        } else {
+            Long first = taskChangeRepository.findFirstPosition();
+            if (first != null && since < first - 1) {
+                throw new ChangesExpiredException("Changes after position " + since + " are no longer available");
+            }
+            position = since;
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        TaskChangeSubscriber subscriber = new TaskChangeSubscriber(emitter, position, deliveryExecutor,
+                taskChangeRepository, properties.getBatchSize(), properties.getMaxPendingBatches());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscribers.remove(subscriber);
+            subscriber.close(null);
+        });
+        emitter.onError(e -> {
+            subscribers.remove(subscriber);
+            subscriber.close(e);
+        });
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${todo.outbox.relay-interval-ms:200}")
+    public synchronized void relay() {
+        taskChangeRepository.assignPositions(properties.getBatchSize());
+        if (lastPublished < 0) {
+            lastPublished = taskChangeRepository.findLastPosition();
+        }
+
+        List<TaskChangeDto> events;
+        do {
+            events = taskChangeRepository.findSince(lastPublished, properties.getBatchSize());
+            if (!events.isEmpty()) {
+                long upTo = events.get(events.size() - 1).getPosition();
+                publish(events, upTo);
+                lastPublished = upTo;
+            }
+        } while (events.size() == properties.getBatchSize());
+
+        publish(List.of(), lastPublished);
+    }
+
+    @Scheduled(fixedDelayString = "${todo.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = taskChangeRepository.deleteRelayedBefore(LocalDateTime.now().minus(properties.getRetention()));
+        if (deleted > 0) {
+            log.info("Task outbox events deleted: count={}", deleted);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        deliveryExecutor.shutdown();
+    }
+
+    private void publish(List<TaskChangeDto> events, long upTo) {
+        subscribers.removeIf(subscriber -> !subscriber.offer(events, upTo));
+    }
+}
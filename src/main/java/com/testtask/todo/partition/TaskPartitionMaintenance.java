@@ -0,0 +1,85 @@
+package com.testtask.todo.partition;
+
+import com.testtask.todo.config.PartitionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Обслуживает секционированную tasks: заранее создает секции для новых id и удаляет старые секции,
+ * где все задачи завершены. Удаление секции дешевле DELETE: не остается мертвых строк для vacuum,
+ * а индексы остальных секций не меняются.
+ * <p>
+ * Секцию перед удалением нужно отсоединить от tasks. В PostgreSQL 13 DETACH PARTITION берет ACCESS EXCLUSIVE на tasks:
+ * пока он ждет блокировку, за ним встают все чтения и записи tasks, а после получения она держится до коммита,
+ * на время DETACH и DROP секции. Ожидание ограничено todo.partitions.lock-timeout, при неудаче секция удаляется
+ * на следующем запуске. С PostgreSQL 14 секция отсоединяется через DETACH PARTITION CONCURRENTLY, который
+ * не блокирует чтение и запись tasks, а ждет только завершения уже начатых транзакций.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TaskPartitionMaintenance {
+
+    private static final int CONCURRENT_DETACH_VERSION = 140000;
+
+    private final TaskPartitionRepository taskPartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionProperties properties;
+
+    @Scheduled(fixedDelayString = "${todo.partitions.create-interval-ms:600000}")
+    public void createPartitions() {
+        int created = taskPartitionRepository.createPartitions(properties.getAhead());
+        if (created > 0) {
+            log.info("Task partitions created: count={}", created);
+        }
+    }
+
+    /**
+     * Удаляет секции по одной, каждую в своей транзакции, чтобы не держать блокировку tasks дольше одной секции.
+     */
+    @Scheduled(fixedDelayString = "${todo.partitions.retention-interval-ms:3600000}")
+    public void dropExpiredPartitions() {
+        String dropped;
+        do {
+            try {
+                dropped = taskPartitionRepository.serverVersion() >= CONCURRENT_DETACH_VERSION
+                        ? dropExpiredPartitionConcurrently()
+                        : transactionTemplate.execute(status -> taskPartitionRepository.dropExpiredPartition(
+                                properties.getRetention(), properties.getLockTimeout()));
+            } catch (DataAccessException e) {
+                // Блокировку не удалось получить за lock_timeout, повтор будет на следующем запуске
+                log.warn("Task partition retention failed", e);
+                return;
+            }
+            if (dropped != null) {
+                log.info("Task partition dropped: {}", dropped);
+            }
+        } while (dropped != null);
+    }
+
+    /**
+     * Сначала доделывает отсоединение, прерванное на прошлом запуске, затем отсоединяет следующую секцию.
+     * DETACH CONCURRENTLY выполняется вне транзакции, удаление секции и события ленты — в отдельной транзакции.
+     */
+    private String dropExpiredPartitionConcurrently() {
+        String pending = taskPartitionRepository.findPendingDetach();
+        if (pending != null) {
+            taskPartitionRepository.finalizeDetach(pending);
+        }
+        String partition = taskPartitionRepository.findDetachedPartition();
+        if (partition == null) {
+            partition = taskPartitionRepository.findExpiredPartition(properties.getRetention());
+            if (partition == null) {
+                return null;
+            }
+            taskPartitionRepository.detachPartitionConcurrently(partition);
+        }
+        String detached = partition;
+        return transactionTemplate.execute(status -> taskPartitionRepository.dropDetachedPartition(
+                detached, properties.getRetention(), properties.getLockTimeout()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.testtask.todo.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * Вызывает функции обслуживания секций tasks из миграции task_V009_partitioning.
+ *
+ * @author Sergey Gerasimov
+ */
+@RequiredArgsConstructor
+public class TaskPartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param ahead сколько секций создать после секции последнего выданного id
+     * @return количество созданных секций
+     */
+    public int createPartitions(int ahead) {
+        Integer created = jdbcTemplate.queryForObject("""
+                        SELECT task_partitions_create('tasks',
+                               coalesce(pg_sequence_last_value('tasks_id_seq'), 0) + ? * task_partition_size())
+                        """,
+                Integer.class, ahead);
+        return created != null ? created : 0;
+    }
+
+    /**
+     * @return номер версии сервера, например 130006 для PostgreSQL 13.6
+     */
+    public int serverVersion() {
+        Integer version = jdbcTemplate.queryForObject("SELECT current_setting('server_version_num')::INT", Integer.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Удаляет одну самую старую секцию, где все задачи завершены и не менялись дольше retention, отсоединяя ее
+     * обычным DETACH PARTITION. Выполняется только внутри транзакции вызывающего кода: lock_timeout действует
+     * до ее конца.
+     *
+     * @param lockTimeout сколько ждать блокировок секции и tasks
+     * @return имя удаленной секции или null, если удалять нечего
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String dropExpiredPartition(Duration retention, Duration lockTimeout) {
+        setLocalLockTimeout(lockTimeout);
+        return jdbcTemplate.queryForObject(
+                "SELECT task_partition_drop_expired('tasks', make_interval(secs => ?))",
+                String.class, (double) retention.toSeconds());
+    }
+
+    /**
+     * @return самая старая секция, которую можно удалить, или null
+     */
+    public String findExpiredPartition(Duration retention) {
+        return jdbcTemplate.queryForObject(
+                "SELECT task_partition_find_expired('tasks', make_interval(secs => ?))::TEXT",
+                String.class, (double) retention.toSeconds());
+    }
+
+    /**
+     * Отсоединяет секцию без блокировки чтения и записи tasks, только для PostgreSQL 14 и новее.
+     * Выполняется вне транзакции.
+     */
+    public void detachPartitionConcurrently(String partition) {
+        jdbcTemplate.execute("ALTER TABLE tasks DETACH PARTITION " + partition + " CONCURRENTLY");
+    }
+
+    /**
+     * @return секция, отсоединение которой через CONCURRENTLY было прервано, или null; только для PostgreSQL 14 и новее
+     */
+    public String findPendingDetach() {
+        return jdbcTemplate.query("""
+                        SELECT inhrelid::REGCLASS::TEXT
+                        FROM pg_inherits
+                        WHERE inhparent = 'tasks'::REGCLASS
+                          AND inhdetachpending
+                        LIMIT 1
+                        """,
+                (rs, rowNum) -> rs.getString(1)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Завершает прерванное отсоединение секции. Выполняется вне транзакции.
+     */
+    public void finalizeDetach(String partition) {
+        jdbcTemplate.execute("ALTER TABLE tasks DETACH PARTITION " + partition + " FINALIZE");
+    }
+
+    /**
+     * @return секция, которая уже отсоединена, но еще не удалена, например после остановки приложения, или null
+     */
+    public String findDetachedPartition() {
+        return jdbcTemplate.query("""
+                        SELECT c.oid::REGCLASS::TEXT
+                        FROM pg_class c
+                        WHERE c.relname ~ '^tasks_p\\d+$'
+                          AND c.relkind = 'r'
+                          AND NOT c.relispartition
+                          AND c.relnamespace = (SELECT relnamespace FROM pg_class WHERE oid = 'tasks'::REGCLASS)
+                        ORDER BY c.relname
+                        LIMIT 1
+                        """,
+                (rs, rowNum) -> rs.getString(1)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Удаляет отсоединенную секцию, если все ее задачи по-прежнему завершены и давно не менялись, иначе присоединяет
+     * ее обратно. Выполняется только внутри транзакции вызывающего кода.
+     *
+     * @param lockTimeout сколько ждать блокировок секции и tasks
+     * @return имя удаленной секции или null, если секция присоединена обратно
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String dropDetachedPartition(String partition, Duration retention, Duration lockTimeout) {
+        setLocalLockTimeout(lockTimeout);
+        return jdbcTemplate.queryForObject(
+                "SELECT task_partition_drop_detached('tasks', ?::REGCLASS, make_interval(secs => ?))",
+                String.class, partition, (double) retention.toSeconds());
+    }
+
+    private void setLocalLockTimeout(Duration lockTimeout) {
+        jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', ?, true)", String.class,
+                lockTimeout.toMillis() + "ms");
+    }
+}
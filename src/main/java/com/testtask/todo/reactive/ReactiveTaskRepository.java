@@ -0,0 +1,205 @@
+package com.testtask.todo.reactive;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+/**
+ * Неблокирующий доступ к таблице tasks через R2DBC для реактивного профиля. Работает с той же схемой,
+ * что и TaskRepository: статус и приоритет хранятся порядковыми номерами, id берется из tasks_id_seq.
+ *
+ * @author Sergey Gerasimov
+ */
+@RequiredArgsConstructor
+public class ReactiveTaskRepository {
+
+    private static final String COLUMNS = "id, name, description, created_at, updated_at, status, priority, version";
+
+    private static final String INSERT = """
+            INSERT INTO tasks (id, name, description, created_at, updated_at, status, priority, version)
+            VALUES (nextval('tasks_id_seq'), :name, :description, now(), now(), :status, :priority, 0)
+            RETURNING\s""" + COLUMNS;
+
+    private static final String UPDATE = """
+            UPDATE tasks
+            SET name = :name, description = :description, status = :status, priority = :priority,
+                updated_at = now(), version = version + 1
+            WHERE id = :id""";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public Mono<TaskDto> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveTaskRepository::mapTask)
+                .one();
+    }
+
+    /**
+     * Задача из архива завершенных задач tasks_archive, см. TaskArchiveRepository.
+     */
+    public Mono<TaskDto> findArchivedById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks_archive WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveTaskRepository::mapTask)
+                .one();
+    }
+
+    public Mono<TaskDto> findByName(String name) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks WHERE lower(name) = lower(:name) AND name = :name")
+                .bind("name", name)
+                .map(ReactiveTaskRepository::mapTask)
+                .one();
+    }
+
+    /**
+     * @param offset номер страницы
+     * @param limit  количество задач на странице
+     * @return задачи страницы в порядке id
+     */
+    public Flux<TaskDto> findPage(int offset, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks ORDER BY id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", (long) offset * limit)
+                .map(ReactiveTaskRepository::mapTask)
+                .all();
+    }
+
+    /**
+     * @param afterId id, после которого начинается страница
+     * @param limit   количество задач
+     * @return задачи с id больше afterId в порядке id
+     */
+    public Flux<TaskDto> findAfter(long afterId, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveTaskRepository::mapTask)
+                .all();
+    }
+
+    /**
+     * Читает все задачи порциями по fetchSize строк. Следующая порция запрашивается у БД только после того,
+     * как подписчик обработал предыдущую, поэтому медленный клиент не копит строки в памяти.
+     * Параметр afterId нужен, чтобы драйвер выполнил запрос по расширенному протоколу: fetch size
+     * в простом протоколе игнорируется.
+     *
+     * @return все задачи в порядке id
+     */
+    public Flux<TaskDto> streamAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM tasks WHERE id > :afterId ORDER BY id")
+                .bind("afterId", 0L)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveTaskRepository::mapTask)
+                .all();
+    }
+
+    public Mono<TaskDto> insert(TaskDto taskDto) {
+        return bindFields(databaseClient.sql(INSERT), taskDto)
+                .map(ReactiveTaskRepository::mapTask)
+                .one();
+    }
+
+    /**
+     * Обновляет задачу одним запросом.
+     *
+     * @param id              ID задачи
+     * @param taskDto         обновленные данные задачи
+     * @param expectedVersion версия, которую клиент видел последней, или null, чтобы обновить без проверки
+     * @return новая версия задачи или пустой Mono, если задача не найдена или ее версия изменилась
+     */
+    public Mono<Long> update(long id, TaskDto taskDto, Long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec spec = expectedVersion == null
+                ? databaseClient.sql(UPDATE + " RETURNING version")
+                : databaseClient.sql(UPDATE + " AND version = :expectedVersion RETURNING version")
+                        .bind("expectedVersion", expectedVersion);
+        return bindFields(spec.bind("id", id), taskDto)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    /**
+     * @return true, если задача была удалена
+     */
+    public Mono<Boolean> deleteById(long id) {
+        return databaseClient.sql("DELETE FROM tasks WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    /**
+     * Удаляет задачу из архива, событие ленты изменений пишет триггер архива, см. TaskArchiveRepository.
+     *
+     * @return true, если задача была в архиве и удалена
+     */
+    public Mono<Boolean> deleteArchivedById(long id) {
+        return databaseClient.sql("DELETE FROM tasks_archive WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("SELECT 1 FROM tasks WHERE id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Boolean> existsArchivedById(long id) {
+        return databaseClient.sql("SELECT 1 FROM tasks_archive WHERE id = :id")
+                .bind("id", id)
+                .map(row -> true)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindFields(DatabaseClient.GenericExecuteSpec spec, TaskDto taskDto) {
+        spec = spec.bind("name", taskDto.getName());
+        spec = taskDto.getDescription() != null
+                ? spec.bind("description", taskDto.getDescription())
+                : spec.bindNull("description", String.class);
+        spec = taskDto.getStatus() != null
+                ? spec.bind("status", (short) taskDto.getStatus().ordinal())
+                : spec.bindNull("status", Short.class);
+        return taskDto.getPriority() != null
+                ? spec.bind("priority", (short) taskDto.getPriority().ordinal())
+                : spec.bindNull("priority", Short.class);
+    }
+
+    private static TaskDto mapTask(Readable row) {
+        Short status = row.get("status", Short.class);
+        Short priority = row.get("priority", Short.class);
+        return TaskDto.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .createdAt(toLocalDateTime(row.get("created_at", OffsetDateTime.class)))
+                .updatedAt(toLocalDateTime(row.get("updated_at", OffsetDateTime.class)))
+                .status(status != null ? Status.values()[status] : null)
+                .priority(priority != null ? Priority.values()[priority] : null)
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    /**
+     * Переводит timestamptz во время часового пояса JVM, как это делает JDBC-драйвер для LocalDateTime.
+     */
+    private static LocalDateTime toLocalDateTime(OffsetDateTime dateTime) {
+        return dateTime != null ? dateTime.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+}
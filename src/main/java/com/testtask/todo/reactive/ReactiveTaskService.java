@@ -0,0 +1,134 @@
+package com.testtask.todo.reactive;
+
+import com.testtask.todo.dto.CursorPageDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.exception.ConflictException;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.PreconditionFailedException;
+import com.testtask.todo.util.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Реактивный аналог TaskService для профиля reactive: те же правила валидации, пагинации
+ * и ошибок, но без блокирующих вызовов. Кэш и индекс задач в памяти этот профиль не использует.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveTaskService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveTaskRepository taskRepository;
+
+    public Mono<TaskDto> createTask(TaskDto taskDto) {
+        return taskRepository.insert(taskDto)
+                .doOnNext(created -> log.info("Task created: id={}", created.getId()));
+    }
+
+    /**
+     * Если задачи нет в tasks, она ищется в архиве завершенных задач.
+     *
+     * @throws EntityNotFoundException если задача не найдена
+     */
+    public Mono<TaskDto> getTask(long id) {
+        return taskRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> taskRepository.findArchivedById(id)))
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Task with id " + id + " not found")));
+    }
+
+    /**
+     * @throws EntityNotFoundException если задача не найдена
+     */
+    public Mono<TaskDto> getTaskByName(String name) {
+        return taskRepository.findByName(name)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Task with name " + name + " not found")));
+    }
+
+    /**
+     * Обновляет задачу одним запросом.
+     *
+     * @param id              ID задачи
+     * @param taskDto         обновленные данные задачи
+     * @param expectedVersion версия, которую клиент видел последней, или null
+     * @return новая версия задачи
+     * @throws EntityNotFoundException     если задача не найдена
+     * @throws ConflictException           если задача в архиве
+     * @throws PreconditionFailedException если задачу уже изменили
+     */
+    public Mono<Long> updateTask(long id, TaskDto taskDto, Long expectedVersion) {
+        return taskRepository.update(id, taskDto, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> updateFailure(id, expectedVersion)))
+                .doOnNext(version -> log.info("Task updated: id={}, version={}", id, version));
+    }
+
+    /**
+     * Если задачи нет в tasks, она удаляется из архива.
+     */
+    public Mono<Void> deleteTask(long id) {
+        return taskRepository.deleteById(id)
+                .flatMap(deleted -> deleted ? Mono.just(true) : taskRepository.deleteArchivedById(id))
+                .doOnNext(deleted -> log.info("Task deleted: id={}", id))
+                .then();
+    }
+
+    /**
+     * @param offset номер страницы
+     * @param limit  количество задач на странице
+     * @return задачи страницы, которые передаются клиенту по мере чтения из БД
+     */
+    public Flux<TaskDto> getAllTasks(int offset, int limit) {
+        if (offset < 0) {
+            return Flux.error(new DataValidationException("Offset must not be negative"));
+        }
+        return validateLimit(limit).thenMany(taskRepository.findPage(offset, limit));
+    }
+
+    /**
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit  количество задач на странице
+     * @return страница задач и курсор следующей страницы
+     * @throws DataValidationException если курсор поврежден или limit вне допустимого диапазона
+     */
+    public Mono<CursorPageDto<TaskDto>> getTasksByCursor(String cursor, int limit) {
+        return validateLimit(limit)
+                .then(Mono.fromCallable(() -> CursorUtils.decode(cursor)))
+                .flatMap(afterId -> taskRepository.findAfter(afterId, limit + 1).collectList())
+                .map(tasks -> {
+                    String nextCursor = null;
+                    if (tasks.size() > limit) {
+                        tasks = tasks.subList(0, limit);
+                        nextCursor = CursorUtils.encode(tasks.get(limit - 1).getId());
+                    }
+                    return new CursorPageDto<>(tasks, nextCursor);
+                });
+    }
+
+    /**
+     * @return все задачи в порядке id, прочитанные из БД по мере запроса подписчика
+     */
+    public Flux<TaskDto> exportTasks() {
+        return taskRepository.streamAll();
+    }
+
+    private Mono<Void> validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new DataValidationException("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return Mono.empty();
+    }
+
+    private Mono<Long> updateFailure(long id, Long expectedVersion) {
+        return taskRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? Mono.error(new PreconditionFailedException("Task with id " + id + " was modified, expected version " + expectedVersion))
+                        : taskRepository.existsArchivedById(id).flatMap(archived -> Mono.error(archived
+                                ? new ConflictException("Task with id " + id + " is archived and cannot be modified")
+                                : new EntityNotFoundException("Task with id " + id + " not found"))));
+    }
+}
@@ -0,0 +1,77 @@
+package com.testtask.todo.reactive;
+
+import com.testtask.todo.exception.ConflictException;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.ErrorResponse;
+import com.testtask.todo.exception.PreconditionFailedException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Преобразует исключения обработчиков в ответы так же, как GlobalExceptionHandler для Spring MVC,
+ * чтобы клиенты обоих профилей получали одинаковые коды и тела ошибок.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class TaskErrorFilter implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        return next.handle(request)
+                .onErrorResume(exception -> handle(exception, request));
+    }
+
+    private Mono<ServerResponse> handle(Throwable exception, ServerRequest request) {
+        if (exception instanceof EntityNotFoundException) {
+            log.error("EntityNotFoundException: {}", exception.getMessage());
+            return error(request, HttpStatus.NOT_FOUND, "EntityNotFoundException", exception);
+        }
+        if (exception instanceof DataValidationException) {
+            log.error("DataValidationException: {}", exception.getMessage());
+            return error(request, HttpStatus.BAD_REQUEST, "DataValidationException", exception);
+        }
+        if (exception instanceof PreconditionFailedException) {
+            log.error("PreconditionFailedException: {}", exception.getMessage());
+            return error(request, HttpStatus.PRECONDITION_FAILED, "PreconditionFailedException", exception);
+        }
+        if (exception instanceof ConflictException) {
+            log.error("ConflictException: {}", exception.getMessage());
+            return error(request, HttpStatus.CONFLICT, "ConflictException", exception);
+        }
+        if (exception instanceof ServerWebInputException inputException) {
+            log.error("ServerWebInputException: {}", inputException.getReason());
+            return ServerResponse.status(HttpStatus.BAD_REQUEST).bodyValue(new ErrorResponse(request.uri().toString(),
+                    HttpStatus.BAD_REQUEST, "ServerWebInputException", inputException.getReason()));
+        }
+        if (exception instanceof ConstraintViolationException violationException) {
+            log.error("ConstraintViolationException: {}", violationException.getMessage());
+            Map<String, String> errors = violationException.getConstraintViolations().stream()
+                    .collect(Collectors.toMap(
+                            violation -> violation.getPropertyPath().toString(),
+                            ConstraintViolation::getMessage,
+                            (first, second) -> first
+                    ));
+            return ServerResponse.status(HttpStatus.BAD_REQUEST).bodyValue(errors);
+        }
+        log.error("RuntimeException: {}", exception.getMessage());
+        return error(request, HttpStatus.INTERNAL_SERVER_ERROR, "RuntimeException", exception);
+    }
+
+    private static Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String error, Throwable exception) {
+        return ServerResponse.status(status)
+                .bodyValue(new ErrorResponse(request.uri().toString(), status, error, exception.getMessage()));
+    }
+}
@@ -0,0 +1,174 @@
+package com.testtask.todo.reactive;
+
+import com.testtask.todo.dto.DataFormat;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.service.TaskExportService;
+import com.testtask.todo.util.CsvUtils;
+import com.testtask.todo.util.ETagUtils;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Set;
+
+/**
+ * Функциональные обработчики /tasks для профиля reactive. Контракт совпадает с TaskController:
+ * те же пути, параметры, коды ответов и заголовки ETag.
+ *
+ * @author Sergey Gerasimov
+ */
+@RequiredArgsConstructor
+public class TaskHandler {
+
+    private final ReactiveTaskService taskService;
+    private final Validator validator;
+
+    public Mono<ServerResponse> createTask(ServerRequest request) {
+        return request.bodyToMono(TaskDto.class)
+                .map(this::validate)
+                .flatMap(taskService::createTask)
+                .flatMap(taskDto -> ServerResponse.status(HttpStatus.CREATED).bodyValue(taskDto));
+    }
+
+    /**
+     * Возвращает задачу с ETag и Last-Modified, с If-None-Match или If-Modified-Since — 304,
+     * если задача не изменилась.
+     */
+    public Mono<ServerResponse> getTask(ServerRequest request) {
+        return Mono.fromCallable(() -> pathId(request))
+                .flatMap(taskService::getTask)
+                .flatMap(taskDto -> {
+                    String eTag = ETagUtils.toETag(taskDto.getVersion());
+                    Instant lastModified = taskDto.getUpdatedAt() != null
+                            ? taskDto.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant()
+                            : null;
+                    Mono<ServerResponse> notModified = lastModified != null
+                            ? request.checkNotModified(lastModified, eTag)
+                            : request.checkNotModified(eTag);
+                    ServerResponse.BodyBuilder ok = ServerResponse.ok().eTag(eTag);
+                    if (lastModified != null) {
+                        ok.lastModified(lastModified);
+                    }
+                    return notModified.switchIfEmpty(Mono.defer(() -> ok.bodyValue(taskDto)));
+                });
+    }
+
+    public Mono<ServerResponse> getTaskByName(ServerRequest request) {
+        return Mono.fromCallable(() -> request.queryParam("name")
+                        .orElseThrow(() -> new DataValidationException("Parameter name is required")))
+                .flatMap(taskService::getTaskByName)
+                .flatMap(taskDto -> ServerResponse.ok().bodyValue(taskDto));
+    }
+
+    /**
+     * Обновляет задачу, с If-Match только если ее версия совпадает с ETag.
+     */
+    public Mono<ServerResponse> updateTask(ServerRequest request) {
+        return Mono.fromCallable(() -> pathId(request))
+                .flatMap(id -> {
+                    String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+                    Long expectedVersion = ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())
+                            ? null
+                            : ETagUtils.parseVersion(ifMatch);
+                    return request.bodyToMono(TaskDto.class)
+                            .map(this::validate)
+                            .flatMap(taskDto -> taskService.updateTask(id, taskDto, expectedVersion));
+                })
+                .flatMap(version -> ServerResponse.ok().eTag(ETagUtils.toETag(version)).build());
+    }
+
+    public Mono<ServerResponse> deleteTask(ServerRequest request) {
+        return Mono.fromCallable(() -> pathId(request))
+                .flatMap(taskService::deleteTask)
+                .then(ServerResponse.ok().build());
+    }
+
+    /**
+     * Возвращает страницу задач JSON-массивом, элементы которого пишутся по мере чтения из БД.
+     */
+    public Mono<ServerResponse> getAllTasks(ServerRequest request) {
+        return Mono.fromCallable(() -> taskService.getAllTasks(pathInt(request, "offset"), pathInt(request, "limit")))
+                .flatMap(tasks -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(tasks, TaskDto.class));
+    }
+
+    public Mono<ServerResponse> getTasksByCursor(ServerRequest request) {
+        return Mono.fromCallable(() -> queryInt(request, "limit", 20))
+                .flatMap(limit -> taskService.getTasksByCursor(request.queryParam("cursor").orElse(null), limit))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    /**
+     * Потоково выгружает все задачи в NDJSON или CSV. Строки читаются из БД, только когда сеть
+     * готова принять следующие, поэтому память на медленного клиента ограничена fetch size.
+     */
+    public Mono<ServerResponse> exportTasks(ServerRequest request) {
+        return Mono.fromCallable(() -> DataFormat.of(request.queryParam("format").orElse("ndjson")))
+                .flatMap(format -> {
+                    ServerResponse.BodyBuilder ok = ServerResponse.ok()
+                            .contentType(MediaType.parseMediaType(format.getMediaType()))
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + format.getExtension() + "\"");
+                    Flux<TaskDto> tasks = taskService.exportTasks();
+                    return switch (format) {
+                        case NDJSON -> ok.body(tasks, TaskDto.class);
+                        case CSV -> ok.body(Flux.just(TaskExportService.CSV_HEADER + "\n").concatWith(tasks.map(TaskHandler::toCsvLine)),
+                                String.class);
+                    };
+                });
+    }
+
+    private TaskDto validate(TaskDto taskDto) {
+        Set<ConstraintViolation<TaskDto>> violations = validator.validate(taskDto);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return taskDto;
+    }
+
+    private static long pathId(ServerRequest request) {
+        String id = request.pathVariable("id");
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new DataValidationException("Invalid task id: " + id);
+        }
+    }
+
+    private static int pathInt(ServerRequest request, String name) {
+        return parseInt(name, request.pathVariable(name));
+    }
+
+    private static int queryInt(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name)
+                .map(value -> parseInt(name, value))
+                .orElse(defaultValue);
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new DataValidationException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static String toCsvLine(TaskDto taskDto) {
+        return CsvUtils.escape(taskDto.getId()) + ','
+                + CsvUtils.escape(taskDto.getName()) + ','
+                + CsvUtils.escape(taskDto.getDescription()) + ','
+                + CsvUtils.escape(taskDto.getCreatedAt()) + ','
+                + CsvUtils.escape(taskDto.getUpdatedAt()) + ','
+                + CsvUtils.escape(taskDto.getStatus()) + ','
+                + CsvUtils.escape(taskDto.getPriority()) + '\n';
+    }
+}
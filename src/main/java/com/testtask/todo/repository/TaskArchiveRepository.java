@@ -0,0 +1,137 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Архив завершенных задач в таблице tasks_archive. Задачи переносятся туда из tasks и дальше только читаются по id
+ * и удаляются. Изменить архивную задачу нельзя.
+ *
+ * @author Sergey Gerasimov
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskArchiveRepository {
+
+    /**
+     * Триггеры tasks видят эту настройку и записывают удаление как ARCHIVED, без изменения счетчиков.
+     */
+    private static final String MARK_ARCHIVING = "SELECT set_config('todo.archiving', 'on', true)";
+
+    /**
+     * Строки выбираются по индексу index_task_completed_updated_at. SKIP LOCKED пропускает задачи, которые
+     * сейчас меняют пользователи, поэтому перенос не ждет их транзакций и не блокирует их.
+     */
+    private static final String ARCHIVE_BATCH = """
+            WITH batch AS (
+                SELECT id
+                FROM tasks
+                WHERE status = 2
+                  AND updated_at < ?
+                ORDER BY updated_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), moved AS (
+                DELETE FROM tasks t
+                USING batch
+                WHERE t.id = batch.id
+                RETURNING t.id, t.name, t.description, t.created_at, t.updated_at, t.status, t.priority, t.version
+            )
+            INSERT INTO tasks_archive (id, name, description, created_at, updated_at, status, priority, version)
+            SELECT id, name, description, created_at, updated_at, status, priority, version
+            FROM moved
+            RETURNING id
+            """;
+
+    private static final String FIND_BY_ID = """
+            SELECT id, name, description, created_at, updated_at, status, priority, version
+            FROM tasks_archive
+            WHERE id = ?
+            """;
+
+    private static final String EXISTS_BY_ID = "SELECT EXISTS (SELECT 1 FROM tasks_archive WHERE id = ?)";
+
+    /**
+     * Событие DELETED для ленты изменений и уменьшение счетчиков пишет триггер task_archive_delete_capture.
+     */
+    private static final String DELETE_BY_ID = "DELETE FROM tasks_archive WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Переносит в архив пакет завершенных задач, которые не менялись с completedBefore, начиная с самых старых.
+     * Выполняется только внутри транзакции вызывающего кода: удаление из tasks и вставка в архив коммитятся вместе.
+     *
+     * @param completedBefore граница последнего изменения задачи, не включительно
+     * @param limit           максимальное количество задач в пакете
+     * @return id перенесенных задач
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> archiveBatch(LocalDateTime completedBefore, int limit) {
+        jdbcTemplate.queryForObject(MARK_ARCHIVING, String.class);
+        return jdbcTemplate.queryForList(ARCHIVE_BATCH, Long.class, Timestamp.valueOf(completedBefore), limit);
+    }
+
+    /**
+     * @return задача из архива или пустой Optional, если такой задачи в архиве нет
+     */
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findById(long id) {
+        return jdbcTemplate.query(FIND_BY_ID, this::mapTask, id).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS_BY_ID, Boolean.class, id));
+    }
+
+    /**
+     * @return true, если задача была в архиве и удалена
+     */
+    @Transactional
+    public boolean deleteById(long id) {
+        return jdbcTemplate.update(DELETE_BY_ID, id) > 0;
+    }
+
+    /**
+     * Удаляет из архива задачи с указанными id, остальные id пропускаются.
+     */
+    @Transactional
+    public void deleteAllById(List<Long> ids) {
+        jdbcTemplate.batchUpdate(DELETE_BY_ID, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    private TaskDto mapTask(ResultSet rs, int rowNum) throws SQLException {
+        int status = rs.getInt("status");
+        Status taskStatus = rs.wasNull() ? null : Status.values()[status];
+        int priority = rs.getInt("priority");
+        Priority taskPriority = rs.wasNull() ? null : Priority.values()[priority];
+        return TaskDto.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .status(taskStatus)
+                .priority(taskPriority)
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
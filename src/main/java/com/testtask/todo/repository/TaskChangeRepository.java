@@ -0,0 +1,177 @@
+package com.testtask.todo.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Лента изменений задач из таблицы task_outbox. События пишет триггер на tasks в транзакции изменения,
+ * позицию в ленте им назначает relay после коммита.
+ *
+ * @author Sergey Gerasimov
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskChangeRepository {
+
+    private static final String TRY_RELAY_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('task_outbox_relay'))";
+
+    /**
+     * Позиции назначаются в порядке id, поэтому события одной задачи остаются в порядке их коммитов.
+     * clock_timestamp() вычисляется после снимка запроса, то есть позже коммита каждого события.
+     */
+    private static final String ASSIGN_POSITIONS = """
+            UPDATE task_outbox o
+            SET position = p.position, relayed_at = clock_timestamp()
+            FROM (
+                SELECT s.id, nextval('task_outbox_position_seq') AS position
+                FROM (SELECT id FROM task_outbox WHERE position IS NULL ORDER BY id LIMIT ?) s
+                ORDER BY s.id
+            ) p
+            WHERE o.id = p.id
+            """;
+
+    private static final String FIND_SINCE = """
+            SELECT position, task_id, event_type, payload::text AS payload, created_at
+            FROM task_outbox
+            WHERE position > ?
+            ORDER BY position
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Назначает позиции закоммиченным событиям. Одновременно позиции назначает только один экземпляр приложения,
+     * поэтому позиции коммитятся в порядке возрастания и читатель ленты не пропускает события.
+     *
+     * @param limit максимальное количество событий
+     * @return количество событий, получивших позицию; 0, если позиции назначает другой экземпляр
+     */
+    @Transactional
+    public int assignPositions(int limit) {
+        Boolean locked = jdbcTemplate.queryForObject(TRY_RELAY_LOCK, Boolean.class);
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+        return jdbcTemplate.update(ASSIGN_POSITIONS, limit);
+    }
+
+    /**
+     * @param position позиция, после которой читаются события
+     * @param limit    максимальное количество событий
+     * @return события с позицией больше position по возрастанию позиции
+     */
+    @Transactional(readOnly = true)
+    public List<TaskChangeDto> findSince(long position, int limit) {
+        return jdbcTemplate.query(FIND_SINCE, this::mapChange, position, limit);
+    }
+
+    /**
+     * @return наибольшая назначенная позиция или 0, если лента пуста
+     */
+    @Transactional(readOnly = true)
+    public long findLastPosition() {
+        Long position = jdbcTemplate.queryForObject("SELECT max(position) FROM task_outbox", Long.class);
+        return position != null ? position : 0;
+    }
+
+    /**
+     * @return наименьшая хранимая позиция или null, если лента пуста
+     */
+    @Transactional(readOnly = true)
+    public Long findFirstPosition() {
+        return jdbcTemplate.queryForObject("SELECT min(position) FROM task_outbox", Long.class);
+    }
+
+    /**
+     * Все события, закоммиченные после at, получают позицию больше результата: позиция назначается после коммита,
+     * а relayed_at растет вместе с позицией.
+     *
+     * @return наибольшая позиция, назначенная не позже at, или null, если таких событий нет
+     */
+    @Transactional(readOnly = true)
+    public Long findPositionRelayedAt(LocalDateTime at) {
+        return jdbcTemplate.query("""
+                        SELECT position
+                        FROM task_outbox
+                        WHERE position IS NOT NULL
+                          AND relayed_at <= ?
+                        ORDER BY relayed_at DESC, position DESC
+                        LIMIT 1
+                        """,
+                (rs, rowNum) -> rs.getLong("position"), Timestamp.valueOf(at)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Удаляет опубликованные события старше before. Последнее событие остается, чтобы не потерять текущую позицию.
+     *
+     * @param before граница хранения
+     * @return количество удаленных событий
+     */
+    @Transactional
+    public int deleteRelayedBefore(LocalDateTime before) {
+        return jdbcTemplate.update("""
+                DELETE FROM task_outbox
+                WHERE position IS NOT NULL
+                  AND created_at < ?
+                  AND position < (SELECT max(position) FROM task_outbox)
+                """, Timestamp.valueOf(before));
+    }
+
+    private TaskChangeDto mapChange(ResultSet rs, int rowNum) throws SQLException {
+        String payload = rs.getString("payload");
+        return TaskChangeDto.builder()
+                .position(rs.getLong("position"))
+                .type(TaskChangeDto.Type.valueOf(rs.getString("event_type")))
+                .taskId(rs.getLong("task_id"))
+                .task(payload != null ? toTaskDto(payload) : null)
+                .occurredAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .build();
+    }
+
+    private TaskDto toTaskDto(String payload) {
+        try {
+            JsonNode row = objectMapper.readTree(payload);
+            return TaskDto.builder()
+                    .id(row.path("id").asLong())
+                    .name(row.path("name").textValue())
+                    .description(row.path("description").textValue())
+                    .createdAt(toLocalDateTime(row.path("created_at")))
+                    .updatedAt(toLocalDateTime(row.path("updated_at")))
+                    .status(row.path("status").isNumber() ? Status.values()[row.get("status").asInt()] : null)
+                    .priority(row.path("priority").isNumber() ? Priority.values()[row.get("priority").asInt()] : null)
+                    .version(row.path("version").isNumber() ? row.get("version").asLong() : null)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new DataRetrievalFailureException("Malformed task_outbox payload", e);
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(JsonNode value) {
+        if (!value.isTextual()) {
+            return null;
+        }
+        return OffsetDateTime.parse(value.textValue())
+                .atZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+}
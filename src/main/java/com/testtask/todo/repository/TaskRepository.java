@@ -1,13 +1,113 @@
 package com.testtask.todo.repository;
 
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
 import com.testtask.todo.entity.Task;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
+
+    /**
+     * Поиск по точному имени. Условие по lower(name) нужно, чтобы запрос шел по индексу index_task_lower_name.
+     */
+    @Query("SELECT t FROM Task t WHERE lower(t.name) = lower(:name) AND t.name = :name")
+    Optional<Task> findByName(@Param("name") String name);
+
+    @Query("SELECT t FROM Task t WHERE lower(t.name) = lower(:name)")
+    Optional<Task> findByNameIgnoreCase(@Param("name") String name);
+
+    /**
+     * ID задачи по имени без учета регистра из task_names. Таблица есть только после миграции с контекстом
+     * partitioned (task_V009_partitioning.sql) и секционирована по хэшу имени, поэтому запрос читает одну секцию.
+     */
+    @Query(value = "SELECT n.task_id FROM task_names n WHERE n.name = lower(:name)", nativeQuery = true)
+    Optional<Long> findIdByLowerName(@Param("name") String name);
+
+    /**
+     * Задачи, имя которых начинается с префикса без учета регистра, по возрастанию lower(name) в порядке индекса.
+     *
+     * @param pattern префикс с экранированными \, % и _ и % в конце, см. {@link TaskSpecifications#prefixPattern(String)}
+     */
+    @Query(value = """
+            SELECT t.* FROM tasks t
+            WHERE lower(t.name) LIKE lower(:pattern) ESCAPE '\\'
+            ORDER BY lower(t.name) USING ~<~
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Task> findByNamePrefixIgnoreCase(@Param("pattern") String pattern, @Param("limit") int limit);
+
+    /**
+     * Вариант {@link #findByNamePrefixIgnoreCase(String, int)} для автодополнения, возвращает только имена.
+     */
+    @Query(value = """
+            SELECT t.name FROM tasks t
+            WHERE lower(t.name) LIKE lower(:pattern) ESCAPE '\\'
+            ORDER BY lower(t.name) USING ~<~
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<String> findNamesByPrefixIgnoreCase(@Param("pattern") String pattern, @Param("limit") int limit);
+
+    @Query("SELECT t.version FROM Task t WHERE t.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    List<Task> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<Task> streamAllByOrderByIdAsc();
+
+    @Query(value = """
+            SELECT t.* FROM tasks t
+            WHERE t.search_vector @@ websearch_to_tsquery('simple', :query)
+            ORDER BY ts_rank(t.search_vector, websearch_to_tsquery('simple', :query)) DESC, t.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Task> search(@Param("query") String query, @Param("limit") int limit);
+
+    @Query(value = """
+            SELECT t.id FROM tasks t
+            WHERE t.search_vector @@ websearch_to_tsquery('simple', :query)
+            ORDER BY ts_rank(t.search_vector, websearch_to_tsquery('simple', :query)) DESC, t.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> searchIds(@Param("query") String query, @Param("limit") int limit);
 
-    Optional<Task> findByName(String name);
+    /**
+     * Обновляет задачу одним запросом, только если ее версия не изменилась.
+     *
+     * @return количество обновленных строк: 0, если задачи нет или версия не совпала
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Task t
+            SET t.name = :name, t.description = :description, t.status = :status, t.priority = :priority,
+                t.updatedAt = :updatedAt, t.version = t.version + 1
+            WHERE t.id = :id AND t.version = :version
+            """)
+    int updateIfVersionMatches(@Param("id") long id,
+                               @Param("version") long version,
+                               @Param("name") String name,
+                               @Param("description") String description,
+                               @Param("status") Status status,
+                               @Param("priority") Priority priority,
+                               @Param("updatedAt") LocalDateTime updatedAt);
 }
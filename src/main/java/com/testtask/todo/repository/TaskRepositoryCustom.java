@@ -0,0 +1,38 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.entity.Task;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * Обновляет одним запросом только переданные поля задачи, без загрузки сущности и dirty checking.
+     * Вместе с полями обновляются updatedAt и version.
+     *
+     * @param id              ID задачи
+     * @param changes         новые значения по именам атрибутов Task
+     * @param expectedVersion версия, которая должна быть у задачи, или null, если версия не проверяется
+     * @return количество обновленных строк: 0, если задачи нет или версия не совпала
+     */
+    int updatePartially(long id, Map<String, Object> changes, Long expectedVersion);
+
+    /**
+     * Выбирает только переданные колонки задач одним запросом. Сущности не создаются и не попадают
+     * в persistence context, незапрошенные поля в результате остаются null.
+     *
+     * @param fields        выбираемые поля
+     * @param specification условие или null
+     * @param orderById     сортировать ли по id
+     * @param offset        количество пропускаемых задач
+     * @param limit         максимальное количество задач
+     * @return задачи с заполненными полями fields
+     */
+    List<TaskDto> findProjected(Set<TaskField> fields, Specification<Task> specification, boolean orderById,
+                                int offset, int limit);
+}
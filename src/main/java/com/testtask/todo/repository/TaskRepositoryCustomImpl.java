@@ -0,0 +1,92 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.entity.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updatePartially(long id, Map<String, Object> changes, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> root = update.from(Task.class);
+
+        changes.forEach((attribute, value) -> {
+            Path<Object> path = root.get(attribute);
+            if (value == null) {
+                update.set(path, cb.nullLiteral(path.getJavaType()));
+            } else {
+                update.set(path, value);
+            }
+        });
+        update.set(root.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        Predicate predicate = cb.equal(root.get("id"), id);
+        if (expectedVersion != null) {
+            predicate = cb.and(predicate, cb.equal(root.get("version"), expectedVersion));
+        }
+        update.where(predicate);
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public List<TaskDto> findProjected(Set<TaskField> fields, Specification<Task> specification, boolean orderById,
+                                       int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Task> root = query.from(Task.class);
+
+        List<TaskField> selected = List.copyOf(fields);
+        List<Selection<?>> selections = new ArrayList<>(selected.size());
+        for (TaskField field : selected) {
+            selections.add(root.get(field.getProperty()));
+        }
+        query.multiselect(selections);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (orderById) {
+            query.orderBy(cb.asc(root.get("id")));
+        }
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        List<TaskDto> tasks = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            TaskDto task = new TaskDto();
+            for (int i = 0; i < selected.size(); i++) {
+                selected.get(i).set(task, tuple.get(i));
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
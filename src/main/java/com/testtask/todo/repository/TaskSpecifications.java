@@ -0,0 +1,79 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Task;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Спецификации для фильтрации задач. Каждое условие соответствует ведущим колонкам
+ * индексов из task_V003_filter_indexes.sql, task_V010_name_lower.sql и task_V013_filter_keyset_indexes.sql.
+ *
+ * @author Sergey Gerasimov
+ */
+public final class TaskSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Task> byFilter(TaskFilterDto filter) {
+        List<Specification<Task>> specifications = new ArrayList<>();
+        if (filter.getStatus() != null && !filter.getStatus().isEmpty()) {
+            specifications.add((root, query, cb) -> root.get("status").in(filter.getStatus()));
+        }
+        if (filter.getPriority() != null && !filter.getPriority().isEmpty()) {
+            specifications.add((root, query, cb) -> root.get("priority").in(filter.getPriority()));
+        }
+        specifications.add(between("createdAt", filter.getCreatedFrom(), filter.getCreatedTo()));
+        specifications.add(between("updatedAt", filter.getUpdatedFrom(), filter.getUpdatedTo()));
+        if (filter.getNamePrefix() != null && !filter.getNamePrefix().isEmpty()) {
+            specifications.add(nameStartsWith(filter.getNamePrefix()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    public static Specification<Task> idGreaterThan(long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    private static Specification<Task> between(String attribute, LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.and(cb.greaterThanOrEqualTo(root.get(attribute), from), cb.lessThan(root.get(attribute), to));
+            }
+            if (from != null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            if (to != null) {
+                return cb.lessThan(root.get(attribute), to);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * @return шаблон LIKE для префикса: \, % и _ экранируются, в конце добавляется %
+     */
+    public static String prefixPattern(String prefix) {
+        return prefix
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Условие по lower(name) выбирает кандидатов по индексу index_task_lower_name, условие по name
+     * оставляет сравнение с учетом регистра.
+     */
+    private static Specification<Task> nameStartsWith(String prefix) {
+        String pattern = prefixPattern(prefix);
+        return (root, query, cb) -> cb.and(
+                cb.like(cb.lower(root.get("name")), cb.lower(cb.literal(pattern)), LIKE_ESCAPE),
+                cb.like(root.get("name"), pattern, LIKE_ESCAPE));
+    }
+}
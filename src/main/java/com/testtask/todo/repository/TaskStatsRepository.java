@@ -0,0 +1,69 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskStatsDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Счетчики задач из task_counts и task_daily_stats, которые триггеры на tasks обновляют в транзакции изменения.
+ * Запросы читают не больше нескольких сотен строк шардов независимо от размера tasks.
+ *
+ * @author Sergey Gerasimov
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskStatsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return количество задач по статусу и приоритету, без нулевых
+     */
+    public List<TaskStatsDto.Count> findCounts() {
+        return jdbcTemplate.query("""
+                        SELECT status, priority, sum(count) AS count
+                        FROM task_counts
+                        GROUP BY status, priority
+                        HAVING sum(count) <> 0
+                        ORDER BY status, priority
+                        """,
+                (rs, rowNum) -> new TaskStatsDto.Count(
+                        status(rs.getInt("status")),
+                        priority(rs.getInt("priority")),
+                        rs.getLong("count")));
+    }
+
+    /**
+     * @param from первый день, включительно
+     * @return создано и завершено задач по дням начиная с from
+     */
+    public List<TaskStatsDto.Daily> findDaily(LocalDate from) {
+        return jdbcTemplate.query("""
+                        SELECT day, sum(created) AS created, sum(completed) AS completed
+                        FROM task_daily_stats
+                        WHERE day >= ?
+                        GROUP BY day
+                        ORDER BY day
+                        """,
+                (rs, rowNum) -> new TaskStatsDto.Daily(
+                        rs.getDate("day").toLocalDate(),
+                        rs.getLong("created"),
+                        rs.getLong("completed")),
+                Date.valueOf(from));
+    }
+
+    private static Status status(int ordinal) {
+        return ordinal < 0 ? null : Status.values()[ordinal];
+    }
+
+    private static Priority priority(int ordinal) {
+        return ordinal < 0 ? null : Priority.values()[ordinal];
+    }
+}
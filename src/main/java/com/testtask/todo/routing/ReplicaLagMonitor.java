@@ -0,0 +1,225 @@
+package com.testtask.todo.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Периодически измеряет отставание реплик и выбирает реплику для очередного read-only запроса.
+ * <p>
+ * При каждой проверке запоминается позиция WAL primary. Отставание реплики — возраст самой свежей запомненной
+ * позиции, которую реплика уже применила: все, что primary записал к этому моменту, на реплике видно. Поэтому
+ * реплика с оборванной или зависшей репликацией отстает все больше, даже если применила все полученные WAL.
+ * <p>
+ * Реплика считается доступной, если ее последняя проверка была не раньше maxCheckAge назад, прошла успешно
+ * и отставание не больше maxLag. До первой проверки, при ошибке соединения и при остановке проверок реплика недоступна,
+ * и чтения идут в primary.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder, DisposableBean {
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT (pg_current_wal_lsn() - '0/0'::pg_lsn)::bigint";
+
+    /**
+     * Если это не реплика, replay_lsn пустой и отставание нулевое.
+     */
+    private static final String REPLAY_LSN_QUERY = """
+            SELECT CASE WHEN pg_is_in_recovery() THEN (pg_last_wal_replay_lsn() - '0/0'::pg_lsn)::bigint END
+            """;
+
+    /**
+     * Позиция WAL primary и момент, когда она была прочитана.
+     */
+    private record LsnSample(long nanos, long lsn) {
+    }
+
+    public record Replica(String name, DataSource dataSource) {
+    }
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final List<Replica> replicas;
+    private final List<JdbcTemplate> jdbcTemplates;
+    private final double maxLagSeconds;
+    private final long maxCheckAgeNanos;
+    private final long sampleWindowNanos;
+    private final double[] lagSeconds;
+    private final AtomicLongArray checkedAt;
+    private final Deque<LsnSample> samples = new ArrayDeque<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile int[] available = new int[0];
+
+    public ReplicaLagMonitor(DataSource primary, List<Replica> replicas, Duration maxLag, Duration checkTimeout,
+                             Duration maxCheckAge) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.maxCheckAgeNanos = maxCheckAge.toNanos();
+        // Окно выборок больше maxLag, чтобы отставание сверх maxLag измерялось, а не только угадывалось
+        this.sampleWindowNanos = maxLag.multipliedBy(4).toNanos();
+        this.lagSeconds = new double[replicas.size()];
+        this.checkedAt = new AtomicLongArray(replicas.size());
+        int queryTimeout = (int) Math.max(1, checkTimeout.toSeconds());
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        primaryJdbcTemplate.setQueryTimeout(queryTimeout);
+        this.jdbcTemplates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(replica.dataSource());
+            jdbcTemplate.setQueryTimeout(queryTimeout);
+            jdbcTemplates.add(jdbcTemplate);
+        }
+        Arrays.fill(lagSeconds, Double.NaN);
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Реплика, последняя проверка которой старше maxCheckAge, пропускается: вердикт о ее доступности устарел,
+     * например, потому что проверки не выполняются, пока поток планировщика занят.
+     *
+     * @return имя доступной реплики по кругу или null, если доступных реплик нет
+     */
+    public String pickReplica() {
+        int[] current = available;
+        if (current.length == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        int start = Math.floorMod(next.getAndIncrement(), current.length);
+        for (int i = 0; i < current.length; i++) {
+            int index = current[(start + i) % current.length];
+            if (now - checkedAt.get(index) <= maxCheckAgeNanos) {
+                return replicas.get(index).name();
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${todo.replica.lag-check-interval-ms:500}")
+    public void check() {
+        try {
+            Long lsn = primaryJdbcTemplate.queryForObject(PRIMARY_LSN_QUERY, Long.class);
+            if (lsn != null) {
+                recordPrimaryLsn(lsn, System.nanoTime());
+            }
+        } catch (DataAccessException e) {
+            // Без новых выборок отставание реплик растет, и они становятся недоступны
+            log.debug("Primary WAL position check failed", e);
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            double lag;
+            try {
+                Long replayLsn = jdbcTemplates.get(i).queryForObject(REPLAY_LSN_QUERY, Long.class);
+                lag = replayLsn != null ? lagOf(replayLsn, System.nanoTime()) : 0;
+            } catch (DataAccessException e) {
+                log.debug("Replica lag check failed: replica={}", replicas.get(i).name(), e);
+                lag = Double.NaN;
+            }
+            updateLag(i, lag);
+        }
+    }
+
+    /**
+     * Запоминает позицию WAL primary и забывает выборки старше окна.
+     */
+    synchronized void recordPrimaryLsn(long lsn, long nanos) {
+        samples.addLast(new LsnSample(nanos, lsn));
+        while (nanos - samples.peekFirst().nanos() > sampleWindowNanos) {
+            samples.removeFirst();
+        }
+    }
+
+    /**
+     * @param replayLsn позиция WAL, которую применила реплика
+     * @return секунды от самой свежей выборки primary, которую реплика уже применила; NaN, если выборок еще нет;
+     * бесконечность, если реплика не применила даже самую старую выборку
+     */
+    synchronized double lagOf(long replayLsn, long nanos) {
+        if (samples.isEmpty()) {
+            return Double.NaN;
+        }
+        Iterator<LsnSample> newestFirst = samples.descendingIterator();
+        while (newestFirst.hasNext()) {
+            LsnSample sample = newestFirst.next();
+            if (sample.lsn() <= replayLsn) {
+                return Math.max(0, nanos - sample.nanos()) / 1e9;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    void updateLag(int index, double lag) {
+        updateLag(index, lag, System.nanoTime());
+    }
+
+    /**
+     * @param index     индекс реплики
+     * @param lag       отставание в секундах или NaN, если реплика недоступна
+     * @param checkedAt момент проверки по System.nanoTime()
+     */
+    synchronized void updateLag(int index, double lag, long checkedAt) {
+        this.checkedAt.set(index, checkedAt);
+        boolean wasAvailable = isAvailable(lagSeconds[index]);
+        lagSeconds[index] = lag;
+        boolean nowAvailable = isAvailable(lag);
+        if (wasAvailable != nowAvailable) {
+            if (nowAvailable) {
+                log.info("Replica available: replica={}, lag={}s", replicas.get(index).name(), lag);
+            } else {
+                log.warn("Replica unavailable, reads go to primary: replica={}, lag={}s", replicas.get(index).name(), lag);
+            }
+        }
+        List<Integer> indexes = new ArrayList<>(replicas.size());
+        for (int i = 0; i < lagSeconds.length; i++) {
+            if (isAvailable(lagSeconds[i])) {
+                indexes.add(i);
+            }
+        }
+        available = indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = i;
+            Gauge.builder("todo.replica.lag", this, monitor -> monitor.lagSeconds[index])
+                    .description("Отставание реплики, NaN если реплика недоступна")
+                    .tag("replica", replicas.get(i).name())
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof HikariDataSource hikariDataSource) {
+                hikariDataSource.close();
+            }
+        }
+    }
+
+    private boolean isAvailable(double lag) {
+        return !Double.isNaN(lag) && lag <= maxLagSeconds;
+    }
+}
@@ -0,0 +1,64 @@
+package com.testtask.todo.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Направляет соединения read-only транзакций в доступную реплику, остальные — в primary.
+ * <p>
+ * Read-only признак транзакции становится известен после получения соединения, поэтому источник должен быть
+ * обернут в LazyConnectionDataSourceProxy: тогда соединение выбирается при первом запросе транзакции.
+ *
+ * @author Sergey Gerasimov
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor monitor) {
+        this.monitor = monitor;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        monitor.getReplicas().forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Выполняет чтение в primary, даже если оно идет в read-only транзакции. Нужно для чтений, результат которых
+     * сохраняется надолго, например в кэш: значение из отстающей реплики пережило бы свежую запись.
+     *
+     * @param action чтение, которое должно начать свою транзакцию внутри action
+     * @return результат action
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (FORCE_PRIMARY.get() != null) {
+            return action.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || FORCE_PRIMARY.get() != null) {
+            return PRIMARY;
+        }
+        String replica = monitor.pickReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+}
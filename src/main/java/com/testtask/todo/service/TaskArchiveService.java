@@ -0,0 +1,97 @@
+package com.testtask.todo.service;
+
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.config.ArchiveProperties;
+import com.testtask.todo.repository.TaskArchiveRepository;
+import com.testtask.todo.store.TaskStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Переносит завершенные задачи, которые давно не менялись, из tasks в tasks_archive. Рабочая таблица и ее индексы
+ * остаются размером с активные задачи, а архивные задачи по-прежнему доступны по id.
+ * <p>
+ * Задачи переносятся небольшими пакетами, каждый в своей транзакции и с паузой между пакетами, чтобы не держать
+ * долгих блокировок и не вытеснять рабочую нагрузку с диска.
+ * <p>
+ * Запуск с паузами длится секунды, поэтому он идет в собственном потоке, а не в общем потоке планировщика:
+ * иначе relay ленты изменений, синхронизация индекса в памяти и проверка отставания реплик стояли бы все это время.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TaskArchiveService implements DisposableBean {
+
+    private final TaskArchiveRepository taskArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskCache taskCache;
+    private final TaskStore taskStore;
+    private final ArchiveProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Запускает перенос в потоке архивации и сразу возвращает поток планировщика.
+     * Если предыдущий запуск еще идет, новый не ставится в очередь.
+     */
+    @Scheduled(fixedDelayString = "${todo.archive.interval-ms:60000}")
+    public void scheduleArchive() {
+        if (running.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    archiveCompletedTasks();
+                } catch (RuntimeException e) {
+                    log.error("Task archiving failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    public void archiveCompletedTasks() {
+        LocalDateTime completedBefore = LocalDateTime.now().minus(properties.getMaxAge());
+        int total = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            List<Long> ids = transactionTemplate.execute(status ->
+                    taskArchiveRepository.archiveBatch(completedBefore, properties.getBatchSize()));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            total += ids.size();
+            ids.forEach(taskCache::evict);
+            taskStore.refresh(ids);
+            if (ids.size() < properties.getBatchSize()) {
+                break;
+            }
+            try {
+                Thread.sleep(properties.getPause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Tasks archived: count={}, completedBefore={}", total, completedBefore);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
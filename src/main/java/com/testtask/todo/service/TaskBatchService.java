@@ -0,0 +1,154 @@
+package com.testtask.todo.service;
+
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskArchiveRepository;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.store.TaskStore;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис для пакетного создания, обновления и удаления задач.
+ * Задачи пишутся порциями размером hibernate.jdbc.batch_size, после каждой порции
+ * persistence context сбрасывается в базу и очищается, чтобы не накапливать управляемые сущности.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@Service
+@Timed(value = "todo.service", histogram = true)
+@RequiredArgsConstructor
+public class TaskBatchService {
+
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    private final TaskMapper taskMapper;
+    private final TaskRepository taskRepository;
+    private final TaskCache taskCache;
+    private final TaskStore taskStore;
+    private final TaskArchiveRepository taskArchiveRepository;
+    private final EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    /**
+     * Создает задачи пакетом.
+     *
+     * @param taskDtos данные задач
+     * @return созданные задачи в порядке запроса
+     * @throws DataValidationException если пакет пустой или слишком большой
+     */
+    @Transactional
+    public List<TaskDto> createTasks(List<TaskDto> taskDtos) {
+        validateBatchSize(taskDtos.size());
+
+        List<TaskDto> created = new ArrayList<>(taskDtos.size());
+        for (List<TaskDto> chunk : chunks(taskDtos)) {
+            List<Task> tasks = chunk.stream()
+                    .map(taskMapper::toEntity)
+                    .toList();
+            taskRepository.saveAll(tasks);
+            flushAndClear();
+            taskStore.refresh(tasks.stream().map(Task::getId).toList());
+            created.addAll(taskMapper.toDtoList(tasks));
+        }
+
+        log.info("Tasks created: {}", created.size());
+        return created;
+    }
+
+    /**
+     * Обновляет задачи пакетом. Каждая задача должна содержать id.
+     *
+     * @param taskDtos обновленные данные задач
+     * @throws DataValidationException если пакет пустой, слишком большой, или id не указан либо повторяется
+     * @throws EntityNotFoundException если какая-то из задач не найдена
+     */
+    @Transactional
+    public void updateTasks(List<TaskDto> taskDtos) {
+        validateBatchSize(taskDtos.size());
+        Set<Long> ids = new HashSet<>();
+        for (TaskDto taskDto : taskDtos) {
+            if (taskDto.getId() == null) {
+                throw new DataValidationException("Task id is required for batch update");
+            }
+            if (!ids.add(taskDto.getId())) {
+                throw new DataValidationException("Task with id " + taskDto.getId() + " is duplicated in batch");
+            }
+        }
+
+        for (List<TaskDto> chunk : chunks(taskDtos)) {
+            Map<Long, TaskDto> taskDtosById = chunk.stream()
+                    .collect(Collectors.toMap(TaskDto::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+            List<Task> tasks = taskRepository.findAllById(taskDtosById.keySet());
+            if (tasks.size() != taskDtosById.size()) {
+                tasks.forEach(task -> taskDtosById.remove(task.getId()));
+                throw new EntityNotFoundException("Tasks with ids " + taskDtosById.keySet() + " not found");
+            }
+            tasks.forEach(task -> taskMapper.update(taskDtosById.get(task.getId()), task));
+            flushAndClear();
+            taskDtosById.keySet().forEach(taskCache::evict);
+            taskStore.refresh(List.copyOf(taskDtosById.keySet()));
+        }
+
+        log.info("Tasks updated: {}", taskDtos.size());
+    }
+
+    /**
+     * Удаляет задачи по их ID одним запросом на порцию. Задачи из архива удаляются там же.
+     *
+     * @param ids ID задач
+     * @throws DataValidationException если пакет пустой или слишком большой
+     */
+    @Transactional
+    public void deleteTasks(List<Long> ids) {
+        validateBatchSize(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            taskRepository.deleteAllByIdInBatch(chunk);
+            taskArchiveRepository.deleteAllById(chunk);
+            chunk.forEach(taskCache::evict);
+            taskStore.refresh(chunk);
+        }
+
+        log.info("Tasks deleted: {}", ids.size());
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += jdbcBatchSize) {
+            chunks.add(items.subList(from, Math.min(from + jdbcBatchSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void validateBatchSize(int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new DataValidationException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+    }
+}
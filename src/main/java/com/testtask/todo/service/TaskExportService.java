@@ -0,0 +1,115 @@
+package com.testtask.todo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.testtask.todo.dto.DataFormat;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.util.CsvUtils;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Сервис потоковой выгрузки задач. Задачи читаются курсором БД с заданным fetch size,
+ * маппятся по одной и сразу пишутся в выходной поток, поэтому потребление памяти не зависит от размера таблицы.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@Service
+@Timed(value = "todo.service", histogram = true)
+@RequiredArgsConstructor
+public class TaskExportService {
+
+    public static final String CSV_HEADER = "id,name,description,created_at,updated_at,status,priority";
+
+    private final TaskMapper taskMapper;
+    private final TaskRepository taskRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Выгружает все задачи в выходной поток.
+     *
+     * @param format       формат выгрузки
+     * @param outputStream поток, в который пишутся задачи; не закрывается
+     * @throws IOException если запись в поток не удалась
+     */
+    @Transactional(readOnly = true)
+    public void exportTasks(DataFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long count;
+        try (Stream<Task> tasks = taskRepository.streamAllByOrderByIdAsc()) {
+            Iterator<TaskDto> taskDtos = tasks.map(this::toDetachedDto).iterator();
+            count = switch (format) {
+                case NDJSON -> writeNdjson(taskDtos, writer);
+                case CSV -> writeCsv(taskDtos, writer);
+            };
+        }
+        writer.flush();
+
+        log.info("Tasks exported: {}", count);
+    }
+
+    private TaskDto toDetachedDto(Task task) {
+        TaskDto taskDto = taskMapper.toDto(task);
+        entityManager.detach(task);
+        return taskDto;
+    }
+
+    private long writeNdjson(Iterator<TaskDto> taskDtos, Writer writer) throws IOException {
+        ObjectWriter objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (taskDtos.hasNext()) {
+                objectWriter.writeValue(generator, taskDtos.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<TaskDto> taskDtos, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (taskDtos.hasNext()) {
+            TaskDto taskDto = taskDtos.next();
+            writer.write(CsvUtils.escape(taskDto.getId()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getName()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getDescription()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getCreatedAt()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getUpdatedAt()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getStatus()));
+            writer.write(',');
+            writer.write(CsvUtils.escape(taskDto.getPriority()));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,324 @@
+package com.testtask.todo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testtask.todo.dto.DataFormat;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskImportRejectDto;
+import com.testtask.todo.dto.TaskImportResultDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.util.CsvFormatException;
+import com.testtask.todo.util.CsvReader;
+import com.testtask.todo.util.CsvUtils;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис потоковой загрузки задач через PostgreSQL COPY.
+ * <p>
+ * Записи читаются и валидируются по одной, валидные сразу отправляются через COPY FROM STDIN
+ * во временную таблицу. Затем одним запросом переносятся в tasks: повторы имени внутри загрузки
+ * и имена, которые уже есть в базе, пропускаются и возвращаются как отклоненные строки.
+ * Id выделяются блоками из tasks_id_seq так же, как это делает pooled-lo оптимизатор Hibernate.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@Service
+@Timed(value = "todo.service", histogram = true)
+@RequiredArgsConstructor
+public class TaskImportService {
+
+    static final int MAX_REPORTED_REJECTS = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMP TABLE tasks_import
+            (
+                line_no     BIGINT       NOT NULL,
+                name        VARCHAR(100) NOT NULL,
+                description VARCHAR(1000),
+                status      SMALLINT,
+                priority    SMALLINT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_TO_STAGING_TABLE =
+            "COPY tasks_import (line_no, name, description, status, priority) FROM STDIN WITH (FORMAT csv)";
+
+    /**
+     * Имена уникальны без учета регистра. Занятые имена отсеиваются заранее: в секционированной tasks уникальность имени проверяет триггер,
+     * и ON CONFLICT DO NOTHING такой конфликт не перехватывает. ON CONFLICT остается для гонки
+     * с параллельной вставкой в несекционированной таблице.
+     */
+    private static final String INSERT_FROM_STAGING_TABLE = """
+            WITH candidates AS (
+                SELECT DISTINCT ON (lower(name)) line_no, name, description, status, priority
+                FROM tasks_import s
+                WHERE NOT EXISTS (SELECT 1 FROM tasks t WHERE lower(t.name) = lower(s.name))
+                ORDER BY lower(name), line_no
+            ), numbered AS (
+                SELECT c.*, row_number() OVER (ORDER BY c.line_no) - 1 AS rn
+                FROM candidates c
+            ), seq AS (
+                SELECT increment_by AS block_size
+                FROM pg_sequences
+                WHERE schemaname = current_schema() AND sequencename = 'tasks_id_seq'
+            ), blocks AS (
+                SELECT nextval('tasks_id_seq') AS lo, row_number() OVER () - 1 AS block_no
+                FROM generate_series(1, (SELECT ceil(count(*)::numeric / (SELECT block_size FROM seq))::bigint FROM candidates))
+            ), inserted AS (
+                INSERT INTO tasks (id, name, description, status, priority)
+                SELECT b.lo + n.rn % seq.block_size, n.name, n.description, n.status, n.priority
+                FROM numbered n
+                CROSS JOIN seq
+                JOIN blocks b ON b.block_no = n.rn / seq.block_size
+                ORDER BY n.rn
+                ON CONFLICT DO NOTHING
+                RETURNING name
+            )
+            SELECT s.line_no, s.name
+            FROM tasks_import s
+            WHERE NOT EXISTS (SELECT 1 FROM candidates c JOIN inserted i ON i.name = c.name WHERE c.line_no = s.line_no)
+            ORDER BY s.line_no
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * Загружает задачи из потока.
+     *
+     * @param format      формат входных данных
+     * @param inputStream поток с задачами в UTF-8
+     * @return количество загруженных задач и отклоненные строки
+     * @throws IOException если чтение потока не удалось
+     * @throws DataValidationException если в CSV нет заголовка с колонкой name или CSV нарушает формат,
+     *                                 например в нем не закрыта кавычка
+     */
+    @Transactional
+    public TaskImportResultDto importTasks(DataFormat format, InputStream inputStream) throws IOException {
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+
+        ImportRejects rejects = new ImportRejects();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        long copied = copyToStagingTable(format, reader, rejects);
+
+        long[] duplicates = {0};
+        jdbcTemplate.query(INSERT_FROM_STAGING_TABLE, rs -> {
+            duplicates[0]++;
+            rejects.add(rs.getLong("line_no"), "Task with name " + rs.getString("name") + " already exists");
+        });
+
+        rejects.reported.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        TaskImportResultDto result = TaskImportResultDto.builder()
+                .imported(copied - duplicates[0])
+                .rejected(rejects.count)
+                .rejects(rejects.reported)
+                .build();
+
+        log.info("Tasks imported: {}, rejected: {}", result.getImported(), result.getRejected());
+        return result;
+    }
+
+    private long copyToStagingTable(DataFormat format, BufferedReader reader, ImportRejects rejects) throws IOException {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        CopyIn copyIn = null;
+        try {
+            copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_TO_STAGING_TABLE);
+            StagingRows stagingRows = new StagingRows(copyIn, rejects);
+            switch (format) {
+                case NDJSON -> readNdjson(reader, stagingRows, rejects);
+                case CSV -> readCsv(reader, stagingRows, rejects);
+            }
+            stagingRows.flush();
+            return copyIn.endCopy();
+        } catch (CsvFormatException e) {
+            // Дальше незакрытой кавычки границы записей неизвестны, поэтому отклоняется вся загрузка, а не строка
+            throw new DataValidationException("Malformed CSV: " + e.getMessage());
+        } catch (SQLException e) {
+            DataAccessException exception = jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_TO_STAGING_TABLE, e);
+            throw exception != null ? exception : new UncategorizedSQLException("COPY", COPY_TO_STAGING_TABLE, e);
+        } finally {
+            cancelIfActive(copyIn);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, StagingRows stagingRows, ImportRejects rejects) throws IOException, SQLException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                stagingRows.add(lineNumber, objectMapper.readValue(line, TaskDto.class));
+            } catch (JsonProcessingException e) {
+                rejects.add(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, StagingRows stagingRows, ImportRejects rejects) throws IOException, SQLException {
+        CsvReader csvReader = new CsvReader(reader);
+        List<String> header = csvReader.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i) != null) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        if (!columns.containsKey("name")) {
+            throw new DataValidationException("CSV header must contain name column");
+        }
+
+        List<String> record;
+        while ((record = csvReader.readRecord()) != null) {
+            long lineNumber = csvReader.getRecordLineNumber();
+            if (record.size() == 1 && record.get(0) == null) {
+                continue;
+            }
+            try {
+                TaskDto taskDto = TaskDto.builder()
+                        .name(field(record, columns, "name"))
+                        .description(field(record, columns, "description"))
+                        .status(enumField(Status.class, field(record, columns, "status")))
+                        .priority(enumField(Priority.class, field(record, columns, "priority")))
+                        .build();
+                stagingRows.add(lineNumber, taskDto);
+            } catch (IllegalArgumentException e) {
+                rejects.add(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    private String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    private <E extends Enum<E>> E enumField(Class<E> type, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + value);
+        }
+    }
+
+    private void cancelIfActive(CopyIn copyIn) {
+        if (copyIn == null || !copyIn.isActive()) {
+            return;
+        }
+        try {
+            copyIn.cancelCopy();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel COPY: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Валидирует задачи и буферизует их в CSV для COPY.
+     */
+    private class StagingRows {
+
+        private final CopyIn copyIn;
+        private final ImportRejects rejects;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+
+        StagingRows(CopyIn copyIn, ImportRejects rejects) {
+            this.copyIn = copyIn;
+            this.rejects = rejects;
+        }
+
+        void add(long lineNumber, TaskDto taskDto) throws SQLException {
+            Set<ConstraintViolation<TaskDto>> violations = validator.validate(taskDto);
+            if (!violations.isEmpty()) {
+                rejects.add(lineNumber, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            buffer.append(lineNumber).append(',')
+                    .append(CsvUtils.quote(taskDto.getName())).append(',');
+            if (taskDto.getDescription() != null) {
+                buffer.append(CsvUtils.quote(taskDto.getDescription()));
+            }
+            buffer.append(',');
+            if (taskDto.getStatus() != null) {
+                buffer.append(taskDto.getStatus().ordinal());
+            }
+            buffer.append(',');
+            if (taskDto.getPriority() != null) {
+                buffer.append(taskDto.getPriority().ordinal());
+            }
+            buffer.append('\n');
+
+            if (buffer.length() >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private static class ImportRejects {
+
+        private final List<TaskImportRejectDto> reported = new ArrayList<>();
+        private long count;
+
+        void add(long line, String reason) {
+            count++;
+            if (reported.size() < MAX_REPORTED_REJECTS) {
+                reported.add(new TaskImportRejectDto(line, reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.testtask.todo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.exception.DataValidationException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Разбирает JSON Merge Patch (RFC 7396) задачи в набор изменяемых атрибутов.
+ * Поле со значением null очищает атрибут, отсутствующее поле не меняется.
+ *
+ * @author Sergey Gerasimov
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskPatchParser {
+
+    private final Validator validator;
+
+    /**
+     * @param patch JSON Merge Patch
+     * @return новые значения по именам атрибутов Task в порядке полей патча
+     * @throws DataValidationException если поле нельзя менять или значение не проходит валидацию TaskDto
+     */
+    public Map<String, Object> parse(ObjectNode patch) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode node = field.getValue();
+            Object value = switch (name) {
+                case "name", "description" -> text(name, node);
+                case "status" -> enumValue(Status.class, name, node);
+                case "priority" -> enumValue(Priority.class, name, node);
+                default -> throw new DataValidationException("Field " + name + " cannot be patched");
+            };
+
+            Set<ConstraintViolation<TaskDto>> violations = validator.validateValue(TaskDto.class, name, value);
+            if (!violations.isEmpty()) {
+                throw new DataValidationException(violations.iterator().next().getMessage());
+            }
+            changes.put(name, value);
+        }
+        return changes;
+    }
+
+    private String text(String name, JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        if (!node.isTextual()) {
+            throw new DataValidationException("Field " + name + " must be a string");
+        }
+        return node.textValue();
+    }
+
+    private <E extends Enum<E>> E enumValue(Class<E> type, String name, JsonNode node) {
+        String value = text(name, node);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new DataValidationException("Unknown " + name + ": " + value);
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package com.testtask.todo.service;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.dto.CursorPageDto;
 import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.dto.TaskFilterDto;
 import com.testtask.todo.entity.Task;
+import com.testtask.todo.exception.ConflictException;
+import com.testtask.todo.exception.DataValidationException;
 import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.PreconditionFailedException;
 import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskArchiveRepository;
 import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.repository.TaskSpecifications;
+import com.testtask.todo.store.TaskStore;
+import com.testtask.todo.util.CursorUtils;
+import com.testtask.todo.writebehind.PendingTaskWrite;
+import com.testtask.todo.writebehind.PendingTaskWrites;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Сервис отвечает за взаимодействие с репозиторием, предоставляет методы для взаимодействия с задачами
@@ -19,11 +40,19 @@ import java.util.List;
  */
 @Slf4j
 @Service
+@Timed(value = "todo.service", histogram = true)
 @RequiredArgsConstructor
 public class TaskService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final TaskMapper taskMapper;
     private final TaskRepository taskRepository;
+    private final TaskCache taskCache;
+    private final TaskPatchParser taskPatchParser;
+    private final PendingTaskWrites pendingTaskWrites;
+    private final TaskStore taskStore;
+    private final TaskArchiveRepository taskArchiveRepository;
 
     /**
      * Создает новую задачу.
@@ -36,24 +65,49 @@ public class TaskService {
         Task task = taskMapper.toEntity(taskDto);
         Task taskSaved = taskRepository.save(task);
         taskDto = taskMapper.toDto(taskSaved);
+        taskStore.refresh(taskDto.getId());
 
-        log.info("Task created: {}", taskDto);
+        log.info("Task created: id={}", taskDto.getId());
         return taskDto;
     }
 
     /**
-     * Получает задачу по ее ID.
+     * Получает задачу по ее ID. Незаписанные изменения из очереди отложенной записи накладываются на результат.
+     * Если задачи нет в tasks, она ищется в архиве завершенных задач.
      *
      * @param id ID задачи
      * @return данные задачи
-     * @throws EntityNotFoundException если задача не найдена
+     * @throws EntityNotFoundException если задача не найдена
      */
-    @Transactional(readOnly = true)
     public TaskDto getTask(Long id) {
-        Task task = getTaskById(id);
-        TaskDto taskDto = taskMapper.toDto(task);
+        return getTask(id, null);
+    }
+
+    /**
+     * Получает задачу по ее ID. Если указаны fields, из хранилища читаются только эти поля и версия, кэш не используется.
+     *
+     * @param id     ID задачи
+     * @param fields поля задачи или null, чтобы получить все поля
+     * @return данные задачи
+     * @throws EntityNotFoundException если задача не найдена
+     */
+    public TaskDto getTask(Long id, Set<TaskField> fields) {
+        PendingTaskWrite pending = pendingTaskWrites.find(id);
+        if (pending != null && pending.getType() == PendingTaskWrite.Type.DELETE) {
+            throw new EntityNotFoundException("Task with id " + id + " not found");
+        }
+        TaskDto taskDto = fields == null
+                ? taskCache.get(id, taskId -> taskStore.findById(taskId)
+                        .or(() -> taskArchiveRepository.findById(taskId))
+                        .orElseThrow(() -> new EntityNotFoundException("Task with id " + taskId + " not found")))
+                : taskStore.findById(id, TaskField.with(fields, TaskField.VERSION))
+                        .or(() -> taskArchiveRepository.findById(id))
+                        .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
+        if (pending != null) {
+            taskDto = pending.applyTo(taskDto);
+        }
 
-        log.info("Task found: {}", taskDto);
+        log.debug("Task found: id={}", id);
         return taskDto;
     }
 
@@ -64,39 +118,155 @@ public class TaskService {
      * @return данные задачи
      * @throws EntityNotFoundException если задача не найдена
      */
-    @Transactional(readOnly = true)
     public TaskDto getTaskByName(String name) {
-        Task task = taskRepository.findByName(name)
-                .orElseThrow(() -> new EntityNotFoundException("Task with name " + name + " not found"));
-        TaskDto taskDto = taskMapper.toDto(task);
+        return getTaskByName(name, false);
+    }
 
-        log.info("Task found: {}", taskDto);
+    /**
+     * Получает задачу по ее имени. Поиск без учета регистра идет мимо кэша, который хранит задачи по точному имени.
+     *
+     * @param name       имя задачи
+     * @param ignoreCase искать без учета регистра
+     * @return данные задачи
+     * @throws EntityNotFoundException если задача не найдена
+     */
+    public TaskDto getTaskByName(String name, boolean ignoreCase) {
+        TaskDto taskDto = ignoreCase
+                ? taskStore.findByNameIgnoreCase(name)
+                        .orElseThrow(() -> new EntityNotFoundException("Task with name " + name + " not found"))
+                : taskCache.getByName(name, taskName -> taskStore.findByName(taskName)
+                        .orElseThrow(() -> new EntityNotFoundException("Task with name " + taskName + " not found")));
+
+        log.debug("Task found by name: id={}", taskDto.getId());
         return taskDto;
     }
 
+    /**
+     * Ищет задачи, имя которых начинается с prefix без учета регистра.
+     *
+     * @param prefix начало имени
+     * @param limit  максимальное количество задач
+     * @return задачи по возрастанию имени в нижнем регистре
+     * @throws DataValidationException если prefix пустой или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDto> getTasksByNamePrefix(String prefix, int limit) {
+        validateNamePrefix(prefix, limit);
+        List<TaskDto> taskDtos = taskMapper.toDtoList(
+                taskRepository.findByNamePrefixIgnoreCase(TaskSpecifications.prefixPattern(prefix), limit));
+
+        log.debug("Tasks found by name prefix: count={}", taskDtos.size());
+        return taskDtos;
+    }
+
+    /**
+     * Подсказки для автодополнения имени задачи.
+     *
+     * @param prefix начало имени без учета регистра
+     * @param limit  максимальное количество имен
+     * @return имена по возрастанию в нижнем регистре
+     * @throws DataValidationException если prefix пустой или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<String> autocompleteNames(String prefix, int limit) {
+        validateNamePrefix(prefix, limit);
+        return taskRepository.findNamesByPrefixIgnoreCase(TaskSpecifications.prefixPattern(prefix), limit);
+    }
+
     /**
      * Обновляет существующую задачу.
      *
      * @param id ID задачи
      * @param taskDto обновленные данные задачи
-     * throws EntityNotFoundException если задача не найдена
+     * @return обновленная задача с новой версией
+     * throws EntityNotFoundException если задача не найдена
+     * @throws ConflictException если задача в архиве
      */
     @Transactional
-    public void updateTask(long id, TaskDto taskDto) {
+    public TaskDto updateTask(long id, TaskDto taskDto) {
         Task task = getTaskById(id);
         taskMapper.update(taskDto, task);
-        log.info("Task updated: {}", taskDto);
+        taskRepository.flush();
+        taskCache.evict(id);
+        taskStore.refresh(id);
+        log.info("Task updated: id={}", id);
+        return taskMapper.toDto(task);
+    }
+
+    /**
+     * Обновляет задачу одним запросом без предварительного чтения, только если ее версия не изменилась.
+     *
+     * @param id ID задачи
+     * @param taskDto обновленные данные задачи
+     * @param expectedVersion версия, которую клиент видел последней
+     * @return новая версия задачи
+     * @throws EntityNotFoundException если задача не найдена
+     * @throws ConflictException если задача в архиве
+     * @throws PreconditionFailedException если задачу уже изменили
+     */
+    @Transactional
+    public long updateTask(long id, TaskDto taskDto, long expectedVersion) {
+        int updated = taskRepository.updateIfVersionMatches(id, expectedVersion, taskDto.getName(), taskDto.getDescription(),
+                taskDto.getStatus(), taskDto.getPriority(), LocalDateTime.now());
+        if (updated == 0) {
+            throw updateFailure(id, expectedVersion);
+        }
+        taskCache.evict(id);
+        taskStore.refresh(id);
+
+        log.info("Task updated: id={}, version={}", id, expectedVersion + 1);
+        return expectedVersion + 1;
     }
 
     /**
-     * Удаляет задачу по ее ID.
+     * Частично обновляет задачу по JSON Merge Patch. Одним запросом обновляются только
+     * переданные в патче колонки, сущность не загружается.
+     *
+     * @param id ID задачи
+     * @param patch JSON Merge Patch с полями name, description, status, priority
+     * @param expectedVersion версия, которую клиент видел последней, или null
+     * @return новая версия задачи
+     * @throws DataValidationException если патч содержит недопустимые поля или значения
+     * @throws EntityNotFoundException если задача не найдена
+     * @throws ConflictException если задача в архиве
+     * @throws PreconditionFailedException если задачу уже изменили
+     */
+    @Transactional
+    public long patchTask(long id, ObjectNode patch, Long expectedVersion) {
+        Map<String, Object> changes = taskPatchParser.parse(patch);
+        if (changes.isEmpty()) {
+            long version = taskRepository.findVersionById(id)
+                    .orElseThrow(() -> notFound(id));
+            if (expectedVersion != null && expectedVersion != version) {
+                throw updateFailure(id, expectedVersion);
+            }
+            return version;
+        }
+
+        int updated = taskRepository.updatePartially(id, changes, expectedVersion);
+        if (updated == 0) {
+            throw updateFailure(id, expectedVersion);
+        }
+        taskCache.evict(id);
+        taskStore.refresh(id);
+        long version = expectedVersion != null ? expectedVersion + 1 : taskRepository.findVersionById(id).orElseThrow();
+
+        log.info("Task patched: id={}, fields={}", id, changes.keySet());
+        return version;
+    }
+
+    /**
+     * Удаляет задачу по ее ID. Задача удаляется и из tasks, и из архива, потому что getTask находит ее в обоих.
      *
      * @param id ID задачи
      */
     @Transactional
     public void deleteTask(Long id) {
         taskRepository.deleteById(id);
-        log.info("Task deleted: {}", id);
+        taskArchiveRepository.deleteById(id);
+        taskCache.evict(id);
+        taskStore.refresh(id);
+        log.info("Task deleted: id={}", id);
     }
 
     /**
@@ -108,15 +278,187 @@ public class TaskService {
      */
     @Transactional(readOnly = true)
     public List<TaskDto> getAllTasks(Integer offset, Integer limit) {
-        List<Task> tasks = taskRepository.findAll(PageRequest.of(offset, limit)).getContent();
-        List<TaskDto> taskDtos = taskMapper.toDtoList(tasks);
+        return getAllTasks(offset, limit, null);
+    }
 
-        log.info("Tasks found: {}", tasks);
+    /**
+     * Получает задачи, из БД читаются только поля fields. Задачи сортируются по id: без ORDER BY порядок строк
+     * зависит от плана и физического расположения, и страница и ее ETag менялись бы без изменения задач.
+     *
+     * @param offset страница пагинации
+     * @param limit  ограничение для пагинации
+     * @param fields поля задачи или null, чтобы получить все поля
+     * @return список задач
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDto> getAllTasks(Integer offset, Integer limit, Set<TaskField> fields) {
+        PageRequest pageRequest = PageRequest.of(offset, limit, Sort.by("id"));
+        List<TaskDto> taskDtos = fields == null
+                ? taskMapper.toDtoList(taskRepository.findAll(pageRequest).getContent())
+                : taskRepository.findProjected(fields, null, true, (int) pageRequest.getOffset(), limit);
+
+        log.debug("Tasks found: count={}", taskDtos.size());
         return taskDtos;
     }
 
+    /**
+     * Получает страницу задач по курсору (keyset-пагинация по id).
+     * В отличие от {@link #getAllTasks(Integer, Integer)} не использует OFFSET и не выполняет count-запрос,
+     * поэтому стоимость страницы не зависит от ее глубины.
+     *
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit  количество задач на странице
+     * @return страница задач и курсор следующей страницы
+     * @throws DataValidationException если курсор поврежден или limit вне допустимого диапазона
+     */
+    public CursorPageDto<TaskDto> getTasksByCursor(String cursor, int limit) {
+        return getTasksByCursor(cursor, limit, null);
+    }
+
+    /**
+     * Получает страницу задач по курсору, из хранилища читаются только поля fields и id.
+     *
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit  количество задач на странице
+     * @param fields поля задачи или null, чтобы получить все поля
+     * @return страница задач и курсор следующей страницы
+     * @throws DataValidationException если курсор поврежден или limit вне допустимого диапазона
+     */
+    public CursorPageDto<TaskDto> getTasksByCursor(String cursor, int limit, Set<TaskField> fields) {
+        CursorPageDto<TaskDto> page = findPage(null, cursor, limit, fields);
+
+        log.debug("Tasks found by cursor: count={}", page.getItems().size());
+        return page;
+    }
+
+    /**
+     * Ищет задачи по фильтру с курсорной пагинацией.
+     *
+     * @param filter фильтр по статусу, приоритету, датам создания и обновления и началу названия
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit  количество задач на странице
+     * @return страница задач и курсор следующей страницы
+     * @throws DataValidationException если курсор поврежден или limit вне допустимого диапазона
+     */
+    public CursorPageDto<TaskDto> filterTasks(TaskFilterDto filter, String cursor, int limit) {
+        return filterTasks(filter, cursor, limit, null);
+    }
+
+    /**
+     * Ищет задачи по фильтру с курсорной пагинацией, из хранилища читаются только поля fields и id.
+     *
+     * @param filter фильтр по статусу, приоритету, датам создания и обновления и началу названия
+     * @param cursor курсор из предыдущей страницы или null для первой страницы
+     * @param limit  количество задач на странице
+     * @param fields поля задачи или null, чтобы получить все поля
+     * @return страница задач и курсор следующей страницы
+     * @throws DataValidationException если курсор поврежден или limit вне допустимого диапазона
+     */
+    public CursorPageDto<TaskDto> filterTasks(TaskFilterDto filter, String cursor, int limit, Set<TaskField> fields) {
+        CursorPageDto<TaskDto> page = findPage(filter, cursor, limit, fields);
+
+        log.debug("Tasks found by filter: count={}", page.getItems().size());
+        return page;
+    }
+
+    /**
+     * Ищет задачи по словам в названии и описании. Совпадения в названии ранжируются выше.
+     *
+     * @param query поисковый запрос в синтаксисе websearch_to_tsquery
+     * @param limit максимальное количество задач
+     * @return задачи в порядке релевантности
+     * @throws DataValidationException если запрос пустой или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDto> searchTasks(String query, int limit) {
+        return searchTasks(query, limit, null);
+    }
+
+    /**
+     * Ищет задачи по словам в названии и описании. Если указаны fields, поиск возвращает только id,
+     * а поля задач читаются вторым запросом.
+     *
+     * @param query  поисковый запрос в синтаксисе websearch_to_tsquery
+     * @param limit  максимальное количество задач
+     * @param fields поля задачи или null, чтобы получить все поля
+     * @return задачи в порядке релевантности
+     * @throws DataValidationException если запрос пустой или limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public List<TaskDto> searchTasks(String query, int limit, Set<TaskField> fields) {
+        if (query == null || query.isBlank()) {
+            throw new DataValidationException("Search query is required");
+        }
+        validateLimit(limit);
+        List<TaskDto> taskDtos;
+        if (fields == null) {
+            taskDtos = taskMapper.toDtoList(taskRepository.search(query, limit));
+        } else {
+            List<Long> ids = taskRepository.searchIds(query, limit);
+            Map<Long, TaskDto> tasksById = new HashMap<>();
+            if (!ids.isEmpty()) {
+                taskRepository.findProjected(TaskField.with(fields, TaskField.ID),
+                                (root, criteria, cb) -> root.get("id").in(ids), false, 0, ids.size())
+                        .forEach(taskDto -> tasksById.put(taskDto.getId(), taskDto));
+            }
+            taskDtos = ids.stream()
+                    .map(tasksById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        log.debug("Tasks found by search: count={}", taskDtos.size());
+        return taskDtos;
+    }
+
+    private CursorPageDto<TaskDto> findPage(TaskFilterDto filter, String cursor, int limit, Set<TaskField> fields) {
+        validateLimit(limit);
+        long afterId = CursorUtils.decode(cursor);
+        List<TaskDto> tasks = fields == null
+                ? taskStore.findAfter(filter, afterId, limit + 1)
+                : taskStore.findAfter(filter, afterId, limit + 1, fields);
+
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            nextCursor = CursorUtils.encode(tasks.get(limit - 1).getId());
+        }
+        return new CursorPageDto<>(tasks, nextCursor);
+    }
+
+    private void validateNamePrefix(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new DataValidationException("Name prefix is required");
+        }
+        validateLimit(limit);
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new DataValidationException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private RuntimeException updateFailure(long id, Long expectedVersion) {
+        if (!taskRepository.existsById(id)) {
+            return notFound(id);
+        }
+        return new PreconditionFailedException("Task with id " + id + " was modified, expected version " + expectedVersion);
+    }
+
+    /**
+     * Задачи нет в tasks. Архивную задачу getTask возвращает, поэтому для нее изменение отклоняется как конфликт,
+     * а не как отсутствие задачи.
+     */
+    private RuntimeException notFound(long id) {
+        if (taskArchiveRepository.existsById(id)) {
+            return new ConflictException("Task with id " + id + " is archived and cannot be modified");
+        }
+        return new EntityNotFoundException("Task with id " + id + " not found");
+    }
+
     private Task getTaskById(Long id) {
         return taskRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Task with id " + id + " not found"));
+                .orElseThrow(() -> notFound(id));
     }
 }
@@ -0,0 +1,50 @@
+package com.testtask.todo.service;
+
+import com.testtask.todo.dto.TaskStatsDto;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.repository.TaskStatsRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Сервис статистики задач. Статистика читается из счетчиков, а не считается по таблице задач.
+ *
+ * @author Sergey Gerasimov
+ */
+@Service
+@Timed(value = "todo.service", histogram = true)
+@RequiredArgsConstructor
+public class TaskStatsService {
+
+    static final int MAX_DAYS = 366;
+
+    private final TaskStatsRepository taskStatsRepository;
+
+    /**
+     * Возвращает количество задач по статусу и приоритету и количество созданных и завершенных задач по дням.
+     *
+     * @param days количество последних дней, включая сегодняшний
+     * @return статистика задач
+     * @throws DataValidationException если days вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public TaskStatsDto getStats(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new DataValidationException("Days must be between 1 and " + MAX_DAYS);
+        }
+        List<TaskStatsDto.Count> counts = taskStatsRepository.findCounts();
+        LocalDate from = LocalDate.now(ZoneOffset.UTC).minusDays(days - 1L);
+
+        return TaskStatsDto.builder()
+                .total(counts.stream().mapToLong(TaskStatsDto.Count::getCount).sum())
+                .counts(counts)
+                .daily(taskStatsRepository.findDaily(from))
+                .build();
+    }
+}
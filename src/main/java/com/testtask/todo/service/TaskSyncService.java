@@ -0,0 +1,126 @@
+package com.testtask.todo.service;
+
+import com.testtask.todo.config.OutboxProperties;
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskSyncDto;
+import com.testtask.todo.exception.ChangesExpiredException;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.repository.TaskChangeRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис инкрементальной синхронизации: отдает задачи, измененные после позиции ленты изменений task_outbox,
+ * и id задач, удаленных после нее.
+ * <p>
+ * Позиции назначаются событиям после коммита и по возрастанию, поэтому транзакция, закоммиченная позже, всегда
+ * получает позицию больше уже отданной клиенту, как бы долго она ни шла. Время изменения задачи для этого
+ * не годится: updated_at берется до коммита.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+@Service
+@Timed(value = "todo.service", histogram = true)
+@RequiredArgsConstructor
+public class TaskSyncService {
+
+    private final TaskChangeRepository taskChangeRepository;
+    private final OutboxProperties outboxProperties;
+
+    /**
+     * Возвращает изменения, закоммиченные после отметки времени, например после начала полной выгрузки.
+     * Может вернуть и часть изменений, закоммиченных незадолго до отметки.
+     *
+     * @param since отметка времени
+     * @param limit максимальное количество изменений
+     * @return изменения и позиция для следующей синхронизации
+     * @throws ChangesExpiredException если события после since уже удалены и нужна полная синхронизация
+     * @throws DataValidationException если limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public TaskSyncDto getChangesSince(LocalDateTime since, int limit) {
+        validateLimit(limit);
+        if (since.isBefore(LocalDateTime.now().minus(outboxProperties.getRetention()))) {
+            throw new ChangesExpiredException("Changes since " + since + " are no longer available, full sync required");
+        }
+        Long position = taskChangeRepository.findPositionRelayedAt(since);
+        if (position == null) {
+            Long first = taskChangeRepository.findFirstPosition();
+            position = first != null ? first - 1 : 0;
+        }
+        return getChanges(position, limit);
+    }
+
+    /**
+     * Возвращает изменения после позиции из предыдущей синхронизации или из ленты GET /tasks/changes.
+     *
+     * @param position позиция, не включительно
+     * @param limit    максимальное количество изменений
+     * @return изменения и позиция для следующей синхронизации
+     * @throws ChangesExpiredException если события после position уже удалены и нужна полная синхронизация
+     * @throws DataValidationException если limit вне допустимого диапазона
+     */
+    @Transactional(readOnly = true)
+    public TaskSyncDto getChangesAfter(long position, int limit) {
+        validateLimit(limit);
+        Long first = taskChangeRepository.findFirstPosition();
+        if (first != null && position < first - 1) {
+            throw new ChangesExpiredException("Changes after position " + position + " are no longer available, full sync required");
+        }
+        return getChanges(position, limit);
+    }
+
+    /**
+     * Из нескольких событий одной задачи остается последнее: оно содержит ее состояние на момент position.
+     */
+    private TaskSyncDto getChanges(long position, int limit) {
+        List<TaskChangeDto> events = taskChangeRepository.findSince(position, limit + 1);
+        boolean hasMore = events.size() > limit;
+        if (hasMore) {
+            events = events.subList(0, limit);
+        }
+
+        Map<Long, TaskChangeDto> latest = new LinkedHashMap<>();
+        for (TaskChangeDto event : events) {
+            latest.remove(event.getTaskId());
+            latest.put(event.getTaskId(), event);
+        }
+        List<TaskDto> updated = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        List<Long> archived = new ArrayList<>();
+        for (TaskChangeDto event : latest.values()) {
+            switch (event.getType()) {
+                case CREATED, UPDATED -> updated.add(event.getTask());
+                case DELETED -> deleted.add(event.getTaskId());
+                case ARCHIVED -> archived.add(event.getTaskId());
+            }
+        }
+        long nextPosition = events.isEmpty() ? position : events.get(events.size() - 1).getPosition();
+
+        log.debug("Tasks changed after {}: updated={}, deleted={}, archived={}", position, updated.size(), deleted.size(), archived.size());
+        return TaskSyncDto.builder()
+                .updated(updated)
+                .deleted(deleted)
+                .archived(archived)
+                .position(nextPosition)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > TaskService.MAX_PAGE_SIZE) {
+            throw new DataValidationException("Limit must be between 1 and " + TaskService.MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.config.TaskStoreProperties;
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.repository.TaskChangeRepository;
+import com.testtask.todo.routing.ReplicaRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Хранилище задач в памяти процесса для нагрузки, где чтений намного больше, чем записей.
+ * <p>
+ * При старте приложения все задачи загружаются в {@link TaskIndex} одним потоковым запросом. Дальше индекс
+ * догоняет БД по ленте изменений task_outbox, поэтому в него попадают и изменения других экземпляров
+ * приложения, пакетных операций и импорта. Изменения этого экземпляра дополнительно перечитываются сразу
+ * после коммита через {@link #refresh(long)}, чтобы клиент видел свою запись в следующем запросе.
+ * <p>
+ * Пока индекс не загружен, чтения идут в fallback.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class InMemoryTaskStore implements TaskStore, SmartLifecycle {
+
+    /**
+     * Загружается до старта веб-сервера, чтобы первые запросы уже читали из памяти.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    private static final String SELECT_TASKS = """
+            SELECT id, name, description, created_at, updated_at, status, priority, version
+            FROM tasks
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskChangeRepository taskChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskStore fallback;
+    private final TaskStoreProperties properties;
+
+    private volatile TaskIndex index;
+    private long position;
+    private volatile boolean running;
+
+    public InMemoryTaskStore(JdbcTemplate jdbcTemplate, TaskChangeRepository taskChangeRepository,
+                             TransactionTemplate transactionTemplate, TaskStore fallback,
+                             TaskStoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskChangeRepository = taskChangeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.fallback = fallback;
+        this.properties = properties;
+    }
+
+    @Override
+    public Optional<TaskDto> findById(long id) {
+        TaskIndex current = index;
+        if (current == null) {
+            return fallback.findById(id);
+        }
+        return Optional.ofNullable(current.get(id));
+    }
+
+    @Override
+    public Optional<TaskDto> findByName(String name) {
+        TaskIndex current = index;
+        if (current == null) {
+            return fallback.findByName(name);
+        }
+        return Optional.ofNullable(current.getByName(name));
+    }
+
+    @Override
+    public Optional<TaskDto> findByNameIgnoreCase(String name) {
+        TaskIndex current = index;
+        if (current == null) {
+            return fallback.findByNameIgnoreCase(name);
+        }
+        return Optional.ofNullable(current.getByNameIgnoreCase(name));
+    }
+
+    @Override
+    public List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit) {
+        TaskIndex current = index;
+        if (current == null) {
+            return fallback.findAfter(filter, afterId, limit);
+        }
+        return current.findAfter(filter, afterId, limit);
+    }
+
+    @Override
+    public void refresh(long id) {
+        refresh(List.of(id));
+    }
+
+    @Override
+    public void refresh(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(ids);
+                }
+            });
+        } else {
+            reload(ids);
+        }
+    }
+
+    /**
+     * Применяет к индексу новые события ленты изменений. Каждое событие содержит полное состояние задачи
+     * с версией, поэтому события, уже примененные через {@link #refresh(long)}, ничего не меняют.
+     * <p>
+     * Задачи, которых нет в индексе, из события не добавляются, а перечитываются из БД: их могли уже удалить,
+     * а событие DELETED еще не дошло до ленты (удаление этим экземпляром через {@link #refresh(long)}
+     * или до загрузки индекса). Иначе устаревшее событие CREATED или UPDATED вернуло бы удаленную задачу.
+     */
+    @Scheduled(fixedDelayString = "${todo.store.sync-interval-ms:200}")
+    public synchronized void sync() {
+        TaskIndex current = index;
+        if (current == null) {
+            return;
+        }
+        List<TaskChangeDto> events;
+        do {
+            events = taskChangeRepository.findSince(position, properties.getSyncBatchSize());
+            Set<Long> missing = new LinkedHashSet<>();
+            for (TaskChangeDto event : events) {
+                if (event.getType() == TaskChangeDto.Type.DELETED || event.getType() == TaskChangeDto.Type.ARCHIVED) {
+                    current.remove(event.getTaskId());
+                } else if (event.getTask() != null && !current.putIfPresent(event.getTask())) {
+                    missing.add(event.getTaskId());
+                }
+                position = event.getPosition();
+            }
+            if (!missing.isEmpty()) {
+                reload(List.copyOf(missing));
+            }
+        } while (events.size() == properties.getSyncBatchSize());
+    }
+
+    public int size() {
+        TaskIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    @Override
+    public synchronized void start() {
+        long startedAt = System.nanoTime();
+        // Позиция запоминается до загрузки: события, закоммиченные во время загрузки, применятся повторно
+        // и будут отброшены сравнением версий. Задачи читаются из primary, чтобы загруженное состояние
+        // было не старее позиции.
+        position = taskChangeRepository.findLastPosition();
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM tasks", Integer.class);
+        TaskIndex loaded = new TaskIndex(count != null ? count : 0);
+        ReplicaRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> {
+            jdbcTemplate.query(con -> {
+                var statement = con.prepareStatement(SELECT_TASKS + "ORDER BY id");
+                statement.setFetchSize(properties.getLoadFetchSize());
+                return statement;
+            }, (RowCallbackHandler) rs -> loaded.put(mapTask(rs)));
+            return null;
+        }));
+        index = loaded;
+        running = true;
+        log.info("Task store loaded: count={}, took={}ms", loaded.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        sync();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void reload(List<Long> ids) {
+        TaskIndex current = index;
+        if (current == null) {
+            return;
+        }
+        // Перечитывание идет в отдельной транзакции: afterCommit выполняется, пока соединение завершенной
+        // транзакции еще привязано к потоку. Читается primary: реплика могла еще не получить эту запись,
+        // и задача ошибочно пропала бы из индекса.
+        List<TaskDto> tasks = ReplicaRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(SELECT_TASKS + "WHERE id = ANY (?)");
+            statement.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> mapTask(rs))));
+        Set<Long> missing = new HashSet<>(ids);
+        if (tasks != null) {
+            for (TaskDto task : tasks) {
+                current.put(task);
+                missing.remove(task.getId());
+            }
+        }
+        missing.forEach(current::remove);
+    }
+
+    private static TaskDto mapTask(ResultSet rs) throws SQLException {
+        int status = rs.getInt("status");
+        Status taskStatus = rs.wasNull() ? null : Status.values()[status];
+        int priority = rs.getInt("priority");
+        Priority taskPriority = rs.wasNull() ? null : Priority.values()[priority];
+        return TaskDto.builder()
+                .id(rs.getLong("id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .status(taskStatus)
+                .priority(taskPriority)
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.repository.TaskSpecifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Чтение задач напрямую из БД через TaskRepository. Используется по умолчанию.
+ * <p>
+ * Транзакции чтения открываются здесь, а не в TaskService, чтобы чтения из InMemoryTaskStore
+ * не занимали соединение из пула.
+ *
+ * @author Sergey Gerasimov
+ */
+@RequiredArgsConstructor
+public class JpaTaskStore implements TaskStore {
+
+    private final TaskRepository taskRepository;
+    private final TaskMapper taskMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findById(long id) {
+        return taskRepository.findById(id).map(taskMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findByName(String name) {
+        return taskRepository.findByName(name).map(taskMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findByNameIgnoreCase(String name) {
+        return taskRepository.findByNameIgnoreCase(name).map(taskMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit) {
+        if (filter == null) {
+            return taskMapper.toDtoList(taskRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)));
+        }
+        Specification<Task> specification = TaskSpecifications.byFilter(filter)
+                .and(TaskSpecifications.idGreaterThan(afterId));
+        List<Task> tasks = taskRepository.findBy(specification, query -> query
+                .sortBy(Sort.by("id"))
+                .limit(limit)
+                .all());
+        return taskMapper.toDtoList(tasks);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findById(long id, Set<TaskField> fields) {
+        Specification<Task> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return taskRepository.findProjected(fields, byId, false, 0, 1).stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit, Set<TaskField> fields) {
+        Specification<Task> specification = TaskSpecifications.idGreaterThan(afterId);
+        if (filter != null) {
+            specification = TaskSpecifications.byFilter(filter).and(specification);
+        }
+        return taskRepository.findProjected(TaskField.with(fields, TaskField.ID), specification, true, 0, limit);
+    }
+}
@@ -0,0 +1,142 @@
+package com.testtask.todo.store;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица long -> int с открытой адресацией и линейным пробированием. Ключи и значения хранятся
+ * в примитивных массивах, поэтому запись не создает объектов-оберток и узлов, как HashMap&lt;Long, Integer&gt;.
+ * <p>
+ * Значения должны быть неотрицательными: -1 означает отсутствие ключа. Класс не потокобезопасен.
+ *
+ * @author Sergey Gerasimov
+ */
+final class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int get(long key) {
+        int index = indexOf(key);
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return предыдущее значение или {@link #MISSING}
+     */
+    int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        int index = indexOf(key);
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Удаляет ключ со сдвигом следующих элементов цепочки, поэтому таблица не накапливает надгробий.
+     *
+     * @return удаленное значение или {@link #MISSING}
+     */
+    int remove(long key) {
+        int index = indexOf(key);
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == MISSING) {
+                break;
+            }
+            int home = indexOf(keys[index]);
+            // Элемент можно перенести в дыру, только если его домашняя ячейка не лежит между дырой и им самим.
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        values[gap] = MISSING;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int index = indexOf(oldKeys[i]);
+                while (values[index] != MISSING) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * JpaTaskStore для секционированной tasks. Секции нарезаны по id, поэтому запрос по имени читал бы индекс
+ * lower(name) каждой секции. Имя сначала переводится в id через task_names, где нужна одна секция по хэшу имени,
+ * затем задача читается по id из одной секции tasks.
+ * <p>
+ * Между двумя запросами задачу могут переименовать, поэтому имя прочитанной задачи проверяется еще раз.
+ *
+ * @author Sergey Gerasimov
+ */
+public class PartitionedJpaTaskStore extends JpaTaskStore {
+
+    private final TaskRepository taskRepository;
+
+    public PartitionedJpaTaskStore(TaskRepository taskRepository, TaskMapper taskMapper) {
+        super(taskRepository, taskMapper);
+        this.taskRepository = taskRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findByName(String name) {
+        return taskRepository.findIdByLowerName(name)
+                .flatMap(this::findById)
+                .filter(task -> task.getName().equals(name));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskDto> findByNameIgnoreCase(String name) {
+        return taskRepository.findIdByLowerName(name)
+                .flatMap(this::findById)
+                .filter(task -> task.getName().equalsIgnoreCase(name));
+    }
+}
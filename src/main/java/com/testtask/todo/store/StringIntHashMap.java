@@ -0,0 +1,145 @@
+package com.testtask.todo.store;
+
+import java.util.Arrays;
+
+/**
+ * Хэш-таблица String -> int с открытой адресацией и линейным пробированием, без узлов и оберток Integer.
+ * Ключ-строка не копируется: для имен в нижнем регистре таблица и колонка имен TaskIndex ссылаются на один экземпляр.
+ * <p>
+ * Значения должны быть неотрицательными: -1 означает отсутствие ключа. Класс не потокобезопасен.
+ *
+ * @author Sergey Gerasimov
+ */
+final class StringIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private String[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    StringIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int get(String key) {
+        int index = indexOf(key);
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return предыдущее значение или {@link #MISSING}
+     */
+    int put(String key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        int index = indexOf(key);
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Удаляет ключ, только если он указывает на value: после переименования задачи имя
+     * может уже принадлежать другой задаче.
+     *
+     * @return true, если ключ удален
+     */
+    boolean remove(String key, int value) {
+        int index = indexOf(key);
+        while (keys[index] != null) {
+            if (keys[index].equals(key)) {
+                if (values[index] != value) {
+                    return false;
+                }
+                shiftBack(index);
+                size--;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (keys[index] == null) {
+                break;
+            }
+            int home = indexOf(keys[index]);
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = MISSING;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int indexOf(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+}
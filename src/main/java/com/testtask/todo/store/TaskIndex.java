@@ -0,0 +1,414 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс задач в памяти в колоночном виде: каждое поле задачи хранится в своем примитивном массиве,
+ * задача занимает одну ячейку (slot) во всех массивах. Статус и приоритет хранятся ординалами в byte,
+ * даты - микросекундами в long, id -> slot и имя -> slot - в хэш-таблицах с открытой адресацией.
+ * Имена в хэш-таблице хранятся в нижнем регистре, как в индексе index_task_lower_name: имя в нижнем регистре
+ * не копируется, для остальных хранится копия.
+ * <p>
+ * Для листинга поддерживается отсортированный массив id. Удаленные id остаются в нем до очередного
+ * уплотнения и пропускаются при обходе.
+ * <p>
+ * Чтения выполняются параллельно под read lock, изменения - под write lock.
+ *
+ * @author Sergey Gerasimov
+ */
+public final class TaskIndex {
+
+    private static final byte NULL_ORDINAL = -1;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    private static final Status[] STATUSES = Status.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntHashMap slotsById;
+    private final StringIntHashMap slotsByName;
+
+    private long[] ids;
+    private String[] names;
+    private String[] descriptions;
+    private long[] createdAt;
+    private long[] updatedAt;
+    private long[] versions;
+    private byte[] statuses;
+    private byte[] priorities;
+    private int slotCount;
+
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private long[] orderedIds;
+    private int orderedCount;
+    private int removedCount;
+
+    public TaskIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        slotsById = new LongIntHashMap(capacity);
+        slotsByName = new StringIntHashMap(capacity);
+        ids = new long[capacity];
+        names = new String[capacity];
+        descriptions = new String[capacity];
+        createdAt = new long[capacity];
+        updatedAt = new long[capacity];
+        versions = new long[capacity];
+        statuses = new byte[capacity];
+        priorities = new byte[capacity];
+        orderedIds = new long[capacity];
+    }
+
+    /**
+     * Добавляет задачу или заменяет ее состояние. Состояние с версией меньше уже сохраненной игнорируется,
+     * поэтому одно и то же изменение можно применять повторно и в любом порядке с перечитыванием из БД.
+     *
+     * @param task задача с id
+     * @return false, если сохраненная версия новее
+     */
+    public boolean put(TaskDto task) {
+        return put(task, true);
+    }
+
+    /**
+     * Заменяет состояние задачи, только если она уже есть в индексе. Проверка и замена идут под одной блокировкой,
+     * поэтому задача, удаленная из индекса параллельно, не появляется в нем снова.
+     *
+     * @param task задача с id
+     * @return false, если задачи нет в индексе или сохраненная версия новее
+     */
+    public boolean putIfPresent(TaskDto task) {
+        return put(task, false);
+    }
+
+    private boolean put(TaskDto task, boolean insert) {
+        long id = task.getId();
+        long version = task.getVersion() != null ? task.getVersion() : 0;
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int slot = slotsById.get(id);
+            if (slot == LongIntHashMap.MISSING) {
+                if (!insert) {
+                    return false;
+                }
+                slot = allocateSlot();
+                ids[slot] = id;
+                slotsById.put(id, slot);
+                addOrdered(id);
+            } else {
+                if (versions[slot] > version) {
+                    return false;
+                }
+                if (names[slot] != null) {
+                    slotsByName.remove(nameKey(names[slot]), slot);
+                }
+            }
+            names[slot] = task.getName();
+            descriptions[slot] = task.getDescription();
+            createdAt[slot] = toMicros(task.getCreatedAt());
+            updatedAt[slot] = toMicros(task.getUpdatedAt());
+            versions[slot] = version;
+            statuses[slot] = task.getStatus() != null ? (byte) task.getStatus().ordinal() : NULL_ORDINAL;
+            priorities[slot] = task.getPriority() != null ? (byte) task.getPriority().ordinal() : NULL_ORDINAL;
+            if (task.getName() != null) {
+                slotsByName.put(nameKey(task.getName()), slot);
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param id ID задачи
+     * @return false, если задачи нет в индексе
+     */
+    public boolean remove(long id) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            int slot = slotsById.remove(id);
+            if (slot == LongIntHashMap.MISSING) {
+                return false;
+            }
+            if (names[slot] != null) {
+                slotsByName.remove(nameKey(names[slot]), slot);
+            }
+            names[slot] = null;
+            descriptions[slot] = null;
+            releaseSlot(slot);
+            if (++removedCount >= MIN_COMPACTION && removedCount > orderedCount / 4) {
+                compactOrdered();
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param id ID задачи
+     * @return задача или null
+     */
+    public TaskDto get(long id) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = slotsById.get(id);
+            return slot == LongIntHashMap.MISSING ? null : toDto(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @param name имя задачи
+     * @return задача или null
+     */
+    public TaskDto getByName(String name) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = slotsByName.get(nameKey(name));
+            return slot == StringIntHashMap.MISSING || !names[slot].equals(name) ? null : toDto(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @param name имя задачи в любом регистре
+     * @return задача или null
+     */
+    public TaskDto getByNameIgnoreCase(String name) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            int slot = slotsByName.get(nameKey(name));
+            return slot == StringIntHashMap.MISSING ? null : toDto(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает задачи с id больше afterId по возрастанию id.
+     *
+     * @param filter  фильтр или null
+     * @param afterId id, после которого начинается страница
+     * @param limit   максимальное количество задач
+     * @return задачи, подходящие под фильтр
+     */
+    public List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit) {
+        Matcher matcher = filter != null ? new Matcher(filter) : null;
+        List<TaskDto> tasks = new ArrayList<>(Math.min(limit, 64));
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            for (int i = firstAfter(afterId); i < orderedCount && tasks.size() < limit; i++) {
+                int slot = slotsById.get(orderedIds[i]);
+                if (slot != LongIntHashMap.MISSING && (matcher == null || matcher.matches(slot))) {
+                    tasks.add(toDto(slot));
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return tasks;
+    }
+
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return slotsById.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private TaskDto toDto(int slot) {
+        return TaskDto.builder()
+                .id(ids[slot])
+                .name(names[slot])
+                .description(descriptions[slot])
+                .createdAt(fromMicros(createdAt[slot]))
+                .updatedAt(fromMicros(updatedAt[slot]))
+                .status(statuses[slot] != NULL_ORDINAL ? STATUSES[statuses[slot]] : null)
+                .priority(priorities[slot] != NULL_ORDINAL ? PRIORITIES[priorities[slot]] : null)
+                .version(versions[slot])
+                .build();
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Новые id почти всегда больше последнего, поэтому обычно id просто дописывается в конец.
+     * Id, уже присутствующий в массиве (задачу удалили и снова применили ее старое состояние), не дублируется.
+     */
+    private void addOrdered(long id) {
+        if (orderedCount == 0 || orderedIds[orderedCount - 1] < id) {
+            ensureOrderedCapacity();
+            orderedIds[orderedCount++] = id;
+            return;
+        }
+        int index = Arrays.binarySearch(orderedIds, 0, orderedCount, id);
+        if (index >= 0) {
+            removedCount--;
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureOrderedCapacity();
+        System.arraycopy(orderedIds, insertAt, orderedIds, insertAt + 1, orderedCount - insertAt);
+        orderedIds[insertAt] = id;
+        orderedCount++;
+    }
+
+    private void ensureOrderedCapacity() {
+        if (orderedCount == orderedIds.length) {
+            orderedIds = Arrays.copyOf(orderedIds, orderedIds.length + (orderedIds.length >> 1));
+        }
+    }
+
+    private void compactOrdered() {
+        int count = 0;
+        for (int i = 0; i < orderedCount; i++) {
+            if (slotsById.get(orderedIds[i]) != LongIntHashMap.MISSING) {
+                orderedIds[count++] = orderedIds[i];
+            }
+        }
+        orderedCount = count;
+        removedCount = 0;
+    }
+
+    private int firstAfter(long afterId) {
+        int low = 0;
+        int high = orderedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (orderedIds[middle] <= afterId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * toLowerCase возвращает тот же экземпляр, если имя уже в нижнем регистре.
+     */
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL_TIMESTAMP;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Фильтр, приведенный к представлению колонок. Семантика совпадает с TaskSpecifications:
+     * from включительно, to не включительно, задачи без статуса или приоритета под фильтр по ним не попадают.
+     */
+    private final class Matcher {
+
+        private final boolean[] statusMask;
+        private final boolean[] priorityMask;
+        private final long createdFrom;
+        private final long createdTo;
+        private final long updatedFrom;
+        private final long updatedTo;
+        private final boolean createdBounded;
+        private final boolean updatedBounded;
+        private final String namePrefix;
+
+        Matcher(TaskFilterDto filter) {
+            statusMask = mask(filter.getStatus(), STATUSES.length);
+            priorityMask = mask(filter.getPriority(), PRIORITIES.length);
+            createdFrom = filter.getCreatedFrom() != null ? toMicros(filter.getCreatedFrom()) : Long.MIN_VALUE;
+            createdTo = filter.getCreatedTo() != null ? toMicros(filter.getCreatedTo()) : Long.MAX_VALUE;
+            updatedFrom = filter.getUpdatedFrom() != null ? toMicros(filter.getUpdatedFrom()) : Long.MIN_VALUE;
+            updatedTo = filter.getUpdatedTo() != null ? toMicros(filter.getUpdatedTo()) : Long.MAX_VALUE;
+            createdBounded = filter.getCreatedFrom() != null || filter.getCreatedTo() != null;
+            updatedBounded = filter.getUpdatedFrom() != null || filter.getUpdatedTo() != null;
+            namePrefix = filter.getNamePrefix() != null && !filter.getNamePrefix().isEmpty() ? filter.getNamePrefix() : null;
+        }
+
+        boolean matches(int slot) {
+            return matches(statusMask, statuses[slot])
+                    && matches(priorityMask, priorities[slot])
+                    && (!createdBounded || inRange(createdAt[slot], createdFrom, createdTo))
+                    && (!updatedBounded || inRange(updatedAt[slot], updatedFrom, updatedTo))
+                    && (namePrefix == null || names[slot] != null && names[slot].startsWith(namePrefix));
+        }
+
+        private static boolean matches(boolean[] mask, byte ordinal) {
+            return mask == null || ordinal != NULL_ORDINAL && mask[ordinal];
+        }
+
+        private static boolean inRange(long value, long from, long to) {
+            return value != NULL_TIMESTAMP && value >= from && value < to;
+        }
+
+        private static boolean[] mask(List<? extends Enum<?>> values, int length) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            boolean[] mask = new boolean[length];
+            for (Enum<?> value : values) {
+                if (value != null) {
+                    mask[value.ordinal()] = true;
+                }
+            }
+            return mask;
+        }
+    }
+}
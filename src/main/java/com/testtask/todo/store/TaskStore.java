@@ -0,0 +1,66 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.dto.TaskFilterDto;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Источник чтения задач для TaskService. Запись всегда идет в БД через TaskRepository,
+ * после нее сервис вызывает {@link #refresh(long)}.
+ *
+ * @author Sergey Gerasimov
+ */
+public interface TaskStore {
+
+    Optional<TaskDto> findById(long id);
+
+    Optional<TaskDto> findByName(String name);
+
+    Optional<TaskDto> findByNameIgnoreCase(String name);
+
+    /**
+     * Возвращает задачи с id больше afterId по возрастанию id.
+     *
+     * @param filter  фильтр или null, чтобы вернуть все задачи
+     * @param afterId id, после которого начинается страница
+     * @param limit   максимальное количество задач
+     * @return задачи, подходящие под фильтр
+     */
+    List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit);
+
+    /**
+     * Вариант {@link #findById(long)}, которому нужны только поля fields. Хранилище может вернуть и остальные поля,
+     * лишние поля в ответ не попадают.
+     */
+    default Optional<TaskDto> findById(long id, Set<TaskField> fields) {
+        return findById(id);
+    }
+
+    /**
+     * Вариант {@link #findAfter(TaskFilterDto, long, int)}, которому нужны только поля fields и id.
+     */
+    default List<TaskDto> findAfter(TaskFilterDto filter, long afterId, int limit, Set<TaskField> fields) {
+        return findAfter(filter, afterId, limit);
+    }
+
+    /**
+     * Сообщает, что задача изменена в текущей транзакции. Хранилища, которые держат копию данных,
+     * перечитывают задачу из БД после коммита.
+     *
+     * @param id ID задачи
+     */
+    default void refresh(long id) {
+    }
+
+    /**
+     * Пакетный вариант {@link #refresh(long)}.
+     *
+     * @param ids ID задач
+     */
+    default void refresh(List<Long> ids) {
+    }
+}
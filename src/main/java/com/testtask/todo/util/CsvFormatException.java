@@ -0,0 +1,25 @@
+package com.testtask.todo.util;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Нарушение формата CSV, например незакрытая кавычка. В отличие от ошибки чтения потока,
+ * это ошибка во входных данных клиента.
+ *
+ * @author Sergey Gerasimov
+ */
+@Getter
+public class CsvFormatException extends IOException {
+
+    /**
+     * Номер строки, где начинается ошибочное поле, начиная с 1.
+     */
+    private final long lineNumber;
+
+    public CsvFormatException(String message, long lineNumber) {
+        super(message + " at line " + lineNumber);
+        this.lineNumber = lineNumber;
+    }
+}
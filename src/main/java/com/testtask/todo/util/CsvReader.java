@@ -0,0 +1,109 @@
+package com.testtask.todo.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180) по одной записи. Поля в кавычках могут содержать
+ * запятые, кавычки и переводы строк. Пустое поле без кавычек читается как null.
+ *
+ * @author Sergey Gerasimov
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+    private int next = -2;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return поля следующей записи или null, если поток закончился
+     * @throws CsvFormatException если кавычка не закрыта
+     * @throws IOException          если чтение не удалось
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLineNumber = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (c == '"' && field.isEmpty() && !quoted) {
+                quoted = true;
+                readQuoted(field);
+                c = read();
+                continue;
+            }
+            if (c == ',' || c == '\n' || c == '\r' || c == -1) {
+                fields.add(quoted || !field.isEmpty() ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+                if (c == ',') {
+                    c = read();
+                    continue;
+                }
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != -1) {
+                    lineNumber++;
+                }
+                return fields;
+            }
+            field.append((char) c);
+            c = read();
+        }
+    }
+
+    /**
+     * @return номер строки, с которой началась последняя прочитанная запись, начиная с 1
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    private void readQuoted(StringBuilder field) throws IOException {
+        long startLineNumber = lineNumber;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new CsvFormatException("Unterminated quoted field", startLineNumber);
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            } else if (c == '\n') {
+                lineNumber++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (next != -2) {
+            int c = next;
+            next = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+        return next;
+    }
+}
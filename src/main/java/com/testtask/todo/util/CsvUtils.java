@@ -0,0 +1,39 @@
+package com.testtask.todo.util;
+
+/**
+ * Утилиты для записи CSV (RFC 4180).
+ *
+ * @author Sergey Gerasimov
+ */
+public final class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    /**
+     * Экранирует значение, заключая его в кавычки, только если это необходимо.
+     *
+     * @param value значение или null
+     * @return значение для записи в CSV, пустая строка для null
+     */
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String string = value.toString();
+        if (string.indexOf(',') < 0 && string.indexOf('"') < 0 && string.indexOf('\n') < 0 && string.indexOf('\r') < 0) {
+            return string;
+        }
+        return quote(string);
+    }
+
+    /**
+     * Всегда заключает значение в кавычки, удваивая кавычки внутри.
+     *
+     * @param value значение
+     * @return значение в кавычках
+     */
+    public static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
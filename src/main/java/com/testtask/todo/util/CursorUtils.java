@@ -0,0 +1,45 @@
+package com.testtask.todo.util;
+
+import com.testtask.todo.exception.DataValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Кодирует и декодирует непрозрачные курсоры для keyset-пагинации.
+ * Курсор содержит id последней задачи на странице.
+ *
+ * @author Sergey Gerasimov
+ */
+public final class CursorUtils {
+
+    private static final String PREFIX = "id:";
+
+    private CursorUtils() {
+    }
+
+    public static String encode(long id) {
+        byte[] bytes = (PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @param cursor курсор, полученный от {@link #encode(long)}, или null для первой страницы
+     * @return id, после которого начинается страница
+     * @throws DataValidationException если курсор поврежден
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new DataValidationException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new DataValidationException("Invalid cursor: " + cursor);
+        }
+    }
+}
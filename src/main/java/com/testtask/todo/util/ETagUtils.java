@@ -0,0 +1,77 @@
+package com.testtask.todo.util;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.exception.DataValidationException;
+import com.testtask.todo.exception.PreconditionFailedException;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Преобразует версию задачи в строгий ETag и обратно, вычисляет валидаторы условных GET-запросов.
+ *
+ * @author Sergey Gerasimov
+ */
+public final class ETagUtils {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtils() {
+    }
+
+    public static String toETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Слабый ETag списка задач: меняется, если в списке появилась, пропала или изменилась задача.
+     * Слабый, потому что Tomcat не сжимает ответы со строгим ETag.
+     *
+     * @param tasks задачи с id и version
+     * @return ETag вида W/"..."
+     */
+    public static String toETag(List<TaskDto> tasks) {
+        StringBuilder validators = new StringBuilder(tasks.size() * 12);
+        for (TaskDto task : tasks) {
+            validators.append(task.getId()).append(':').append(task.getVersion()).append(',');
+        }
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(validators.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * @param updatedAt время изменения задачи
+     * @return значение для заголовка Last-Modified в миллисекундах или -1, если время неизвестно
+     */
+    public static long toLastModified(LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return -1;
+        }
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Извлекает версию из заголовка If-Match.
+     *
+     * @param eTag строгий ETag вида "3"
+     * @return версия задачи
+     * @throws PreconditionFailedException если ETag слабый: для If-Match слабые ETag никогда не совпадают
+     * @throws DataValidationException     если ETag не является версией задачи
+     */
+    public static long parseVersion(String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith(WEAK_PREFIX)) {
+            throw new PreconditionFailedException("Weak entity tag does not match: " + eTag);
+        }
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new DataValidationException("Invalid entity tag: " + eTag);
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new DataValidationException("Invalid entity tag: " + eTag);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.testtask.todo.writebehind;
+
+/**
+ * Реализация для режима без отложенной записи: незаписанных изменений не бывает.
+ *
+ * @author Sergey Gerasimov
+ */
+public class NoOpPendingTaskWrites implements PendingTaskWrites {
+
+    @Override
+    public PendingTaskWrite find(long id) {
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.testtask.todo.writebehind;
+
+import com.testtask.todo.dto.TaskDto;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Изменение задачи в очереди отложенной записи. При объединении нескольких изменений одной задачи
+ * сохраняются идентификаторы отслеживания всех объединенных запросов.
+ *
+ * @author Sergey Gerasimov
+ */
+@Getter
+public class PendingTaskWrite {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final Long id;
+    private final TaskDto taskDto;
+    private final List<UUID> trackingIds;
+
+    PendingTaskWrite(Type type, Long id, TaskDto taskDto, UUID trackingId) {
+        this(type, id, taskDto, List.of(trackingId));
+    }
+
+    private PendingTaskWrite(Type type, Long id, TaskDto taskDto, List<UUID> trackingIds) {
+        this.type = type;
+        this.id = id;
+        this.taskDto = taskDto;
+        this.trackingIds = trackingIds;
+    }
+
+    /**
+     * Объединяет это изменение с более поздним изменением той же задачи: остается более позднее,
+     * идентификаторы отслеживания обоих запросов завершатся вместе с ним.
+     */
+    PendingTaskWrite coalesce(PendingTaskWrite next) {
+        List<UUID> merged = new ArrayList<>(trackingIds.size() + next.trackingIds.size());
+        merged.addAll(trackingIds);
+        merged.addAll(next.trackingIds);
+        return new PendingTaskWrite(next.type, next.id, next.taskDto, merged);
+    }
+
+    /**
+     * Накладывает незаписанное обновление на прочитанную из БД задачу.
+     *
+     * @param stored задача из БД
+     * @return задача с полями из обновления
+     */
+    public TaskDto applyTo(TaskDto stored) {
+        if (type != Type.UPDATE) {
+            return stored;
+        }
+        return stored.toBuilder()
+                .name(taskDto.getName())
+                .description(taskDto.getDescription())
+                .status(taskDto.getStatus())
+                .priority(taskDto.getPriority())
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.testtask.todo.writebehind;
+
+/**
+ * Незаписанные в БД изменения задач. TaskService накладывает их на прочитанные задачи,
+ * чтобы клиент видел свои изменения до того, как они записаны (read-your-writes).
+ *
+ * @author Sergey Gerasimov
+ */
+public interface PendingTaskWrites {
+
+    /**
+     * @param id ID задачи
+     * @return последнее незаписанное изменение задачи или null, если его нет
+     */
+    PendingTaskWrite find(long id);
+}
@@ -0,0 +1,401 @@
+package com.testtask.todo.writebehind;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.config.WriteBehindProperties;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.WriteStatusDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.ServiceUnavailableException;
+import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Очередь отложенной записи задач.
+ * <p>
+ * Изменения принимаются в ограниченную очередь в памяти, изменения одной задачи объединяются,
+ * и отдельный поток пишет их в БД пакетами, по транзакции на пакет. Если пакет не записался,
+ * изменения записываются по одному, и ошибка попадает только в состояние того изменения, которое ее вызвало.
+ * <p>
+ * При остановке приложения очередь перестает принимать изменения и ждет записи оставшихся
+ * не дольше shutdownTimeout. Изменения, принятые перед аварийным завершением процесса, теряются.
+ *
+ * @author Sergey Gerasimov
+ */
+@Slf4j
+public class TaskWriteQueue implements PendingTaskWrites, SmartLifecycle {
+
+    /**
+     * Останавливается после веб-сервера, чтобы к началу дренирования новые запросы уже не принимались.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final TaskRepository taskRepository;
+    private final TaskMapper taskMapper;
+    private final TaskCache taskCache;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final Cache<UUID, WriteStatusDto> statuses;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<PendingTaskWrite> pendingCreates = new ArrayDeque<>();
+    private final LinkedHashMap<Long, PendingTaskWrite> pendingById = new LinkedHashMap<>();
+    /**
+     * Изменения, которые writer сейчас записывает. Остаются видимыми для чтения до коммита.
+     */
+    private final Map<Long, PendingTaskWrite> inFlight = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TaskWriteQueue(TaskRepository taskRepository, TaskMapper taskMapper, TaskCache taskCache,
+                          TransactionTemplate transactionTemplate, WriteBehindProperties properties) {
+        this.taskRepository = taskRepository;
+        this.taskMapper = taskMapper;
+        this.taskCache = taskCache;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStatusTtl())
+                .build();
+    }
+
+    /**
+     * Принимает создание задачи.
+     *
+     * @param taskDto данные задачи
+     * @return состояние записи с идентификатором отслеживания
+     * @throws ServiceUnavailableException если очередь полна или остановлена
+     */
+    public WriteStatusDto create(TaskDto taskDto) {
+        return submit(new PendingTaskWrite(PendingTaskWrite.Type.CREATE, null, taskDto, UUID.randomUUID()));
+    }
+
+    /**
+     * Принимает обновление задачи. Незаписанное обновление той же задачи заменяется новым.
+     *
+     * @param id      ID задачи
+     * @param taskDto обновленные данные задачи
+     * @return состояние записи с идентификатором отслеживания
+     * @throws EntityNotFoundException     если задача уже ожидает удаления
+     * @throws ServiceUnavailableException если очередь полна или остановлена
+     */
+    public WriteStatusDto update(long id, TaskDto taskDto) {
+        return submit(new PendingTaskWrite(PendingTaskWrite.Type.UPDATE, id, taskDto, UUID.randomUUID()));
+    }
+
+    /**
+     * Принимает удаление задачи. Удаление заменяет незаписанное обновление той же задачи.
+     *
+     * @param id ID задачи
+     * @return состояние записи с идентификатором отслеживания
+     * @throws ServiceUnavailableException если очередь полна или остановлена
+     */
+    public WriteStatusDto delete(long id) {
+        return submit(new PendingTaskWrite(PendingTaskWrite.Type.DELETE, id, null, UUID.randomUUID()));
+    }
+
+    /**
+     * @param trackingId идентификатор отслеживания
+     * @return состояние записи
+     * @throws EntityNotFoundException если идентификатор неизвестен или его состояние уже устарело
+     */
+    public WriteStatusDto getStatus(UUID trackingId) {
+        WriteStatusDto status = statuses.getIfPresent(trackingId);
+        if (status == null) {
+            throw new EntityNotFoundException("Write with tracking id " + trackingId + " not found");
+        }
+        return status;
+    }
+
+    @Override
+    public PendingTaskWrite find(long id) {
+        lock.lock();
+        try {
+            PendingTaskWrite pending = pendingById.get(id);
+            return pending != null ? pending : inFlight.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pendingCreates.size() + pendingById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private WriteStatusDto submit(PendingTaskWrite write) {
+        UUID trackingId = write.getTrackingIds().get(0);
+        WriteStatusDto status = WriteStatusDto.builder()
+                .trackingId(trackingId)
+                .state(WriteStatusDto.State.PENDING)
+                .taskId(write.getId())
+                .build();
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new ServiceUnavailableException("Write queue is stopped");
+            }
+            if (write.getType() == PendingTaskWrite.Type.CREATE) {
+                awaitCapacity();
+                pendingCreates.add(write);
+            } else {
+                PendingTaskWrite queued = pendingById.get(write.getId());
+                PendingTaskWrite latest = queued != null ? queued : inFlight.get(write.getId());
+                if (latest != null && latest.getType() == PendingTaskWrite.Type.DELETE
+                        && write.getType() == PendingTaskWrite.Type.UPDATE) {
+                    throw new EntityNotFoundException("Task with id " + write.getId() + " not found");
+                }
+                if (queued != null) {
+                    pendingById.put(write.getId(), queued.coalesce(write));
+                } else {
+                    awaitCapacity();
+                    pendingById.put(write.getId(), write);
+                }
+            }
+            statuses.put(trackingId, status);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return status;
+    }
+
+    private void awaitCapacity() {
+        long remaining = properties.getOfferTimeout().toNanos();
+        try {
+            while (pendingCreates.size() + pendingById.size() >= properties.getCapacity()) {
+                if (remaining <= 0 || !running) {
+                    throw new ServiceUnavailableException("Write queue is full");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for write queue");
+        }
+    }
+
+    private void runWriter() {
+        boolean interrupted = false;
+        while (true) {
+            lock.lock();
+            try {
+                while (size() == 0 && running && !interrupted) {
+                    notEmpty.await();
+                }
+                if (size() == 0) {
+                    return;
+                }
+                long remaining = properties.getFlushInterval().toNanos();
+                while (running && !interrupted && size() < properties.getBatchSize() && remaining > 0) {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                log.warn("Write-behind writer interrupted, flushing remaining writes");
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            }
+        }
+    }
+
+    /**
+     * Записывает в БД один пакет изменений из очереди.
+     */
+    void flush() {
+        List<PendingTaskWrite> batch = drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Map<PendingTaskWrite, Long> createdIds = transactionTemplate.execute(status -> write(batch));
+            batch.forEach(write -> completed(write, createdIds.get(write)));
+        } catch (RuntimeException e) {
+            log.warn("Write-behind batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingTaskWrite write : batch) {
+                try {
+                    Map<PendingTaskWrite, Long> createdIds = transactionTemplate.execute(status -> write(List.of(write)));
+                    completed(write, createdIds.get(write));
+                } catch (RuntimeException single) {
+                    failed(write, single);
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                for (PendingTaskWrite write : batch) {
+                    if (write.getId() != null) {
+                        inFlight.remove(write.getId(), write);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.debug("Write-behind batch written: count={}", batch.size());
+    }
+
+    private List<PendingTaskWrite> drain() {
+        lock.lock();
+        try {
+            int limit = properties.getBatchSize();
+            List<PendingTaskWrite> batch = new ArrayList<>(Math.min(limit, pendingCreates.size() + pendingById.size()));
+            while (batch.size() < limit && !pendingCreates.isEmpty()) {
+                batch.add(pendingCreates.poll());
+            }
+            Iterator<PendingTaskWrite> iterator = pendingById.values().iterator();
+            while (batch.size() < limit && iterator.hasNext()) {
+                PendingTaskWrite write = iterator.next();
+                iterator.remove();
+                inFlight.put(write.getId(), write);
+                batch.add(write);
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<PendingTaskWrite, Long> write(List<PendingTaskWrite> batch) {
+        Map<PendingTaskWrite, Long> createdIds = new IdentityHashMap<>();
+        List<PendingTaskWrite> creates = new ArrayList<>();
+        List<PendingTaskWrite> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        for (PendingTaskWrite write : batch) {
+            switch (write.getType()) {
+                case CREATE -> creates.add(write);
+                case UPDATE -> updates.add(write);
+                case DELETE -> deletes.add(write.getId());
+            }
+        }
+
+        if (!creates.isEmpty()) {
+            List<Task> tasks = creates.stream()
+                    .map(write -> taskMapper.toEntity(write.getTaskDto()))
+                    .toList();
+            taskRepository.saveAll(tasks);
+            for (int i = 0; i < creates.size(); i++) {
+                createdIds.put(creates.get(i), tasks.get(i).getId());
+            }
+        }
+        if (!updates.isEmpty()) {
+            Map<Long, Task> tasks = taskRepository.findAllById(updates.stream().map(PendingTaskWrite::getId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(Task::getId, Function.identity()));
+            for (PendingTaskWrite write : updates) {
+                Task task = tasks.get(write.getId());
+                if (task == null) {
+                    throw new EntityNotFoundException("Task with id " + write.getId() + " not found");
+                }
+                taskMapper.update(write.getTaskDto(), task);
+            }
+        }
+        if (!deletes.isEmpty()) {
+            taskRepository.deleteAllByIdInBatch(deletes);
+        }
+        taskRepository.flush();
+        return createdIds;
+    }
+
+    private void completed(PendingTaskWrite write, Long createdId) {
+        Long taskId = write.getId() != null ? write.getId() : createdId;
+        if (write.getId() != null) {
+            taskCache.evict(write.getId());
+        }
+        updateStatuses(write, WriteStatusDto.State.COMPLETED, taskId, null);
+    }
+
+    private void failed(PendingTaskWrite write, RuntimeException e) {
+        log.warn("Write-behind {} failed: id={}, error={}", write.getType(), write.getId(), e.getMessage());
+        updateStatuses(write, WriteStatusDto.State.FAILED, write.getId(), e.getMessage());
+    }
+
+    private void updateStatuses(PendingTaskWrite write, WriteStatusDto.State state, Long taskId, String error) {
+        for (UUID trackingId : write.getTrackingIds()) {
+            statuses.put(trackingId, WriteStatusDto.builder()
+                    .trackingId(trackingId)
+                    .state(state)
+                    .taskId(taskId)
+                    .error(error)
+                    .build());
+        }
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        writer = new Thread(this::runWriter, "task-write-behind");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = size();
+        if (writer.isAlive() || remaining > 0) {
+            log.error("Write-behind queue stopped with {} unwritten changes", remaining);
+        } else {
+            log.info("Write-behind queue drained");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+-- Индексы строятся CONCURRENTLY, каждый в своем changeset без транзакции: построение не блокирует запись в tasks,
+-- а прерванная миграция продолжается с того индекса, на котором остановилась. Если построение прервется,
+-- останется индекс в состоянии INVALID: его нужно удалить через DROP INDEX CONCURRENTLY перед повторным запуском.
+
+--changeset todo:task_V003_status_priority_updated_at runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_status_priority_updated_at ON tasks (status, priority, updated_at);
+
+--changeset todo:task_V003_priority_updated_at runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_priority_updated_at ON tasks (priority, updated_at);
+
+--changeset todo:task_V003_updated_at runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_updated_at ON tasks (updated_at);
+
+--changeset todo:task_V003_created_at runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_created_at ON tasks (created_at);
+
+--changeset todo:task_V003_active_priority_updated_at runInTransaction:false
+-- Активные задачи (PENDING, IN_PROGRESS) запрашиваются чаще всего, завершенные в индекс не попадают
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_active_priority_updated_at ON tasks (priority, updated_at) WHERE status IN (0, 1);
+
+--changeset todo:task_V003_name_prefix runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_name_prefix ON tasks (name varchar_pattern_ops);
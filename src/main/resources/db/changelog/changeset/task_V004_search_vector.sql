@@ -0,0 +1,59 @@
+--liquibase formatted sql
+
+-- Колонка заполняется триггером, а не объявлена GENERATED ... STORED: добавление генерируемой колонки переписывает
+-- всю таблицу под ACCESS EXCLUSIVE, и все это время tasks недоступна даже для чтения. Пустая колонка добавляется
+-- без перезаписи, существующие строки заполняются пачками в отдельных транзакциях, а индекс строится CONCURRENTLY
+-- без блокировки записи.
+
+--changeset todo:task_V004_search_vector_column splitStatements:false
+ALTER TABLE tasks ADD COLUMN search_vector TSVECTOR;
+
+CREATE FUNCTION task_search_vector(p_name VARCHAR, p_description VARCHAR) RETURNS TSVECTOR AS
+$$
+SELECT setweight(to_tsvector('simple', coalesce(p_name, '')), 'A') ||
+       setweight(to_tsvector('simple', coalesce(p_description, '')), 'B')
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE FUNCTION task_search_vector_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.search_vector := task_search_vector(NEW.name, NEW.description);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_search_vector_capture
+    BEFORE INSERT OR UPDATE OF name, description
+    ON tasks
+    FOR EACH ROW
+EXECUTE FUNCTION task_search_vector_capture();
+
+-- Заполняет колонку у строк, записанных до триггера, пачками по диапазону id, каждая пачка в своей транзакции
+CREATE PROCEDURE task_search_vector_backfill(p_batch_size INT) AS
+$$
+DECLARE
+    v_from BIGINT := 0;
+    v_max  BIGINT;
+BEGIN
+    SELECT coalesce(max(id), 0) INTO v_max FROM tasks;
+    WHILE v_from <= v_max
+        LOOP
+            UPDATE tasks
+            SET search_vector = task_search_vector(name, description)
+            WHERE id >= v_from
+              AND id < v_from + p_batch_size
+              AND search_vector IS NULL;
+            COMMIT;
+            v_from := v_from + p_batch_size;
+        END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset todo:task_V004_search_vector_backfill runInTransaction:false
+CALL task_search_vector_backfill(10000);
+DROP PROCEDURE task_search_vector_backfill(INT);
+
+--changeset todo:task_V004_search_vector_index runInTransaction:false
+-- Если построение прервется, останется индекс в состоянии INVALID: его нужно удалить через DROP INDEX CONCURRENTLY
+-- перед повторным запуском
+CREATE INDEX CONCURRENTLY index_task_search_vector ON tasks USING GIN (search_vector);
@@ -0,0 +1,38 @@
+--liquibase formatted sql
+
+--changeset todo:task_V006_outbox_table
+CREATE TABLE task_outbox
+(
+    id         BIGSERIAL PRIMARY KEY,
+    position   BIGINT,
+    task_id    BIGINT      NOT NULL,
+    event_type VARCHAR(16) NOT NULL,
+    payload    JSONB,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE SEQUENCE task_outbox_position_seq;
+
+CREATE UNIQUE INDEX index_task_outbox_position ON task_outbox (position) WHERE position IS NOT NULL;
+CREATE INDEX index_task_outbox_unrelayed ON task_outbox (id) WHERE position IS NULL;
+CREATE INDEX index_task_outbox_created_at ON task_outbox (created_at);
+
+--changeset todo:task_V006_outbox_trigger splitStatements:false
+CREATE FUNCTION task_outbox_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO task_outbox (task_id, event_type) VALUES (OLD.id, 'DELETED');
+        RETURN OLD;
+    END IF;
+    INSERT INTO task_outbox (task_id, event_type, payload)
+    VALUES (NEW.id, CASE TG_OP WHEN 'INSERT' THEN 'CREATED' ELSE 'UPDATED' END, to_jsonb(NEW) - 'search_vector');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_outbox_capture
+    AFTER INSERT OR UPDATE OR DELETE
+    ON tasks
+    FOR EACH ROW
+EXECUTE FUNCTION task_outbox_capture();
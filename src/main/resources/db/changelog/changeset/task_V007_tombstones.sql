@@ -0,0 +1,35 @@
+--liquibase formatted sql
+
+--changeset todo:task_V007_updated_at_id_index runInTransaction:false
+-- CONCURRENTLY не блокирует запись в tasks на время построения. Если создание прервется, останется индекс
+-- в состоянии INVALID: его нужно удалить через DROP INDEX CONCURRENTLY перед повторным запуском.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_updated_at_id ON tasks (updated_at, id);
+
+--changeset todo:task_V007_updated_at_index_drop runInTransaction:false
+-- Прежний индекс удаляется только после того, как новый построен и используется вместо него
+DROP INDEX CONCURRENTLY IF EXISTS index_task_updated_at;
+
+--changeset todo:task_V007_tombstones_table
+CREATE TABLE task_tombstones
+(
+    task_id    BIGINT PRIMARY KEY,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX index_task_tombstones_deleted_at_task_id ON task_tombstones (deleted_at, task_id);
+
+--changeset todo:task_V007_tombstones_trigger splitStatements:false
+CREATE FUNCTION task_tombstone_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO task_tombstones (task_id) VALUES (OLD.id)
+    ON CONFLICT (task_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_tombstone_capture
+    AFTER DELETE
+    ON tasks
+    FOR EACH ROW
+EXECUTE FUNCTION task_tombstone_capture();
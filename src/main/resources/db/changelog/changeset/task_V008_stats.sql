@@ -0,0 +1,109 @@
+--liquibase formatted sql
+
+--changeset todo:task_V008_stats_tables
+-- Счетчики разбиты на 16 шардов, чтобы параллельные транзакции не ждали блокировки одной строки.
+-- NULL в status и priority хранится как -1.
+CREATE TABLE task_counts
+(
+    status   SMALLINT NOT NULL,
+    priority SMALLINT NOT NULL,
+    shard    SMALLINT NOT NULL,
+    count    BIGINT   NOT NULL,
+    PRIMARY KEY (status, priority, shard)
+);
+
+CREATE TABLE task_daily_stats
+(
+    day       DATE     NOT NULL,
+    shard     SMALLINT NOT NULL,
+    created   BIGINT   NOT NULL,
+    completed BIGINT   NOT NULL,
+    PRIMARY KEY (day, shard)
+);
+
+INSERT INTO task_counts (status, priority, shard, count)
+SELECT coalesce(status, -1), coalesce(priority, -1), 0, count(*)
+FROM tasks
+GROUP BY 1, 2;
+
+-- Для существующих задач день завершения неизвестен, берется день последнего обновления.
+INSERT INTO task_daily_stats (day, shard, created, completed)
+SELECT day, 0, sum(created), sum(completed)
+FROM (SELECT (coalesce(created_at, CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::date AS day, 1 AS created, 0 AS completed
+      FROM tasks
+      UNION ALL
+      SELECT (coalesce(updated_at, CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::date, 0, 1
+      FROM tasks
+      WHERE status = 2) d
+GROUP BY day;
+
+--changeset todo:task_V008_stats_trigger splitStatements:false
+CREATE FUNCTION task_stats_capture() RETURNS TRIGGER AS
+$$
+DECLARE
+    v_shard SMALLINT := floor(random() * 16);
+    v_today DATE     := (CURRENT_TIMESTAMP AT TIME ZONE 'UTC')::date;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT coalesce(status, -1), coalesce(priority, -1), v_shard, count(*)
+        FROM new_rows
+        GROUP BY 1, 2
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+
+        INSERT INTO task_daily_stats (day, shard, created, completed)
+        SELECT (coalesce(created_at, CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::date, v_shard,
+               count(*), count(*) FILTER (WHERE status = 2)
+        FROM new_rows
+        GROUP BY 1
+        ON CONFLICT (day, shard) DO UPDATE SET created   = task_daily_stats.created + EXCLUDED.created,
+                                               completed = task_daily_stats.completed + EXCLUDED.completed;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT s, p, v_shard, sum(d)
+        FROM (SELECT coalesce(status, -1) AS s, coalesce(priority, -1) AS p, -1 AS d FROM old_rows
+              UNION ALL
+              SELECT coalesce(status, -1), coalesce(priority, -1), 1 FROM new_rows) c
+        GROUP BY s, p
+        HAVING sum(d) <> 0
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+
+        INSERT INTO task_daily_stats (day, shard, created, completed)
+        SELECT v_today, v_shard, 0, count(*)
+        FROM new_rows n
+                 JOIN old_rows o ON o.id = n.id
+        WHERE n.status = 2
+          AND o.status IS DISTINCT FROM 2
+        HAVING count(*) > 0
+        ON CONFLICT (day, shard) DO UPDATE SET completed = task_daily_stats.completed + EXCLUDED.completed;
+    ELSE
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT coalesce(status, -1), coalesce(priority, -1), v_shard, -count(*)
+        FROM old_rows
+        GROUP BY 1, 2
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_stats_capture_insert
+    AFTER INSERT
+    ON tasks
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
+
+CREATE TRIGGER task_stats_capture_update
+    AFTER UPDATE
+    ON tasks
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
+
+CREATE TRIGGER task_stats_capture_delete
+    AFTER DELETE
+    ON tasks
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
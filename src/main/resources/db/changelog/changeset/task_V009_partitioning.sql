@@ -0,0 +1,351 @@
+--liquibase formatted sql
+
+-- Переход на секционированную tasks выполняется только с контекстом partitioned (профиль partitioned).
+-- Секции нарезаются по диапазонам id: id выдаются последовательностью и растут вместе со временем создания,
+-- поэтому старые задачи лежат в старых секциях, а поиск по id и keyset-пагинация по id отсекают лишние секции.
+
+--changeset todo:task_V009_partitioned_table context:partitioned splitStatements:false
+CREATE FUNCTION task_partition_size() RETURNS BIGINT AS
+$$
+SELECT 5000000::BIGINT
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Создает секции после последней существующей до секции, в которую попадает p_upto.
+-- Секции, удаленные по сроку хранения, заново не создаются.
+CREATE FUNCTION task_partitions_create(p_parent REGCLASS, p_upto BIGINT) RETURNS INT AS
+$$
+DECLARE
+    v_size    BIGINT := task_partition_size();
+    v_from    BIGINT;
+    v_created INT    := 0;
+BEGIN
+    SELECT coalesce(max(substring(c.relname FROM '^tasks_p(\d+)$')::BIGINT) + 1, 0)
+    INTO v_from
+    FROM pg_inherits i
+             JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = p_parent;
+
+    FOR v_no IN v_from .. p_upto / v_size
+        LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %s FOR VALUES FROM (%s) TO (%s)',
+                           'tasks_p' || lpad(v_no::TEXT, 5, '0'), p_parent, v_no * v_size, (v_no + 1) * v_size);
+            v_created := v_created + 1;
+        END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE tasks_partitioned
+(
+    id            BIGINT       NOT NULL DEFAULT nextval('tasks_id_seq'),
+    name          VARCHAR(100) NOT NULL,
+    description   VARCHAR(1000),
+    created_at    TIMESTAMPTZ           DEFAULT CURRENT_TIMESTAMP,
+    updated_at    TIMESTAMPTZ           DEFAULT CURRENT_TIMESTAMP,
+    status        SMALLINT              DEFAULT 1,
+    priority      SMALLINT              DEFAULT 1,
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+        ) STORED,
+    version       BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT tasks_partitioned_pkey PRIMARY KEY (id)
+) PARTITION BY RANGE (id);
+
+-- Индексы получают канонические имена при переключении таблиц
+CREATE INDEX index_task_name_new ON tasks_partitioned (name);
+CREATE INDEX index_task_name_prefix_new ON tasks_partitioned (name varchar_pattern_ops);
+CREATE INDEX index_task_status_priority_updated_at_new ON tasks_partitioned (status, priority, updated_at);
+CREATE INDEX index_task_priority_updated_at_new ON tasks_partitioned (priority, updated_at);
+CREATE INDEX index_task_updated_at_id_new ON tasks_partitioned (updated_at, id);
+CREATE INDEX index_task_created_at_new ON tasks_partitioned (created_at);
+CREATE INDEX index_task_active_priority_updated_at_new ON tasks_partitioned (priority, updated_at) WHERE status IN (0, 1);
+CREATE INDEX index_task_search_vector_new ON tasks_partitioned USING GIN (search_vector);
+-- По нему задание хранения быстро находит секции, где остались незавершенные задачи
+CREATE INDEX index_task_not_completed ON tasks_partitioned (id) WHERE status IS DISTINCT FROM 2;
+
+-- Уникальный индекс секционированной таблицы обязан включать ключ секционирования, поэтому уникальность
+-- имени обеспечивает отдельная таблица, секционированная по хэшу имени.
+CREATE TABLE task_names
+(
+    name    VARCHAR(100) NOT NULL,
+    task_id BIGINT       NOT NULL,
+    PRIMARY KEY (name)
+) PARTITION BY HASH (name);
+
+DO
+$$
+    BEGIN
+        FOR v_remainder IN 0 .. 15
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF task_names FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                               'task_names_p' || lpad(v_remainder::TEXT, 2, '0'), v_remainder);
+            END LOOP;
+    END
+$$;
+
+CREATE INDEX index_task_names_task_id ON task_names (task_id);
+
+CREATE FUNCTION task_names_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.name IS DISTINCT FROM NEW.name) THEN
+        DELETE FROM task_names WHERE name = OLD.name AND task_id = OLD.id;
+    END IF;
+    -- Занятое имя приводит к нарушению уникальности task_names_pkey, как раньше tasks_name_key
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND OLD.name IS DISTINCT FROM NEW.name) THEN
+        INSERT INTO task_names (name, task_id) VALUES (NEW.name, NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_names_capture
+    AFTER INSERT OR UPDATE OR DELETE
+    ON tasks_partitioned
+    FOR EACH ROW
+EXECUTE FUNCTION task_names_capture();
+
+-- До переключения таблиц каждое изменение старой tasks повторяется в новой
+CREATE FUNCTION task_partition_mirror() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM tasks_partitioned WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+    INSERT INTO tasks_partitioned (id, name, description, created_at, updated_at, status, priority, version)
+    VALUES (NEW.id, NEW.name, NEW.description, NEW.created_at, NEW.updated_at, NEW.status, NEW.priority, NEW.version)
+    ON CONFLICT (id) DO UPDATE SET name        = EXCLUDED.name,
+                                   description = EXCLUDED.description,
+                                   created_at  = EXCLUDED.created_at,
+                                   updated_at  = EXCLUDED.updated_at,
+                                   status      = EXCLUDED.status,
+                                   priority    = EXCLUDED.priority,
+                                   version     = EXCLUDED.version;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_partition_mirror
+    AFTER INSERT OR UPDATE OR DELETE
+    ON tasks
+    FOR EACH ROW
+EXECUTE FUNCTION task_partition_mirror();
+
+-- Секции для существующих id и две секции вперед
+SELECT task_partitions_create('tasks_partitioned',
+                              greatest((SELECT coalesce(max(id), 0) FROM tasks),
+                                       coalesce(pg_sequence_last_value('tasks_id_seq'), 0))
+                                  + 2 * task_partition_size());
+
+-- Переносит строки старой tasks пачками по диапазону id, каждая пачка в своей транзакции.
+-- FOR KEY SHARE не дает параллельному DELETE удалить строку между чтением и вставкой: иначе удаленная
+-- задача появилась бы в новой таблице снова. Обычные UPDATE не ждут, их повторяет триггер зеркалирования.
+CREATE PROCEDURE task_partition_backfill(p_batch_size INT) AS
+$$
+DECLARE
+    v_from BIGINT := 0;
+    v_max  BIGINT;
+BEGIN
+    SELECT coalesce(max(id), 0) INTO v_max FROM tasks;
+    WHILE v_from <= v_max
+        LOOP
+            INSERT INTO tasks_partitioned (id, name, description, created_at, updated_at, status, priority, version)
+            SELECT id, name, description, created_at, updated_at, status, priority, version
+            FROM tasks
+            WHERE id >= v_from
+              AND id < v_from + p_batch_size
+            ORDER BY id
+            FOR KEY SHARE
+            ON CONFLICT (id) DO NOTHING;
+            COMMIT;
+            v_from := v_from + p_batch_size;
+        END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset todo:task_V009_backfill context:partitioned runInTransaction:false
+CALL task_partition_backfill(10000);
+
+--changeset todo:task_V009_switch context:partitioned splitStatements:false
+-- Старая таблица остается как tasks_legacy, ее можно удалить после проверки новой
+LOCK TABLE tasks IN ACCESS EXCLUSIVE MODE;
+
+DROP TRIGGER task_partition_mirror ON tasks;
+DROP TRIGGER task_outbox_capture ON tasks;
+-- Надгробий нет после task_V015_drop_tombstones
+DROP TRIGGER IF EXISTS task_tombstone_capture ON tasks;
+DROP TRIGGER task_stats_capture_insert ON tasks;
+DROP TRIGGER task_stats_capture_update ON tasks;
+DROP TRIGGER task_stats_capture_delete ON tasks;
+DROP FUNCTION task_partition_mirror();
+DROP PROCEDURE task_partition_backfill(INT);
+
+ALTER TABLE tasks RENAME TO tasks_legacy;
+ALTER INDEX tasks_pkey RENAME TO tasks_legacy_pkey;
+-- Индексы имени могли быть уже заменены миграцией task_V010_name_lower
+ALTER INDEX IF EXISTS tasks_name_key RENAME TO tasks_legacy_name_key;
+ALTER INDEX IF EXISTS index_task_name RENAME TO index_task_legacy_name;
+ALTER INDEX IF EXISTS index_task_name_prefix RENAME TO index_task_legacy_name_prefix;
+ALTER INDEX IF EXISTS index_task_lower_name RENAME TO index_task_legacy_lower_name;
+ALTER INDEX index_task_status_priority_updated_at RENAME TO index_task_legacy_status_priority_updated_at;
+ALTER INDEX index_task_priority_updated_at RENAME TO index_task_legacy_priority_updated_at;
+ALTER INDEX index_task_updated_at_id RENAME TO index_task_legacy_updated_at_id;
+ALTER INDEX index_task_created_at RENAME TO index_task_legacy_created_at;
+ALTER INDEX index_task_active_priority_updated_at RENAME TO index_task_legacy_active_priority_updated_at;
+ALTER INDEX index_task_search_vector RENAME TO index_task_legacy_search_vector;
+
+ALTER TABLE tasks_partitioned RENAME TO tasks;
+ALTER INDEX tasks_partitioned_pkey RENAME TO tasks_pkey;
+ALTER INDEX index_task_name_new RENAME TO index_task_name;
+ALTER INDEX index_task_name_prefix_new RENAME TO index_task_name_prefix;
+ALTER INDEX index_task_status_priority_updated_at_new RENAME TO index_task_status_priority_updated_at;
+ALTER INDEX index_task_priority_updated_at_new RENAME TO index_task_priority_updated_at;
+ALTER INDEX index_task_updated_at_id_new RENAME TO index_task_updated_at_id;
+ALTER INDEX index_task_created_at_new RENAME TO index_task_created_at;
+ALTER INDEX index_task_active_priority_updated_at_new RENAME TO index_task_active_priority_updated_at;
+ALTER INDEX index_task_search_vector_new RENAME TO index_task_search_vector;
+ALTER SEQUENCE tasks_id_seq OWNED BY tasks.id;
+
+-- Строчные триггеры копируются во все секции, триггеры уровня оператора с таблицами переходов
+-- срабатывают на родительской таблице для строк всех секций
+CREATE TRIGGER task_outbox_capture
+    AFTER INSERT OR UPDATE OR DELETE
+    ON tasks
+    FOR EACH ROW
+EXECUTE FUNCTION task_outbox_capture();
+
+CREATE TRIGGER task_stats_capture_insert
+    AFTER INSERT
+    ON tasks
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
+
+CREATE TRIGGER task_stats_capture_update
+    AFTER UPDATE
+    ON tasks
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
+
+CREATE TRIGGER task_stats_capture_delete
+    AFTER DELETE
+    ON tasks
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT
+EXECUTE FUNCTION task_stats_capture();
+
+--changeset todo:task_V009_retention context:partitioned splitStatements:false
+-- Секция удаляется DROP, когда все ее задачи завершены и не менялись дольше срока хранения. DROP секции не оставляет
+-- мертвых строк и не трогает индексы остальных секций, в отличие от DELETE. Отсоединение секции в PostgreSQL 13
+-- берет ACCESS EXCLUSIVE на tasks, с 14 оно выполняется CONCURRENTLY без блокировки чтения и записи, см.
+-- TaskPartitionMaintenance. Время ожидания блокировок задает вызывающий код через lock_timeout.
+
+-- Есть ли в секции незавершенные задачи или задачи, измененные позже p_retention назад
+CREATE FUNCTION task_partition_busy(p_part REGCLASS, p_retention INTERVAL) RETURNS BOOLEAN AS
+$$
+DECLARE
+    v_busy BOOLEAN;
+BEGIN
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE status IS DISTINCT FROM 2) '
+                       || 'OR EXISTS (SELECT 1 FROM %s WHERE updated_at >= now() - $1)', p_part, p_part)
+        INTO v_busy USING p_retention;
+    RETURN v_busy;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Возвращает самую старую секцию, которую можно удалить, или NULL. Секция не блокируется, условие нужно проверить
+-- заново после блокировки или отсоединения.
+CREATE FUNCTION task_partition_find_expired(p_parent REGCLASS, p_retention INTERVAL) RETURNS REGCLASS AS
+$$
+DECLARE
+    v_size   BIGINT := task_partition_size();
+    -- Приложение могло получить от последовательности блок id незадолго до последнего значения,
+    -- поэтому секции ближе одной секции к нему не удаляются
+    v_closed BIGINT := coalesce(pg_sequence_last_value('tasks_id_seq'), 0) - v_size;
+    v_part   REGCLASS;
+    v_no     BIGINT;
+BEGIN
+    FOR v_part, v_no IN
+        SELECT c.oid::REGCLASS, substring(c.relname FROM '^tasks_p(\d+)$')::BIGINT
+        FROM pg_inherits i
+                 JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = p_parent
+        ORDER BY 2
+        LOOP
+            EXIT WHEN (v_no + 1) * v_size > v_closed;
+            CONTINUE WHEN task_partition_busy(v_part, p_retention);
+            RETURN v_part;
+        END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Триггеры при DROP не срабатывают, поэтому события ленты, счетчики и имена задач секции обновляются здесь
+CREATE FUNCTION task_partition_forget(p_part REGCLASS) RETURNS VOID AS
+$$
+DECLARE
+    v_size BIGINT := task_partition_size();
+    v_no   BIGINT;
+BEGIN
+    SELECT substring(relname FROM '^tasks_p(\d+)$')::BIGINT INTO v_no FROM pg_class WHERE oid = p_part;
+    EXECUTE format('INSERT INTO task_outbox (task_id, event_type) SELECT id, ''DELETED'' FROM %s ORDER BY id', p_part);
+    EXECUTE format('INSERT INTO task_counts (status, priority, shard, count) '
+                       || 'SELECT coalesce(status, -1), coalesce(priority, -1), 0, -count(*) FROM %s GROUP BY 1, 2 '
+                       || 'ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count',
+                   p_part);
+    DELETE FROM task_names WHERE task_id >= v_no * v_size AND task_id < (v_no + 1) * v_size;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Для PostgreSQL 13: удаляет самую старую секцию, которую можно удалить, в одной транзакции.
+-- ACCESS EXCLUSIVE на p_parent берет только DETACH в конце и держит до коммита, то есть на время DETACH и DROP.
+-- Возвращает имя удаленной секции или NULL, если удалять нечего.
+CREATE FUNCTION task_partition_drop_expired(p_parent REGCLASS, p_retention INTERVAL) RETURNS TEXT AS
+$$
+DECLARE
+    v_part REGCLASS := task_partition_find_expired(p_parent, p_retention);
+    v_name TEXT     := v_part::TEXT;
+BEGIN
+    IF v_part IS NULL THEN
+        RETURN NULL;
+    END IF;
+    -- Блокировка запрещает запись в секцию до конца транзакции, после нее условие проверяется заново
+    EXECUTE format('LOCK TABLE %s IN EXCLUSIVE MODE', v_part);
+    IF task_partition_busy(v_part, p_retention) THEN
+        RETURN NULL;
+    END IF;
+
+    PERFORM task_partition_forget(v_part);
+    EXECUTE format('ALTER TABLE %s DETACH PARTITION %s', p_parent, v_part);
+    EXECUTE format('DROP TABLE %s', v_part);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Для PostgreSQL 14 и новее: удаляет секцию, уже отсоединенную через DETACH PARTITION CONCURRENTLY.
+-- Если задачи секции успели изменить до отсоединения, секция присоединяется обратно: ограничение, которое
+-- добавляет DETACH CONCURRENTLY, избавляет ATTACH от проверки строк, и ATTACH не блокирует запись в p_parent.
+-- Возвращает имя удаленной секции или NULL, если секция присоединена обратно.
+CREATE FUNCTION task_partition_drop_detached(p_parent REGCLASS, p_part REGCLASS, p_retention INTERVAL) RETURNS TEXT AS
+$$
+DECLARE
+    v_size BIGINT := task_partition_size();
+    v_name TEXT   := p_part::TEXT;
+    v_no   BIGINT;
+BEGIN
+    EXECUTE format('LOCK TABLE %s IN EXCLUSIVE MODE', p_part);
+    IF task_partition_busy(p_part, p_retention) THEN
+        SELECT substring(relname FROM '^tasks_p(\d+)$')::BIGINT INTO v_no FROM pg_class WHERE oid = p_part;
+        EXECUTE format('ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM (%s) TO (%s)',
+                       p_parent, p_part, v_no * v_size, (v_no + 1) * v_size);
+        RETURN NULL;
+    END IF;
+
+    PERFORM task_partition_forget(p_part);
+    EXECUTE format('DROP TABLE %s', p_part);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
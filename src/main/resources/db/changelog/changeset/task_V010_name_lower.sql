@@ -0,0 +1,46 @@
+--liquibase formatted sql
+
+-- Один индекс по lower(name) заменяет tasks_name_key, index_task_name и index_task_name_prefix: text_pattern_ops
+-- поддерживает и равенство, и LIKE по префиксу. Точный поиск по имени использует его же через условие
+-- lower(name) = lower(?) AND name = ?. Имена, совпадающие без учета регистра, до миграции нужно переименовать.
+
+--changeset todo:task_V010_lower_name context:!partitioned runInTransaction:false
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:0 SELECT count(*) FROM (SELECT lower(name) FROM tasks GROUP BY 1 HAVING count(*) > 1) d
+-- CONCURRENTLY не блокирует запись в tasks на время построения. Если построение прервется или параллельно появятся
+-- имена, совпадающие без учета регистра, останется индекс в состоянии INVALID: его нужно удалить через
+-- DROP INDEX CONCURRENTLY перед повторным запуском.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS index_task_lower_name ON tasks (lower(name) text_pattern_ops);
+
+--changeset todo:task_V010_drop_name_indexes context:!partitioned runInTransaction:false
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:1 SELECT count(*) FROM pg_index WHERE indexrelid = to_regclass('index_task_lower_name') AND indisvalid
+-- Прежние индексы удаляются только после того, как новый построен и проверяет уникальность вместо tasks_name_key.
+-- Удаление ограничения меняет только каталог, ACCESS EXCLUSIVE держится на время этого изменения, без чтения таблицы.
+ALTER TABLE tasks DROP CONSTRAINT IF EXISTS tasks_name_key;
+DROP INDEX CONCURRENTLY IF EXISTS index_task_name;
+DROP INDEX CONCURRENTLY IF EXISTS index_task_name_prefix;
+
+--changeset todo:task_V010_lower_name_partitioned context:partitioned splitStatements:false
+--preconditions onFail:HALT onError:HALT
+--precondition-sql-check expectedResult:0 SELECT count(*) FROM (SELECT lower(name) FROM tasks GROUP BY 1 HAVING count(*) > 1) d
+-- В секционированной tasks индекс не уникальный, уникальность lower(name) проверяет task_names.
+-- Для секционированной таблицы CONCURRENTLY не поддерживается, индекс создается на всех секциях обычным CREATE INDEX.
+CREATE INDEX index_task_lower_name ON tasks (lower(name) text_pattern_ops);
+DROP INDEX index_task_name;
+DROP INDEX index_task_name_prefix;
+
+UPDATE task_names SET name = lower(name) WHERE name <> lower(name);
+
+CREATE OR REPLACE FUNCTION task_names_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND lower(OLD.name) IS DISTINCT FROM lower(NEW.name)) THEN
+        DELETE FROM task_names WHERE name = lower(OLD.name) AND task_id = OLD.id;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND lower(OLD.name) IS DISTINCT FROM lower(NEW.name)) THEN
+        INSERT INTO task_names (name, task_id) VALUES (lower(NEW.name), NEW.id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
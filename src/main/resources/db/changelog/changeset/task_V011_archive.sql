@@ -0,0 +1,123 @@
+--liquibase formatted sql
+
+--changeset todo:task_V011_archive_table
+-- Архив только дополняется и читается по id, поэтому страницы заполняются полностью, а из индексов остается только PK.
+-- С toast_tuple_target = 128 длинные описания сжимаются, а не хранятся как есть.
+CREATE TABLE tasks_archive
+(
+    id          BIGINT PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL,
+    description VARCHAR(1000),
+    created_at  TIMESTAMPTZ,
+    updated_at  TIMESTAMPTZ,
+    status      SMALLINT,
+    priority    SMALLINT,
+    version     BIGINT       NOT NULL,
+    archived_at TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP
+) WITH (fillfactor = 100, toast_tuple_target = 128);
+
+--changeset todo:task_V011_archive_index context:!partitioned runInTransaction:false
+-- Задание архивации выбирает старые завершенные задачи по этому индексу, не читая остальные.
+-- CONCURRENTLY не блокирует запись в tasks. Если создание прервется, останется индекс в состоянии INVALID:
+-- его нужно удалить через DROP INDEX CONCURRENTLY перед повторным запуском.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS index_task_completed_updated_at ON tasks (updated_at) WHERE status = 2;
+
+--changeset todo:task_V011_archive_triggers splitStatements:false
+-- Задание архивации удаляет задачи из tasks с todo.archiving = on. Для ленты изменений это событие ARCHIVED,
+-- надгробие не пишется, потому что задача по-прежнему читается по id, и счетчики задач не уменьшаются.
+CREATE FUNCTION task_archiving() RETURNS BOOLEAN AS
+$$
+SELECT coalesce(current_setting('todo.archiving', TRUE), '') = 'on'
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION task_outbox_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO task_outbox (task_id, event_type)
+        VALUES (OLD.id, CASE WHEN task_archiving() THEN 'ARCHIVED' ELSE 'DELETED' END);
+        RETURN OLD;
+    END IF;
+    INSERT INTO task_outbox (task_id, event_type, payload)
+    VALUES (NEW.id, CASE TG_OP WHEN 'INSERT' THEN 'CREATED' ELSE 'UPDATED' END, to_jsonb(NEW) - 'search_vector');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION task_tombstone_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF task_archiving() THEN
+        RETURN OLD;
+    END IF;
+    INSERT INTO task_tombstones (task_id) VALUES (OLD.id)
+    ON CONFLICT (task_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION task_stats_capture() RETURNS TRIGGER AS
+$$
+DECLARE
+    v_shard SMALLINT := floor(random() * 16);
+    v_today DATE     := (CURRENT_TIMESTAMP AT TIME ZONE 'UTC')::date;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT coalesce(status, -1), coalesce(priority, -1), v_shard, count(*)
+        FROM new_rows
+        GROUP BY 1, 2
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+
+        INSERT INTO task_daily_stats (day, shard, created, completed)
+        SELECT (coalesce(created_at, CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::date, v_shard,
+               count(*), count(*) FILTER (WHERE status = 2)
+        FROM new_rows
+        GROUP BY 1
+        ON CONFLICT (day, shard) DO UPDATE SET created   = task_daily_stats.created + EXCLUDED.created,
+                                               completed = task_daily_stats.completed + EXCLUDED.completed;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT s, p, v_shard, sum(d)
+        FROM (SELECT coalesce(status, -1) AS s, coalesce(priority, -1) AS p, -1 AS d FROM old_rows
+              UNION ALL
+              SELECT coalesce(status, -1), coalesce(priority, -1), 1 FROM new_rows) c
+        GROUP BY s, p
+        HAVING sum(d) <> 0
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+
+        INSERT INTO task_daily_stats (day, shard, created, completed)
+        SELECT v_today, v_shard, 0, count(*)
+        FROM new_rows n
+                 JOIN old_rows o ON o.id = n.id
+        WHERE n.status = 2
+          AND o.status IS DISTINCT FROM 2
+        HAVING count(*) > 0
+        ON CONFLICT (day, shard) DO UPDATE SET completed = task_daily_stats.completed + EXCLUDED.completed;
+    ELSIF NOT task_archiving() THEN
+        INSERT INTO task_counts (status, priority, shard, count)
+        SELECT coalesce(status, -1), coalesce(priority, -1), v_shard, -count(*)
+        FROM old_rows
+        GROUP BY 1, 2
+        ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset todo:task_V011_archive_index_legacy context:partitioned splitStatements:false
+-- Если секционирование включено позже архива, task_V009_switch оставил индекс на tasks_legacy под прежним именем,
+-- а у новой секционированной tasks его нет. Индекс старой таблицы переименовывается, как остальные в task_V009_switch.
+DO
+$$
+BEGIN
+    IF EXISTS(SELECT 1 FROM pg_indexes WHERE indexname = 'index_task_completed_updated_at' AND tablename = 'tasks_legacy') THEN
+        ALTER INDEX index_task_completed_updated_at RENAME TO index_task_legacy_completed_updated_at;
+    END IF;
+END;
+$$;
+
+--changeset todo:task_V011_archive_index_partitioned context:partitioned runInTransaction:false
+-- Для секционированной таблицы CONCURRENTLY не поддерживается, индекс создается на всех секциях обычным CREATE INDEX.
+-- Он создается отдельно от остальных изменений миграции, поэтому запись в tasks ждет только его построения.
+CREATE INDEX IF NOT EXISTS index_task_completed_updated_at ON tasks (updated_at) WHERE status = 2;
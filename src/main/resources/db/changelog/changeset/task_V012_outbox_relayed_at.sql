@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset todo:task_V012_outbox_relayed_at
+-- Время назначения позиции. relay назначает позиции по одному и берет clock_timestamp() после снимка, поэтому
+-- relayed_at растет вместе с позицией и больше времени коммита события. По нему отметка времени первой
+-- синхронизации переводится в позицию ленты.
+ALTER TABLE task_outbox ADD COLUMN relayed_at TIMESTAMPTZ;
+
+-- Для уже опубликованных событий время назначения неизвестно, берется время события
+UPDATE task_outbox SET relayed_at = created_at WHERE position IS NOT NULL;
+
+CREATE INDEX index_task_outbox_relayed_at ON task_outbox (relayed_at) WHERE position IS NOT NULL;
@@ -0,0 +1,30 @@
+--liquibase formatted sql
+
+-- Фильтр читает страницы по курсору: WHERE ... AND id > ? ORDER BY id LIMIT ?. Индексы task_V003_filter_indexes.sql
+-- отдают совпадения в порядке updated_at, и для широкого фильтра БД сортирует все совпадения ради одной страницы.
+-- В этих индексах id идет сразу за колонками с равенством, поэтому страница читается по порядку id и скан
+-- останавливается на limit строках. Индексы с updated_at остаются для узких диапазонов дат.
+
+--changeset todo:task_V013_filter_keyset_indexes context:!partitioned runInTransaction:false
+-- CONCURRENTLY не блокирует запись в tasks. Если создание прервется, останется индекс в состоянии INVALID:
+-- его нужно удалить через DROP INDEX CONCURRENTLY перед повторным запуском.
+CREATE INDEX CONCURRENTLY index_task_status_priority_id ON tasks (status, priority, id);
+CREATE INDEX CONCURRENTLY index_task_active_priority_id ON tasks (priority, id) WHERE status IN (0, 1);
+
+--changeset todo:task_V013_filter_keyset_indexes_partitioned context:partitioned splitStatements:false
+-- Для секционированной таблицы CONCURRENTLY не поддерживается, индексы создаются на всех секциях обычным CREATE INDEX.
+-- Если секционирование включено позже этой миграции, индексы старой таблицы переименовываются, как в task_V009_switch.
+DO
+$$
+BEGIN
+    IF EXISTS(SELECT 1 FROM pg_indexes WHERE indexname = 'index_task_status_priority_id' AND tablename = 'tasks_legacy') THEN
+        ALTER INDEX index_task_status_priority_id RENAME TO index_task_legacy_status_priority_id;
+    END IF;
+    IF EXISTS(SELECT 1 FROM pg_indexes WHERE indexname = 'index_task_active_priority_id' AND tablename = 'tasks_legacy') THEN
+        ALTER INDEX index_task_active_priority_id RENAME TO index_task_legacy_active_priority_id;
+    END IF;
+END;
+$$;
+
+CREATE INDEX IF NOT EXISTS index_task_status_priority_id ON tasks (status, priority, id);
+CREATE INDEX IF NOT EXISTS index_task_active_priority_id ON tasks (priority, id) WHERE status IN (0, 1);
@@ -0,0 +1,21 @@
+--liquibase formatted sql
+
+--changeset todo:task_V014_archive_delete_trigger splitStatements:false
+-- Задача, удаленная из архива, для клиентов исчезает так же, как удаленная из tasks: событие DELETED в ленте
+-- изменений и уменьшение счетчиков, которые при архивации не уменьшались.
+CREATE FUNCTION task_archive_delete_capture() RETURNS TRIGGER AS
+$$
+BEGIN
+    INSERT INTO task_outbox (task_id, event_type) VALUES (OLD.id, 'DELETED');
+    INSERT INTO task_counts (status, priority, shard, count)
+    VALUES (coalesce(OLD.status, -1), coalesce(OLD.priority, -1), floor(random() * 16), -1)
+    ON CONFLICT (status, priority, shard) DO UPDATE SET count = task_counts.count + EXCLUDED.count;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER task_archive_delete_capture
+    AFTER DELETE
+    ON tasks_archive
+    FOR EACH ROW
+EXECUTE FUNCTION task_archive_delete_capture();
@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset todo:task_V015_drop_tombstones splitStatements:false
+-- Инкрементальная синхронизация читает удаления из ленты изменений task_outbox, надгробия больше никто не читает.
+-- Триггер на каждое удаление писал строку, которую потом удаляло только задание очистки.
+DROP TRIGGER IF EXISTS task_tombstone_capture ON tasks;
+DROP FUNCTION IF EXISTS task_tombstone_capture();
+DROP TABLE IF EXISTS task_tombstones;
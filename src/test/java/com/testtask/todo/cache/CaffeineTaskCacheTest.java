@@ -0,0 +1,86 @@
+package com.testtask.todo.cache;
+
+import com.testtask.todo.config.TaskCacheProperties;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.exception.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineTaskCacheTest {
+
+    private CaffeineTaskCache taskCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        taskCache = new CaffeineTaskCache(new TaskCacheProperties());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_LoadsOnce() {
+        taskCache.get(1L, this::load);
+        TaskDto actual = taskCache.get(1L, this::load);
+
+        assertEquals("task1", actual.getName());
+        assertEquals(1, loads.get());
+        assertEquals(1, taskCache.stats().hitCount());
+        assertEquals(1, taskCache.stats().missCount());
+    }
+
+    @Test
+    void getByName_UsesIdIndex() {
+        taskCache.get(1L, this::load);
+        TaskDto actual = taskCache.getByName("task1", name -> fail("Should be served from cache"));
+
+        assertEquals(1L, actual.getId());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evict_ReloadsTask() {
+        taskCache.get(1L, this::load);
+        taskCache.evict(1L);
+        taskCache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_DoesNotCacheTaskLoadedBeforeEviction() {
+        taskCache.get(1L, id -> {
+            TaskDto stale = load(id);
+            taskCache.evict(id);
+            return stale;
+        });
+        taskCache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_ReturnsCopy() {
+        taskCache.get(1L, this::load).setName("changed");
+
+        assertEquals("task1", taskCache.get(1L, this::load).getName());
+    }
+
+    @Test
+    void get_DoesNotCacheMissingTask() {
+        assertThrows(EntityNotFoundException.class, () -> taskCache.get(2L, id -> {
+            throw new EntityNotFoundException("Task with id " + id + " not found");
+        }));
+        taskCache.get(2L, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    private TaskDto load(long id) {
+        loads.incrementAndGet();
+        return TaskDto.builder().id(id).name("task" + id).build();
+    }
+}
@@ -1,31 +1,62 @@
 package com.testtask.todo.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.testtask.todo.dto.CursorPageDto;
+import com.testtask.todo.dto.TaskChangeDto;
 import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskImportResultDto;
+import com.testtask.todo.dto.TaskStatsDto;
+import com.testtask.todo.dto.TaskSyncDto;
 import com.testtask.todo.entity.Priority;
 import com.testtask.todo.entity.Status;
 import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.outbox.TaskOutboxRelay;
+import com.testtask.todo.repository.TaskArchiveRepository;
+import com.testtask.todo.repository.TaskChangeRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -43,6 +74,21 @@ class TaskControllerTest {
     @Autowired
     private TaskController taskController;
 
+    @Autowired
+    private TaskOutboxRelay taskOutboxRelay;
+
+    @Autowired
+    private TaskChangeRepository taskChangeRepository;
+
+    @Autowired
+    private TaskArchiveRepository taskArchiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private TaskDto taskDto;
     private TaskDto expected;
 
@@ -91,7 +137,8 @@ class TaskControllerTest {
                 .andExpect(status().isCreated())
                 .andReturn();
         TaskDto actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
-        assertEquals(6, actual.getId());
+        assertTrue(actual.getId() > 5);
+        assertEquals(taskDto.getName(), actual.getName());
     }
 
     @Test
@@ -113,6 +160,47 @@ class TaskControllerTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void getTaskByName_IgnoreCase() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/name")
+                        .param("name", "tASK1")
+                        .param("ignoreCase", "true"))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskDto actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
+        assertEquals(expected, actual);
+
+        mockMvc.perform(get("/tasks/name")
+                        .param("name", "tASK1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getTasksByNamePrefix() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/name-prefix")
+                        .param("prefix", "tASK4"))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskDto[] actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto[].class);
+        assertEquals(List.of(4L), Arrays.stream(actual).map(TaskDto::getId).toList());
+
+        mockMvc.perform(get("/tasks/name-prefix")
+                        .param("prefix", "Task_"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        mockMvc.perform(get("/tasks/name-prefix")
+                        .param("prefix", ""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void autocompleteNames() throws Exception {
+        mockMvc.perform(get("/tasks/autocomplete")
+                        .param("prefix", "TASK5"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[\"Task5\"]"));
+    }
+
     @Test
     void updateTask() throws Exception {
         expected.setName("qwerty");
@@ -123,7 +211,7 @@ class TaskControllerTest {
                         .content(json))
                 .andExpect(status().isOk());
 
-        TaskDto actual = taskController.getTaskByName("qwerty");
+        TaskDto actual = taskController.getTaskByName("qwerty", false);
         assertEquals("qwerty", actual.getName());
     }
 
@@ -132,7 +220,7 @@ class TaskControllerTest {
         mockMvc.perform(delete("/tasks/{id}", 5L))
                 .andExpect(status().isOk());
 
-        assertThrows(EntityNotFoundException.class, () -> taskController.getTask(5L));
+        assertThrows(EntityNotFoundException.class, () -> taskController.getTask(5L, null, webRequest()));
     }
 
     @Test
@@ -144,4 +232,691 @@ class TaskControllerTest {
 
         assertEquals(3, taskDtos.length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllTasks_OrderedById() throws Exception {
+        // UPDATE переносит строку в конец таблицы, и без ORDER BY первая задача оказалась бы на другой странице
+        jdbcTemplate.update("UPDATE tasks SET description = description WHERE id = (SELECT min(id) FROM tasks)");
+        List<Long> expectedIds = jdbcTemplate.queryForList("SELECT id FROM tasks ORDER BY id LIMIT 3", Long.class);
+
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/page/{offset}/limit/{limit}", 0, 3))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskDto[] taskDtos = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto[].class);
+        assertEquals(expectedIds, Arrays.stream(taskDtos).map(TaskDto::getId).toList());
+
+        mvcResult = mockMvc.perform(get("/tasks/page/{offset}/limit/{limit}", 0, 3)
+                        .param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andReturn();
+        taskDtos = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto[].class);
+        assertEquals(expectedIds, Arrays.stream(taskDtos).map(TaskDto::getId).toList());
+    }
+
+    @Test
+    void getTask_NotModified() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/{id}", 1L))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = mvcResult.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        assertNotNull(eTag);
+        assertNotNull(lastModified);
+
+        mvcResult = mockMvc.perform(get("/tasks/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals(0, mvcResult.getResponse().getContentLength());
+        assertEquals(eTag, mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(get("/tasks/{id}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAllTasks_NotModified() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/page/{offset}/limit/{limit}", 0, 3))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("W/"));
+
+        mockMvc.perform(get("/tasks/page/{offset}/limit/{limit}", 0, 3)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/tasks/page/{offset}/limit/{limit}", 0, 2)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getTasksByCursor_NotModified() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/cursor")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/tasks/cursor")
+                        .param("limit", "2")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getTasksByCursor() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/cursor")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        CursorPageDto<TaskDto> page = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(1L, page.getItems().get(0).getId());
+        assertNotNull(page.getNextCursor());
+
+        mvcResult = mockMvc.perform(get("/tasks/cursor")
+                        .param("cursor", page.getNextCursor())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        page = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+
+        assertEquals(3L, page.getItems().get(0).getId());
+    }
+
+    @Test
+    void getTask_Fields() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/{id}", 1L)
+                        .param("fields", "id,name,status"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode actual = objectMapper.readTree(mvcResult.getResponse().getContentAsString());
+
+        assertEquals(List.of("id", "name", "status"), fieldNames(actual));
+        assertEquals("Task1", actual.get("name").asText());
+        assertNotNull(mvcResult.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getTasksByCursor_Fields() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/cursor")
+                        .param("limit", "2")
+                        .param("fields", "name"))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode page = objectMapper.readTree(mvcResult.getResponse().getContentAsString());
+
+        assertEquals(2, page.get("items").size());
+        assertEquals(List.of("name"), fieldNames(page.get("items").get(0)));
+        assertNotNull(page.get("nextCursor").textValue());
+
+        mockMvc.perform(get("/tasks/cursor")
+                        .param("fields", "name,secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTasksByCursor_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/tasks/cursor")
+                        .param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createUpdateAndDeleteTasksInBatch() throws Exception {
+        List<TaskDto> taskDtos = List.of(
+                TaskDto.builder().name("batch1").status(Status.PENDING).priority(Priority.LOW).build(),
+                TaskDto.builder().name("batch2").status(Status.PENDING).priority(Priority.LOW).build());
+        MvcResult mvcResult = mockMvc.perform(post("/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDtos)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        TaskDto[] created = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto[].class);
+        assertEquals(2, created.length);
+        assertEquals(created[0].getId() + 1, created[1].getId());
+
+        created[0].setStatus(Status.COMPLETED);
+        created[1].setStatus(Status.COMPLETED);
+        mockMvc.perform(patch("/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(created)))
+                .andExpect(status().isOk());
+        assertEquals(Status.COMPLETED, taskController.getTaskByName("batch2", false).getStatus());
+
+        mockMvc.perform(delete("/tasks/batch")
+                        .param("ids", created[0].getId() + "," + created[1].getId()))
+                .andExpect(status().isOk());
+        assertThrows(EntityNotFoundException.class, () -> taskController.getTaskByName("batch1", false));
+    }
+
+    @Test
+    void createTasksInBatch_InvalidTask() throws Exception {
+        List<TaskDto> taskDtos = List.of(TaskDto.builder().description("without name").build());
+        mockMvc.perform(post("/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDtos)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTask_NoStaleReadAfterUpdate() throws Exception {
+        TaskDto cached = taskController.getTask(3L, null, webRequest()).getBody();
+
+        cached.setDescription("updated description");
+        mockMvc.perform(put("/tasks/{id}", 3L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cached)))
+                .andExpect(status().isOk());
+
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/{id}", 3L))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskDto actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
+        assertEquals("updated description", actual.getDescription());
+        assertEquals("updated description", taskController.getTaskByName("Task3", false).getDescription());
+    }
+
+    @Test
+    void exportTasks_Ndjson() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/export")
+                        .param("format", "ndjson"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+
+        assertTrue(lines.length >= 4);
+        assertEquals(expected, objectMapper.readValue(lines[0], TaskDto.class));
+    }
+
+    @Test
+    void exportTasks_Csv() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/export")
+                        .param("format", "CSV"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+
+        assertEquals("id,name,description,created_at,updated_at,status,priority", lines[0]);
+        assertTrue(lines[1].startsWith("1,Task1,This is a task #1,"));
+    }
+
+    @Test
+    void exportTasks_UnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/tasks/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importTasks_Ndjson() throws Exception {
+        String ndjson = """
+                {"name":"import1","description":"first","status":"PENDING","priority":"HIGH"}
+                {"name":"Task1"}
+                {"description":"without name"}
+                {"name":"import1"}
+                not json
+                {"name":"import2"}
+                """;
+        MvcResult mvcResult = mockMvc.perform(post("/tasks/import")
+                        .param("format", "ndjson")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskImportResultDto.class);
+
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(2L, 3L, 4L, 5L), result.getRejects().stream().map(reject -> reject.getLine()).toList());
+        TaskDto imported = taskController.getTaskByName("import1", false);
+        assertEquals("first", imported.getDescription());
+        assertEquals(Priority.HIGH, imported.getPriority());
+    }
+
+    @Test
+    void importTasks_RejectsNamesThatDifferOnlyInCase() throws Exception {
+        String ndjson = """
+                {"name":"TASK2"}
+                {"name":"caseImport"}
+                {"name":"CaseImport"}
+                """;
+        MvcResult mvcResult = mockMvc.perform(post("/tasks/import")
+                        .param("format", "ndjson")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskImportResultDto.class);
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(1L, 3L), result.getRejects().stream().map(reject -> reject.getLine()).toList());
+    }
+
+    @Test
+    void importTasks_Csv() throws Exception {
+        String csv = """
+                name,description,status,priority
+                csv1,"multi
+                line, quoted",COMPLETED,LOW
+                csv2,,UNKNOWN,LOW
+                csv3,,,
+                """;
+        MvcResult mvcResult = mockMvc.perform(post("/tasks/import")
+                        .param("format", "csv")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskImportResultDto result = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskImportResultDto.class);
+
+        assertEquals(2, result.getImported());
+        assertEquals(4L, result.getRejects().get(0).getLine());
+        assertEquals("multi\nline, quoted", taskController.getTaskByName("csv1", false).getDescription());
+        assertEquals(Status.COMPLETED, taskController.getTaskByName("csv1", false).getStatus());
+    }
+
+    @Test
+    void importTasks_MalformedCsv_BadRequest() throws Exception {
+        String csv = """
+                name,description
+                csv4,ok
+                csv5,"unterminated
+                description
+                """;
+        MvcResult mvcResult = mockMvc.perform(post("/tasks/import")
+                        .param("format", "csv")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertTrue(mvcResult.getResponse().getContentAsString().contains("Unterminated quoted field at line 3"));
+        assertThrows(EntityNotFoundException.class, () -> taskController.getTaskByName("csv4", false));
+    }
+
+    @Test
+    void filterTasks() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/filter")
+                        .param("status", "IN_PROGRESS")
+                        .param("priority", "MEDIUM", "HIGH")
+                        .param("createdTo", "2023-12-08T00:00:00")
+                        .param("namePrefix", "Task"))
+                .andExpect(status().isOk())
+                .andReturn();
+        CursorPageDto<TaskDto> page = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(expected, page.getItems().get(0));
+    }
+
+    @Test
+    void searchTasks() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/search")
+                        .param("q", "task 4"))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskDto[] taskDtos = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto[].class);
+
+        assertEquals(1, taskDtos.length);
+        assertEquals("Task4", taskDtos[0].getName());
+    }
+
+    @Test
+    void updateTask_IfMatch() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/{id}", 4L))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        TaskDto task = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
+        task.setStatus(Status.COMPLETED);
+
+        mvcResult = mockMvc.perform(put("/tasks/{id}", 4L)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newETag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(newETag);
+        assertNotEquals(eTag, newETag);
+        assertEquals(Status.COMPLETED, taskController.getTask(4L, null, webRequest()).getBody().getStatus());
+
+        mockMvc.perform(put("/tasks/{id}", 4L)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals(newETag, taskController.getTask(4L, null, webRequest()).getHeaders().getETag());
+    }
+
+    @Test
+    void updateTask_IfMatchNotFound() throws Exception {
+        mockMvc.perform(put("/tasks/{id}", 1000L)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDto)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchTask() throws Exception {
+        TaskDto created = taskController.createTask(TaskDto.builder()
+                .name("patch1")
+                .description("to be cleared")
+                .status(Status.PENDING)
+                .priority(Priority.LOW)
+                .build());
+        String eTag = taskController.getTask(created.getId(), null, webRequest()).getHeaders().getETag();
+
+        MvcResult mvcResult = mockMvc.perform(patch("/tasks/{id}", created.getId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"COMPLETED\",\"description\":null}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newETag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+
+        TaskDto actual = taskController.getTask(created.getId(), null, webRequest()).getBody();
+        assertEquals("patch1", actual.getName());
+        assertEquals(Priority.LOW, actual.getPriority());
+        assertEquals(Status.COMPLETED, actual.getStatus());
+        assertNull(actual.getDescription());
+        assertEquals(newETag, taskController.getTask(created.getId(), null, webRequest()).getHeaders().getETag());
+
+        mockMvc.perform(patch("/tasks/{id}", created.getId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"priority\":\"HIGH\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void patchTask_Invalid() throws Exception {
+        mockMvc.perform(patch("/tasks/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/tasks/{id}", 1L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"id\":7}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/tasks/{id}", 1000L)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"priority\":\"HIGH\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getChanges_RecordsMutationsInOrder() {
+        TaskDto created = taskController.createTask(TaskDto.builder().name("outbox1").build());
+        taskController.updateTask(created.getId(), null, TaskDto.builder().name("outbox2").build());
+        taskController.deleteTask(created.getId());
+
+        taskOutboxRelay.relay();
+
+        List<TaskChangeDto> changes = taskChangeRepository.findSince(0, 100_000).stream()
+                .filter(change -> change.getTaskId() == created.getId())
+                .toList();
+        assertEquals(List.of(TaskChangeDto.Type.CREATED, TaskChangeDto.Type.UPDATED, TaskChangeDto.Type.DELETED),
+                changes.stream().map(TaskChangeDto::getType).toList());
+        assertEquals("outbox1", changes.get(0).getTask().getName());
+        assertEquals("outbox2", changes.get(1).getTask().getName());
+        assertNull(changes.get(2).getTask());
+        assertTrue(changes.get(0).getPosition() < changes.get(1).getPosition());
+        assertTrue(changes.get(1).getPosition() < changes.get(2).getPosition());
+    }
+
+    @Test
+    void getTask_FromArchive() throws Exception {
+        TaskDto created = taskController.createTask(TaskDto.builder().name("archived1").status(Status.COMPLETED).build());
+        jdbcTemplate.update("UPDATE tasks SET updated_at = '2000-01-01 00:00:00+00' WHERE id = ?", created.getId());
+
+        List<Long> archived = transactionTemplate.execute(status ->
+                taskArchiveRepository.archiveBatch(LocalDateTime.of(2001, 1, 1, 0, 0), 100));
+
+        assertEquals(List.of(created.getId()), archived);
+        TaskDto actual = taskController.getTask(created.getId(), null, webRequest()).getBody();
+        assertEquals("archived1", actual.getName());
+        assertEquals(Status.COMPLETED, actual.getStatus());
+        mockMvc.perform(put("/tasks/{id}", created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"archived2\"}"))
+                .andExpect(status().isConflict());
+        taskController.createTask(TaskDto.builder().name("archived1").build());
+
+        taskOutboxRelay.relay();
+        List<TaskChangeDto> changes = taskChangeRepository.findSince(0, 100_000).stream()
+                .filter(change -> change.getTaskId() == created.getId())
+                .toList();
+        assertEquals(TaskChangeDto.Type.ARCHIVED, changes.get(changes.size() - 1).getType());
+    }
+
+    @Test
+    void updateAndPatchArchivedTask_Conflict() throws Exception {
+        TaskDto created = archive(TaskDto.builder().name("archived3").status(Status.COMPLETED).build());
+        String eTag = taskController.getTask(created.getId(), null, webRequest()).getHeaders().getETag();
+
+        mockMvc.perform(put("/tasks/{id}", created.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"archived4\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(put("/tasks/{id}", created.getId())
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"archived4\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/tasks/{id}", created.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"priority\":\"HIGH\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/tasks/{id}", created.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{}"))
+                .andExpect(status().isConflict());
+
+        assertEquals("archived3", taskController.getTask(created.getId(), null, webRequest()).getBody().getName());
+    }
+
+    @Test
+    void deleteArchivedTask() throws Exception {
+        TaskDto created = archive(TaskDto.builder()
+                .name("archived5")
+                .status(Status.COMPLETED)
+                .priority(Priority.LOW)
+                .build());
+        TaskStatsDto before = taskController.getStats(1);
+
+        mockMvc.perform(delete("/tasks/{id}", created.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/tasks/{id}", created.getId()))
+                .andExpect(status().isNotFound());
+        assertFalse(taskArchiveRepository.existsById(created.getId()));
+        assertEquals(count(before, Status.COMPLETED, Priority.LOW) - 1,
+                count(taskController.getStats(1), Status.COMPLETED, Priority.LOW));
+
+        taskOutboxRelay.relay();
+        List<TaskChangeDto> changes = taskChangeRepository.findSince(0, 100_000).stream()
+                .filter(change -> change.getTaskId() == created.getId())
+                .toList();
+        assertEquals(TaskChangeDto.Type.DELETED, changes.get(changes.size() - 1).getType());
+    }
+
+    @Test
+    void deleteArchivedTasksInBatch() throws Exception {
+        TaskDto created = archive(TaskDto.builder().name("archived6").status(Status.COMPLETED).build());
+
+        mockMvc.perform(delete("/tasks/batch").param("ids", String.valueOf(created.getId())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/tasks/{id}", created.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getChanges_StartsEventStream() throws Exception {
+        mockMvc.perform(get("/tasks/changes").header("Last-Event-ID", "0"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void getChanges_DeliversEvents() throws Exception {
+        taskOutboxRelay.relay();
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/changes")
+                        .header("Last-Event-ID", String.valueOf(taskChangeRepository.findLastPosition())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        TaskDto created = taskController.createTask(TaskDto.builder().name("sse1").build());
+        taskController.deleteTask(created.getId());
+        taskOutboxRelay.relay();
+
+        String body = "";
+        for (int i = 0; i < 50 && !body.contains("event:task-deleted"); i++) {
+            Thread.sleep(100);
+            body = mvcResult.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains("event:task-created"), body);
+        assertTrue(body.contains("\"name\":\"sse1\""), body);
+        assertTrue(body.indexOf("event:task-created") < body.indexOf("event:task-deleted"), body);
+    }
+
+    @Test
+    void getChangesSince() throws Exception {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(1).withNano(0);
+        TaskDto kept = taskController.createTask(TaskDto.builder().name("sync1").build());
+        TaskDto removed = taskController.createTask(TaskDto.builder().name("sync2").build());
+        taskController.deleteTask(removed.getId());
+        taskOutboxRelay.relay();
+
+        MvcResult mvcResult = mockMvc.perform(get("/tasks/changes-since/{timestamp}", since)
+                        .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        TaskSyncDto actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskSyncDto.class);
+
+        assertTrue(actual.getUpdated().stream().anyMatch(task -> task.getId().equals(kept.getId())));
+        assertTrue(actual.getUpdated().stream().noneMatch(task -> task.getId().equals(removed.getId())));
+        assertTrue(actual.getDeleted().contains(removed.getId()));
+        assertFalse(actual.isHasMore());
+        assertEquals(taskChangeRepository.findLastPosition(), actual.getPosition());
+
+        mvcResult = mockMvc.perform(get("/tasks/changes-since/{timestamp}", since)
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskSyncDto.class);
+        assertEquals(1, actual.getUpdated().size() + actual.getDeleted().size() + actual.getArchived().size());
+        assertTrue(actual.isHasMore());
+
+        mvcResult = mockMvc.perform(get("/tasks/changes-after/{position}", actual.getPosition())
+                        .param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andReturn();
+        actual = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskSyncDto.class);
+        assertTrue(actual.getDeleted().contains(removed.getId()));
+    }
+
+    @Test
+    void getChangesAfter_IncludesLateCommit() throws Exception {
+        TaskDto slow = taskController.createTask(TaskDto.builder().name("sync-slow").build());
+        taskOutboxRelay.relay();
+        long start = taskChangeRepository.findLastPosition();
+
+        TaskSyncDto first;
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE tasks SET description = 'late', updated_at = now(), version = version + 1 WHERE id = ?")) {
+                statement.setLong(1, slow.getId());
+                statement.executeUpdate();
+            }
+            // Пока транзакция открыта, другая задача меняется и клиент синхронизируется дальше ее updated_at
+            Thread.sleep(1000);
+            TaskDto fast = taskController.createTask(TaskDto.builder().name("sync-fast").build());
+            taskOutboxRelay.relay();
+            first = taskController.getChangesAfter(start, 1000);
+            assertTrue(first.getUpdated().stream().anyMatch(task -> task.getId().equals(fast.getId())));
+            assertTrue(first.getUpdated().stream().noneMatch(task -> task.getId().equals(slow.getId())));
+            connection.commit();
+        }
+        taskOutboxRelay.relay();
+
+        TaskSyncDto second = taskController.getChangesAfter(first.getPosition(), 1000);
+
+        TaskDto late = second.getUpdated().stream()
+                .filter(task -> task.getId().equals(slow.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("late", late.getDescription());
+    }
+
+    @Test
+    void getChangesSince_Expired() throws Exception {
+        mockMvc.perform(get("/tasks/changes-since/{timestamp}", LocalDateTime.now().minusYears(1).withNano(0)))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void getStats() {
+        TaskStatsDto before = taskController.getStats(1);
+        TaskDto created = taskController.createTask(TaskDto.builder()
+                .name("stats1")
+                .status(Status.PENDING)
+                .priority(Priority.HIGH)
+                .build());
+        taskController.updateTask(created.getId(), null, created.toBuilder().status(Status.COMPLETED).build());
+
+        TaskStatsDto after = taskController.getStats(1);
+
+        assertEquals(before.getTotal() + 1, after.getTotal());
+        assertEquals(count(before, Status.PENDING, Priority.HIGH), count(after, Status.PENDING, Priority.HIGH));
+        assertEquals(count(before, Status.COMPLETED, Priority.HIGH) + 1, count(after, Status.COMPLETED, Priority.HIGH));
+        assertEquals(created(before) + 1, created(after));
+    }
+
+    private static long count(TaskStatsDto stats, Status status, Priority priority) {
+        return stats.getCounts().stream()
+                .filter(count -> count.getStatus() == status && count.getPriority() == priority)
+                .mapToLong(TaskStatsDto.Count::getCount)
+                .sum();
+    }
+
+    private static long created(TaskStatsDto stats) {
+        return stats.getDaily().stream().mapToLong(TaskStatsDto.Daily::getCreated).sum();
+    }
+
+    /**
+     * Создает задачу и переносит ее в архив вместе с остальными задачами, которые тесты состарили так же.
+     */
+    private TaskDto archive(TaskDto taskDto) {
+        TaskDto created = taskController.createTask(taskDto);
+        jdbcTemplate.update("UPDATE tasks SET updated_at = '2000-01-01 00:00:00+00' WHERE id = ?", created.getId());
+        List<Long> archived = transactionTemplate.execute(status ->
+                taskArchiveRepository.archiveBatch(LocalDateTime.of(2001, 1, 1, 0, 0), 100));
+        assertTrue(archived.contains(created.getId()));
+        return created;
+    }
+
+    private static WebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,58 @@
+package com.testtask.todo.filter;
+
+import com.testtask.todo.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryCountFilterTest {
+
+    private final QueryCountInspector inspector = new QueryCountInspector();
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryCountFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new QueryCountFilter(meterRegistry, 2);
+    }
+
+    @Test
+    void recordsQueriesPerRequest() throws Exception {
+        perform(1);
+
+        DistributionSummary summary = meterRegistry.get("todo.http.server.queries").tag("uri", "/tasks/{id}").summary();
+        assertEquals(1, summary.count());
+        assertEquals(1.0, summary.totalAmount());
+        assertNull(meterRegistry.find("todo.http.server.n-plus-one").counter());
+    }
+
+    @Test
+    void countsRequestsOverThreshold() throws Exception {
+        perform(3);
+        perform(1);
+
+        Counter counter = meterRegistry.get("todo.http.server.n-plus-one").tag("uri", "/tasks/{id}").counter();
+        assertEquals(1.0, counter.count());
+        assertEquals(4.0, meterRegistry.get("todo.http.server.queries").summary().totalAmount());
+    }
+
+    private void perform(int queries) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks/1");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/tasks/{id}");
+            for (int i = 0; i < queries; i++) {
+                inspector.inspect("select 1");
+            }
+        });
+    }
+}
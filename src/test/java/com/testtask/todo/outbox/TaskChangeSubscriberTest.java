@@ -0,0 +1,90 @@
+package com.testtask.todo.outbox;
+
+import com.testtask.todo.dto.TaskChangeDto;
+import com.testtask.todo.repository.TaskChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskChangeSubscriberTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private SseEmitter emitter;
+    private TaskChangeRepository repository;
+    private TaskChangeSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        emitter = Mockito.mock(SseEmitter.class);
+        repository = Mockito.mock(TaskChangeRepository.class);
+        subscriber = new TaskChangeSubscriber(emitter, 10, tasks::add, repository, 100, 2);
+    }
+
+    @Test
+    void offer_DoesNotSendInCallerThread() throws IOException {
+        assertTrue(subscriber.offer(List.of(event(11)), 11));
+
+        Mockito.verify(emitter, Mockito.never()).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        Mockito.verify(emitter).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void offer_CatchesUpFromRepository() throws IOException {
+        Mockito.when(repository.findSince(10, 100)).thenReturn(List.of(event(11), event(12), event(13)));
+
+        subscriber.offer(List.of(event(13)), 13);
+        runTasks();
+
+        Mockito.verify(emitter, Mockito.times(3)).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void offer_ClosesSlowSubscriber() {
+        assertTrue(subscriber.offer(List.of(event(11)), 11));
+        assertTrue(subscriber.offer(List.of(event(12)), 12));
+        // Пустой пакет при непустой очереди не занимает в ней место
+        assertTrue(subscriber.offer(List.of(), 12));
+
+        assertFalse(subscriber.offer(List.of(event(13)), 13));
+        assertFalse(subscriber.offer(List.of(event(14)), 14));
+
+        runTasks();
+        Mockito.verify(emitter).complete();
+    }
+
+    @Test
+    void offer_ClosesOnSendFailure() throws IOException {
+        IOException failure = new IOException("Broken pipe");
+        Mockito.doThrow(failure).when(emitter).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+
+        subscriber.offer(List.of(event(11)), 11);
+        runTasks();
+
+        Mockito.verify(emitter).completeWithError(failure);
+        assertFalse(subscriber.offer(List.of(event(12)), 12));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static TaskChangeDto event(long position) {
+        return TaskChangeDto.builder()
+                .position(position)
+                .type(TaskChangeDto.Type.UPDATED)
+                .taskId(1L)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.testtask.todo.partition;
+
+import com.testtask.todo.config.PartitionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+@ExtendWith(MockitoExtension.class)
+class TaskPartitionMaintenanceTest {
+
+    private static final Duration RETENTION = Duration.ofDays(90);
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(200);
+
+    @Mock
+    private TaskPartitionRepository taskPartitionRepository;
+
+    private TaskPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        PartitionProperties properties = new PartitionProperties();
+        properties.setRetention(RETENTION);
+        properties.setLockTimeout(LOCK_TIMEOUT);
+        maintenance = new TaskPartitionMaintenance(taskPartitionRepository,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), properties);
+    }
+
+    @Test
+    void dropExpiredPartitions_Postgres13DetachesInTransactionWithLockTimeout() {
+        Mockito.when(taskPartitionRepository.serverVersion()).thenReturn(130006);
+        Mockito.when(taskPartitionRepository.dropExpiredPartition(RETENTION, LOCK_TIMEOUT))
+                .thenReturn("tasks_p00000", "tasks_p00001", null);
+
+        maintenance.dropExpiredPartitions();
+
+        Mockito.verify(taskPartitionRepository, Mockito.times(3)).dropExpiredPartition(RETENTION, LOCK_TIMEOUT);
+        Mockito.verify(taskPartitionRepository, Mockito.never()).detachPartitionConcurrently(Mockito.anyString());
+    }
+
+    @Test
+    void dropExpiredPartitions_Postgres13StopsWhenLockTimesOut() {
+        Mockito.when(taskPartitionRepository.serverVersion()).thenReturn(130006);
+        Mockito.when(taskPartitionRepository.dropExpiredPartition(RETENTION, LOCK_TIMEOUT))
+                .thenThrow(new CannotAcquireLockException("canceling statement due to lock timeout"));
+
+        maintenance.dropExpiredPartitions();
+
+        Mockito.verify(taskPartitionRepository, Mockito.times(1)).dropExpiredPartition(RETENTION, LOCK_TIMEOUT);
+    }
+
+    @Test
+    void dropExpiredPartitions_Postgres14DetachesConcurrently() {
+        Mockito.when(taskPartitionRepository.serverVersion()).thenReturn(140005);
+        Mockito.when(taskPartitionRepository.findExpiredPartition(RETENTION)).thenReturn("tasks_p00000", (String) null);
+        Mockito.when(taskPartitionRepository.dropDetachedPartition("tasks_p00000", RETENTION, LOCK_TIMEOUT))
+                .thenReturn("tasks_p00000");
+
+        maintenance.dropExpiredPartitions();
+
+        InOrder inOrder = Mockito.inOrder(taskPartitionRepository);
+        inOrder.verify(taskPartitionRepository).detachPartitionConcurrently("tasks_p00000");
+        inOrder.verify(taskPartitionRepository).dropDetachedPartition("tasks_p00000", RETENTION, LOCK_TIMEOUT);
+        Mockito.verify(taskPartitionRepository, Mockito.never()).dropExpiredPartition(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void dropExpiredPartitions_Postgres14FinishesInterruptedDetachFirst() {
+        Mockito.when(taskPartitionRepository.serverVersion()).thenReturn(140005);
+        Mockito.when(taskPartitionRepository.findPendingDetach()).thenReturn("tasks_p00000", (String) null);
+        Mockito.when(taskPartitionRepository.findDetachedPartition()).thenReturn("tasks_p00000", (String) null);
+        Mockito.when(taskPartitionRepository.dropDetachedPartition("tasks_p00000", RETENTION, LOCK_TIMEOUT))
+                .thenReturn("tasks_p00000");
+
+        maintenance.dropExpiredPartitions();
+
+        InOrder inOrder = Mockito.inOrder(taskPartitionRepository);
+        inOrder.verify(taskPartitionRepository).finalizeDetach("tasks_p00000");
+        inOrder.verify(taskPartitionRepository).dropDetachedPartition("tasks_p00000", RETENTION, LOCK_TIMEOUT);
+        Mockito.verify(taskPartitionRepository, Mockito.never()).detachPartitionConcurrently(Mockito.anyString());
+    }
+
+    @Test
+    void dropExpiredPartitions_Postgres14StopsWhenPartitionIsReattached() {
+        Mockito.when(taskPartitionRepository.serverVersion()).thenReturn(140005);
+        Mockito.when(taskPartitionRepository.findExpiredPartition(RETENTION)).thenReturn("tasks_p00000");
+        Mockito.when(taskPartitionRepository.dropDetachedPartition("tasks_p00000", RETENTION, LOCK_TIMEOUT))
+                .thenReturn(null);
+
+        maintenance.dropExpiredPartitions();
+
+        Mockito.verify(taskPartitionRepository, Mockito.times(1)).detachPartitionConcurrently("tasks_p00000");
+    }
+}
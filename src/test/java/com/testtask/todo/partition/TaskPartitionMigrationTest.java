@@ -0,0 +1,106 @@
+package com.testtask.todo.partition;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет включение секционирования на БД, которая уже перенесена в контексте default и содержит задачи:
+ * перенос существующих строк, зеркалирование изменений до переключения таблиц и индексы новой tasks.
+ */
+@Testcontainers
+class TaskPartitionMigrationTest {
+
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+    private static final long PARTITION_SIZE = 5_000_000L;
+
+    @Container
+    public static PostgreSQLContainer<?> POSTGRESQL_CONTAINER =
+            new PostgreSQLContainer<>("postgres:13.6");
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(POSTGRESQL_CONTAINER.getJdbcUrl(),
+                POSTGRESQL_CONTAINER.getUsername(), POSTGRESQL_CONTAINER.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void migrate_PartitionsDatabaseMigratedInDefaultContext() throws Exception {
+        migrate("default", null);
+        insertTask(1L, "Task1", 2);
+        insertTask(2L, "Task2", 0);
+        insertTask(PARTITION_SIZE + 1, "Task3", 1);
+
+        // Только task_V009_partitioned_table: новая таблица создана, изменения старой зеркалируются
+        migrate("default,partitioned", 1);
+        jdbcTemplate.update("UPDATE tasks SET name = 'Task1 renamed' WHERE id = 1");
+        jdbcTemplate.update("DELETE FROM tasks WHERE id = 2");
+        insertTask(3L, "Task4", 1);
+        assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList(
+                "SELECT id FROM tasks_partitioned ORDER BY id", Long.class));
+
+        migrate("default,partitioned", null);
+
+        assertEquals("p", jdbcTemplate.queryForObject(
+                "SELECT relkind::TEXT FROM pg_class WHERE relname = 'tasks'", String.class));
+        assertEquals(List.of("Task1 renamed", "Task4", "Task3"), jdbcTemplate.queryForList(
+                "SELECT name FROM tasks ORDER BY id", String.class));
+        assertEquals(List.of("task1 renamed", "task3", "task4"), jdbcTemplate.queryForList(
+                "SELECT name FROM task_names ORDER BY name", String.class));
+
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'tasks'", String.class);
+        assertTrue(indexes.containsAll(List.of("index_task_lower_name", "index_task_completed_updated_at",
+                "index_task_status_priority_id", "index_task_active_priority_id")), indexes.toString());
+        List<String> legacyIndexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'tasks_legacy'", String.class);
+        assertTrue(legacyIndexes.stream().allMatch(index -> index.contains("legacy")), legacyIndexes.toString());
+
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('task_tombstones')::TEXT", String.class));
+
+        // Триггеры новой таблицы: событие ленты изменений и уникальность имени без учета регистра
+        insertTask(PARTITION_SIZE + 2, "Task5", 1);
+        assertEquals(List.of("CREATED"), jdbcTemplate.queryForList(
+                "SELECT event_type FROM task_outbox WHERE task_id = ?", String.class, PARTITION_SIZE + 2));
+        assertThrows(DuplicateKeyException.class, () -> insertTask(PARTITION_SIZE + 3, "TASK5", 1));
+    }
+
+    private void migrate(String contexts, Integer count) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            Liquibase liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+            if (count != null) {
+                liquibase.update(count, new Contexts(contexts), new LabelExpression());
+            } else {
+                liquibase.update(new Contexts(contexts), new LabelExpression());
+            }
+        }
+    }
+
+    private void insertTask(long id, String name, int status) {
+        jdbcTemplate.update("INSERT INTO tasks (id, name, status) VALUES (?, ?, ?)", id, name, status);
+    }
+}
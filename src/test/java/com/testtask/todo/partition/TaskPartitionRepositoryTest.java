@@ -0,0 +1,173 @@
+package com.testtask.todo.partition;
+
+import com.testtask.todo.mapper.TaskMapperImpl;
+import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.store.PartitionedJpaTaskStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет секционированную tasks после миграции с контекстом partitioned.
+ */
+@DataJpaTest(properties = "spring.liquibase.contexts=default,partitioned")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TaskPartitionRepositoryTest {
+
+    private static final long PARTITION_SIZE = 5_000_000L;
+    private static final Duration LOCK_TIMEOUT = Duration.ofMillis(200);
+
+    @Container
+    public static PostgreSQLContainer<?> POSTGRESQL_CONTAINER =
+            new PostgreSQLContainer<>("postgres:13.6");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private JdbcTemplate jdbcTemplate;
+    private TaskPartitionRepository taskPartitionRepository;
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        POSTGRESQL_CONTAINER.start();
+
+        registry.add("spring.datasource.url", POSTGRESQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRESQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRESQL_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        taskPartitionRepository = new TaskPartitionRepository(jdbcTemplate);
+    }
+
+    @Test
+    void queryById_PrunesPartitions() {
+        String byId = explain("SELECT * FROM tasks WHERE id = " + (PARTITION_SIZE + 1));
+        String byCursor = explain("SELECT * FROM tasks WHERE id > " + PARTITION_SIZE + " ORDER BY id LIMIT 21");
+
+        assertTrue(byId.contains("tasks_p00001"), byId);
+        assertFalse(byId.contains("tasks_p00000"), byId);
+        assertFalse(byCursor.contains("tasks_p00000"), byCursor);
+    }
+
+    @Test
+    void findByName_ResolvesIdThroughTaskNames() {
+        insertTask(1L, "Task1", 1);
+        insertTask(PARTITION_SIZE + 1, "Task2", 1);
+        PartitionedJpaTaskStore taskStore = new PartitionedJpaTaskStore(taskRepository, new TaskMapperImpl());
+
+        assertEquals(PARTITION_SIZE + 1, taskStore.findByName("Task2").orElseThrow().getId());
+        assertEquals(PARTITION_SIZE + 1, taskStore.findByNameIgnoreCase("TASK2").orElseThrow().getId());
+        assertTrue(taskStore.findByName("TASK2").isEmpty());
+        assertTrue(taskStore.findByNameIgnoreCase("Task3").isEmpty());
+
+        // Одна секция task_names без Append
+        String byName = explain("SELECT task_id FROM task_names WHERE name = lower('Task2')");
+        assertFalse(byName.contains("Append"), byName);
+    }
+
+    @Test
+    void insert_RejectsDuplicateNameInOtherPartition() {
+        insertTask(1L, "duplicate", 1);
+
+        assertThrows(DuplicateKeyException.class, () -> insertTask(PARTITION_SIZE + 1, "duplicate", 1));
+    }
+
+    @Test
+    void update_MovesName() {
+        insertTask(1L, "task1", 1);
+        jdbcTemplate.update("UPDATE tasks SET name = 'renamed' WHERE id = 1");
+
+        insertTask(PARTITION_SIZE + 1, "task1", 1);
+
+        assertEquals(List.of(1L), jdbcTemplate.queryForList("SELECT task_id FROM task_names WHERE name = 'renamed'", Long.class));
+    }
+
+    @Test
+    void createPartitions_CreatesPartitionsAhead() {
+        taskPartitionRepository.createPartitions(3);
+
+        Boolean exists = jdbcTemplate.queryForObject("""
+                SELECT to_regclass('tasks_p' || lpad(((coalesce(pg_sequence_last_value('tasks_id_seq'), 0)
+                       + 3 * task_partition_size()) / task_partition_size())::TEXT, 5, '0')) IS NOT NULL
+                """, Boolean.class);
+        assertEquals(Boolean.TRUE, exists);
+    }
+
+    @Test
+    void dropExpiredPartition_DropsOnlyCompletedPartition() {
+        taskPartitionRepository.createPartitions(3);
+        insertTask(1L, "completed1", 2);
+        insertTask(2L, "completed2", 2);
+        insertTask(PARTITION_SIZE + 1, "pending", 0);
+        jdbcTemplate.update("UPDATE tasks SET updated_at = now() - interval '100 days'");
+        jdbcTemplate.queryForObject("SELECT setval('tasks_id_seq', ?)", Long.class, 3 * PARTITION_SIZE);
+
+        assertEquals("tasks_p00000", taskPartitionRepository.dropExpiredPartition(Duration.ofDays(90), LOCK_TIMEOUT));
+        assertNull(taskPartitionRepository.dropExpiredPartition(Duration.ofDays(90), LOCK_TIMEOUT));
+
+        assertEquals(List.of(PARTITION_SIZE + 1), jdbcTemplate.queryForList("SELECT id FROM tasks", Long.class));
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList(
+                "SELECT task_id FROM task_outbox WHERE event_type = 'DELETED' ORDER BY task_id", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT sum(count) FROM task_counts WHERE status = 2", Long.class));
+        insertTask(2 * PARTITION_SIZE + 1, "completed1", 1);
+    }
+
+    @Test
+    void dropDetachedPartition_ReattachesPartitionChangedBeforeDetach() {
+        taskPartitionRepository.createPartitions(3);
+        insertTask(1L, "completed1", 2);
+        insertTask(PARTITION_SIZE + 1, "pending", 0);
+        jdbcTemplate.update("UPDATE tasks SET updated_at = now() - interval '100 days'");
+        jdbcTemplate.queryForObject("SELECT setval('tasks_id_seq', ?)", Long.class, 3 * PARTITION_SIZE);
+        assertEquals("tasks_p00000", taskPartitionRepository.findExpiredPartition(Duration.ofDays(90)));
+
+        // Задачу изменили между поиском секции и ее отсоединением
+        jdbcTemplate.update("UPDATE tasks SET status = 0 WHERE id = 1");
+        jdbcTemplate.execute("ALTER TABLE tasks DETACH PARTITION tasks_p00000");
+        assertEquals("tasks_p00000", taskPartitionRepository.findDetachedPartition());
+
+        assertNull(taskPartitionRepository.dropDetachedPartition("tasks_p00000", Duration.ofDays(90), LOCK_TIMEOUT));
+        assertNull(taskPartitionRepository.findDetachedPartition());
+        assertEquals(List.of(1L, PARTITION_SIZE + 1), jdbcTemplate.queryForList("SELECT id FROM tasks ORDER BY id", Long.class));
+
+        jdbcTemplate.update("UPDATE tasks SET status = 2, updated_at = now() - interval '100 days' WHERE id = 1");
+        jdbcTemplate.execute("ALTER TABLE tasks DETACH PARTITION tasks_p00000");
+        assertEquals("tasks_p00000",
+                taskPartitionRepository.dropDetachedPartition("tasks_p00000", Duration.ofDays(90), LOCK_TIMEOUT));
+        assertNull(taskPartitionRepository.findDetachedPartition());
+        assertEquals(List.of(1L), jdbcTemplate.queryForList(
+                "SELECT task_id FROM task_outbox WHERE event_type = 'DELETED' ORDER BY task_id", Long.class));
+        assertEquals(List.of(), jdbcTemplate.queryForList("SELECT task_id FROM task_names WHERE task_id = 1", Long.class));
+    }
+
+    private void insertTask(long id, String name, int status) {
+        jdbcTemplate.update("INSERT INTO tasks (id, name, status) VALUES (?, ?, ?)", id, name, status);
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+}
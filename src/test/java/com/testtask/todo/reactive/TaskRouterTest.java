@@ -0,0 +1,218 @@
+package com.testtask.todo.reactive;
+
+import com.testtask.todo.dto.CursorPageDto;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@Testcontainers
+@Sql(scripts = {"classpath:init_task.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class TaskRouterTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Container
+    public static PostgreSQLContainer<?> POSTGRESQL_CONTAINER =
+            new PostgreSQLContainer<>("postgres:13.6");
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        POSTGRESQL_CONTAINER.start();
+
+        registry.add("spring.datasource.url", POSTGRESQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRESQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRESQL_CONTAINER::getPassword);
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + POSTGRESQL_CONTAINER.getHost() + ":"
+                + POSTGRESQL_CONTAINER.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + POSTGRESQL_CONTAINER.getDatabaseName());
+        registry.add("spring.r2dbc.username", POSTGRESQL_CONTAINER::getUsername);
+        registry.add("spring.r2dbc.password", POSTGRESQL_CONTAINER::getPassword);
+    }
+
+    @Test
+    void createTask() {
+        TaskDto taskDto = TaskDto.builder()
+                .name("reactive task")
+                .status(Status.PENDING)
+                .priority(Priority.HIGH)
+                .build();
+
+        TaskDto actual = webTestClient.post().uri("/tasks")
+                .bodyValue(taskDto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TaskDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(actual);
+        assertTrue(actual.getId() > 5);
+        assertEquals(taskDto.getName(), actual.getName());
+        assertNull(actual.getDescription());
+        assertEquals(Status.PENDING, actual.getStatus());
+        assertEquals(0L, actual.getVersion());
+    }
+
+    @Test
+    void createTask_Invalid() {
+        webTestClient.post().uri("/tasks")
+                .bodyValue(TaskDto.builder().description("no name").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.name").isEqualTo("Name is required");
+    }
+
+    @Test
+    void getTask() {
+        String eTag = webTestClient.get().uri("/tasks/{id}", 1L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Task1")
+                .jsonPath("$.status").isEqualTo(Status.IN_PROGRESS.name())
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(eTag);
+
+        webTestClient.get().uri("/tasks/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void getTask_NotFound() {
+        webTestClient.get().uri("/tasks/{id}", 1000L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("EntityNotFoundException");
+    }
+
+    @Test
+    void updateTask() {
+        TaskDto taskDto = TaskDto.builder().name("Task2 updated").status(Status.COMPLETED).build();
+        String eTag = webTestClient.get().uri("/tasks/{id}", 2L)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TaskDto.class)
+                .getResponseHeaders()
+                .getETag();
+
+        String newETag = webTestClient.put().uri("/tasks/{id}", 2L)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(taskDto)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotEquals(eTag, newETag);
+
+        webTestClient.put().uri("/tasks/{id}", 2L)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(taskDto)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.get().uri("/tasks/name?name={name}", "Task2 updated")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.status").isEqualTo(Status.COMPLETED.name());
+    }
+
+    @Test
+    void deleteTask() {
+        webTestClient.delete().uri("/tasks/{id}", 5L)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/tasks/{id}", 5L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getAllTasks() {
+        webTestClient.get().uri("/tasks/page/{offset}/limit/{limit}", 0, 3)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TaskDto.class)
+                .hasSize(3);
+    }
+
+    @Test
+    void getTasksByCursor() {
+        CursorPageDto<TaskDto> page = webTestClient.get().uri("/tasks/cursor?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageDto<TaskDto>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(page);
+        assertEquals(List.of(1L, 2L), page.getItems().stream().map(TaskDto::getId).toList());
+        assertNotNull(page.getNextCursor());
+
+        webTestClient.get().uri("/tasks/cursor?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void mvcOnlyRoutes_NotFound() {
+        webTestClient.get().uri("/tasks/filter?status=PENDING")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/tasks/stats")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.post().uri("/tasks/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void exportTasks() {
+        List<TaskDto> tasks = webTestClient.get().uri("/tasks/export?format=ndjson")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(TaskDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertNotNull(tasks);
+        assertTrue(tasks.size() >= 3);
+        assertEquals(1L, tasks.get(0).getId());
+    }
+}
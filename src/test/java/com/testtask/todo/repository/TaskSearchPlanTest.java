@@ -0,0 +1,197 @@
+package com.testtask.todo.repository;
+
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.mapper.TaskMapperImpl;
+import com.testtask.todo.store.JpaTaskStore;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.query.criteria.ValueHandlingMode;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет по EXPLAIN, какой индекс выбирает план для SQL, который Hibernate строит для фильтра из
+ * {@link TaskSpecifications} и поиска по имени. Запрос перехватывается {@link StatementInspector}, значения условий
+ * Criteria попадают в него литералами, оставшиеся параметры подставляет тест.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql(scripts = {"classpath:init_task_search.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class TaskSearchPlanTest {
+
+    private static final int LIMIT = 21;
+
+    @Container
+    public static PostgreSQLContainer<?> POSTGRESQL_CONTAINER =
+            new PostgreSQLContainer<>("postgres:13.6");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    private JpaTaskStore taskStore;
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        POSTGRESQL_CONTAINER.start();
+
+        registry.add("spring.datasource.url", POSTGRESQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRESQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRESQL_CONTAINER::getPassword);
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> {
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+                properties.put(AvailableSettings.CRITERIA_VALUE_HANDLING_MODE, ValueHandlingMode.INLINE);
+            };
+        }
+    }
+
+    static class SqlCapture implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        String last() {
+            assertFalse(statements.isEmpty(), "No SQL captured");
+            return statements.get(statements.size() - 1);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        taskStore = new JpaTaskStore(taskRepository, new TaskMapperImpl());
+    }
+
+    static Stream<Arguments> filters() {
+        LocalDateTime june = LocalDateTime.of(2023, 6, 1, 0, 0);
+        return Stream.of(
+                // Только равенства: страница читается по порядку id и останавливается на limit
+                Arguments.of(TaskFilterDto.builder()
+                                .status(List.of(Status.IN_PROGRESS))
+                                .priority(List.of(Priority.HIGH))
+                                .build(),
+                        "index_task_status_priority_id"),
+                Arguments.of(TaskFilterDto.builder()
+                                .status(List.of(Status.PENDING, Status.IN_PROGRESS))
+                                .priority(List.of(Priority.HIGH))
+                                .updatedFrom(june)
+                                .build(),
+                        "index_task_active_priority_id"),
+                // Узкий диапазон дат: совпадений меньше страницы, их дешевле найти по updated_at и отсортировать
+                Arguments.of(TaskFilterDto.builder()
+                                .status(List.of(Status.IN_PROGRESS))
+                                .priority(List.of(Priority.HIGH))
+                                .updatedFrom(june)
+                                .updatedTo(june.plusWeeks(1))
+                                .build(),
+                        "index_task_status_priority_updated_at"),
+                Arguments.of(TaskFilterDto.builder()
+                                .updatedFrom(june)
+                                .updatedTo(june.plusDays(1))
+                                .build(),
+                        "index_task_updated_at_id"),
+                Arguments.of(TaskFilterDto.builder()
+                                .createdFrom(june)
+                                .createdTo(june.plusDays(1))
+                                .build(),
+                        "index_task_created_at"),
+                Arguments.of(TaskFilterDto.builder()
+                                .namePrefix("Task1234")
+                                .build(),
+                        "index_task_lower_name"),
+                // Почти все задачи завершены, страница набирается с начала первичного ключа
+                Arguments.of(TaskFilterDto.builder()
+                                .status(List.of(Status.COMPLETED))
+                                .build(),
+                        "tasks_pkey")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void filterUsesIndex(TaskFilterDto filter, String index) {
+        sqlCapture.clear();
+        taskStore.findAfter(filter, 0, LIMIT);
+
+        assertUsesIndex(explain(sqlCapture.last(), String.valueOf(LIMIT)), index);
+    }
+
+    @Test
+    void findByNameUsesIndex() {
+        sqlCapture.clear();
+        taskRepository.findByName("Task1234");
+
+        assertUsesIndex(explain(sqlCapture.last(), "'Task1234'", "'Task1234'"), "index_task_lower_name");
+    }
+
+    /**
+     * Подставляет литералы вместо параметров запроса по порядку и возвращает план.
+     */
+    private String explain(String sql, String... literals) {
+        for (String literal : literals) {
+            sql = sql.replaceFirst("\\?", Matcher.quoteReplacement(literal));
+        }
+        assertFalse(sql.contains("?"), sql);
+        return String.join("\n", new JdbcTemplate(dataSource).queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(Pattern.compile("\\b" + index + "\\b").matcher(plan).find(), plan);
+    }
+}
@@ -0,0 +1,108 @@
+package com.testtask.todo.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaLagMonitor monitor;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new ReplicaLagMonitor(mock(DataSource.class), List.of(
+                new ReplicaLagMonitor.Replica("replica-0", mock(DataSource.class)),
+                new ReplicaLagMonitor.Replica("replica-1", mock(DataSource.class))),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2));
+        routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class), monitor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteTransaction_GoesToPrimary() {
+        monitor.updateLag(0, 0);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_GoesToReplicasInTurn() {
+        monitor.updateLag(0, 0);
+        monitor.updateLag(1, 0.5);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_SkipsLaggingAndUnavailableReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        monitor.updateLag(0, 2);
+        monitor.updateLag(1, 0);
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+
+        monitor.updateLag(1, Double.NaN);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readOnlyTransaction_SkipsReplicaWithOutdatedCheck() {
+        monitor.updateLag(0, 0, System.nanoTime() - Duration.ofSeconds(3).toNanos());
+        monitor.updateLag(1, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+
+        monitor.updateLag(1, 0, System.nanoTime() - Duration.ofSeconds(3).toNanos());
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void lagOf_MeasuresAgainstPrimaryPosition() {
+        long start = 0;
+        long second = Duration.ofSeconds(1).toNanos();
+        assertTrue(Double.isNaN(monitor.lagOf(100, start)));
+
+        monitor.recordPrimaryLsn(100, start);
+        monitor.recordPrimaryLsn(200, start + 2 * second);
+        monitor.recordPrimaryLsn(200, start + 3 * second);
+
+        assertEquals(0.0, monitor.lagOf(200, start + 3 * second));
+        assertEquals(3.0, monitor.lagOf(150, start + 3 * second));
+        // Реплика применила все полученные WAL, но не получает новые: отставание растет, пока primary пишет
+        monitor.recordPrimaryLsn(300, start + 4 * second);
+        assertEquals(1.5, monitor.lagOf(200, start + 4_500_000_000L));
+        // Позиции старше окна в 4 * maxLag забыты, отставание неизмеримо велико
+        monitor.recordPrimaryLsn(300, start + 10 * second);
+        assertEquals(Double.POSITIVE_INFINITY, monitor.lagOf(150, start + 10 * second));
+    }
+
+    @Test
+    void onPrimary_OverridesReadOnlyTransaction() {
+        monitor.updateLag(0, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY,
+                ReplicaRoutingDataSource.onPrimary(routingDataSource::determineCurrentLookupKey));
+        assertEquals("replica-0", routingDataSource.determineCurrentLookupKey());
+    }
+}
@@ -1,22 +1,41 @@
 package com.testtask.todo.service;
 
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testtask.todo.cache.NoOpTaskCache;
+import com.testtask.todo.cache.TaskCache;
+import com.testtask.todo.dto.CursorPageDto;
 import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskField;
+import com.testtask.todo.entity.Status;
 import com.testtask.todo.entity.Task;
+import com.testtask.todo.exception.DataValidationException;
 import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.PreconditionFailedException;
 import com.testtask.todo.mapper.TaskMapper;
+import com.testtask.todo.repository.TaskArchiveRepository;
 import com.testtask.todo.repository.TaskRepository;
+import com.testtask.todo.store.TaskStore;
+import com.testtask.todo.util.CursorUtils;
+import com.testtask.todo.writebehind.NoOpPendingTaskWrites;
+import com.testtask.todo.writebehind.PendingTaskWrites;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +49,16 @@ class TaskServiceTest {
     private TaskRepository taskRepository;
     @Mock
     private TaskMapper taskMapper;
+    @Mock
+    private TaskStore taskStore;
+    @Mock
+    private TaskArchiveRepository taskArchiveRepository;
+    @Spy
+    private TaskCache taskCache = new NoOpTaskCache();
+    @Spy
+    private PendingTaskWrites pendingTaskWrites = new NoOpPendingTaskWrites();
+    @Spy
+    private TaskPatchParser taskPatchParser = new TaskPatchParser(Validation.buildDefaultValidatorFactory().getValidator());
 
     private TaskDto taskDto;
     private TaskDto expected;
@@ -60,8 +89,7 @@ class TaskServiceTest {
 
     @Test
     void getTask() {
-        Mockito.when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        Mockito.when(taskMapper.toDto(task)).thenReturn(savedTaskDto);
+        Mockito.when(taskStore.findById(1L)).thenReturn(Optional.of(savedTaskDto));
 
         TaskDto actual = taskService.getTask(1L);
 
@@ -70,21 +98,51 @@ class TaskServiceTest {
 
     @Test
     void getTask_ThrowException() {
-        Mockito.when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(taskStore.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> taskService.getTask(1L));
     }
 
+    @Test
+    void getTask_FromArchive() {
+        TaskDto archived = TaskDto.builder().id(1L).status(Status.COMPLETED).build();
+        Mockito.when(taskStore.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(taskArchiveRepository.findById(1L)).thenReturn(Optional.of(archived));
+
+        TaskDto actual = taskService.getTask(1L);
+
+        assertEquals(archived, actual);
+    }
+
+    @Test
+    void getTask_Fields() {
+        Mockito.when(taskStore.findById(1L, EnumSet.of(TaskField.NAME, TaskField.VERSION))).thenReturn(Optional.of(savedTaskDto));
+
+        TaskDto actual = taskService.getTask(1L, EnumSet.of(TaskField.NAME));
+
+        assertEquals(savedTaskDto, actual);
+        Mockito.verify(taskCache, Mockito.never()).get(Mockito.anyLong(), Mockito.any());
+    }
+
     @Test
     void getTaskByName() {
-        Mockito.when(taskRepository.findByName("task")).thenReturn(Optional.of(task));
-        Mockito.when(taskMapper.toDto(task)).thenReturn(savedTaskDto);
+        Mockito.when(taskStore.findByName("task")).thenReturn(Optional.of(savedTaskDto));
 
         TaskDto actual = taskService.getTaskByName("task");
 
         assertEquals(savedTaskDto, actual);
     }
 
+    @Test
+    void getTaskByName_IgnoreCase() {
+        Mockito.when(taskStore.findByNameIgnoreCase("TASK")).thenReturn(Optional.of(savedTaskDto));
+
+        TaskDto actual = taskService.getTaskByName("TASK", true);
+
+        assertEquals(savedTaskDto, actual);
+        Mockito.verify(taskStore, Mockito.never()).findByName(Mockito.anyString());
+    }
+
     @Test
     void updateTask() {
         Mockito.when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
@@ -92,6 +150,58 @@ class TaskServiceTest {
         taskService.updateTask(1L, taskDto);
 
         Mockito.verify(taskMapper, Mockito.times(1)).update(taskDto, task);
+        Mockito.verify(taskCache, Mockito.times(1)).evict(1L);
+        Mockito.verify(taskStore, Mockito.times(1)).refresh(1L);
+    }
+
+    @Test
+    void updateTask_IfVersionMatches() {
+        Mockito.when(taskRepository.updateIfVersionMatches(Mockito.eq(1L), Mockito.eq(3L), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(1);
+
+        long actual = taskService.updateTask(1L, taskDto, 3L);
+
+        assertEquals(4L, actual);
+        Mockito.verify(taskRepository, Mockito.never()).findById(1L);
+        Mockito.verify(taskCache, Mockito.times(1)).evict(1L);
+    }
+
+    @Test
+    void updateTask_IfVersionMatches_ThrowException() {
+        Mockito.when(taskRepository.updateIfVersionMatches(Mockito.eq(1L), Mockito.eq(3L), Mockito.any(), Mockito.any(),
+                Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(0);
+        Mockito.when(taskRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> taskService.updateTask(1L, taskDto, 3L));
+    }
+
+    @Test
+    void patchTask() {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode()
+                .put("status", "COMPLETED")
+                .putNull("description");
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("status", Status.COMPLETED);
+        changes.put("description", null);
+        Mockito.when(taskRepository.updatePartially(1L, changes, 3L)).thenReturn(1);
+
+        long actual = taskService.patchTask(1L, patch, 3L);
+
+        assertEquals(4L, actual);
+        Mockito.verify(taskRepository, Mockito.never()).findById(1L);
+        Mockito.verify(taskCache, Mockito.times(1)).evict(1L);
+    }
+
+    @Test
+    void patchTask_ThrowException() {
+        ObjectNode nullName = JsonNodeFactory.instance.objectNode().putNull("name");
+        ObjectNode readOnly = JsonNodeFactory.instance.objectNode().put("version", 5);
+        ObjectNode unknownStatus = JsonNodeFactory.instance.objectNode().put("status", "DONE");
+
+        assertThrows(DataValidationException.class, () -> taskService.patchTask(1L, nullName, null));
+        assertThrows(DataValidationException.class, () -> taskService.patchTask(1L, readOnly, null));
+        assertThrows(DataValidationException.class, () -> taskService.patchTask(1L, unknownStatus, null));
+        Mockito.verifyNoInteractions(taskRepository);
     }
 
     @Test
@@ -112,4 +222,46 @@ class TaskServiceTest {
 
         Mockito.verify(taskMapper, Mockito.times(1)).toDtoList(tasks);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTasksByCursor() {
+        List<TaskDto> tasks = List.of(TaskDto.builder().id(3L).build(), TaskDto.builder().id(4L).build(),
+                TaskDto.builder().id(5L).build());
+        Mockito.when(taskStore.findAfter(null, 2L, 3)).thenReturn(tasks);
+
+        CursorPageDto<TaskDto> actual = taskService.getTasksByCursor(CursorUtils.encode(2L), 2);
+
+        assertEquals(tasks.subList(0, 2), actual.getItems());
+        assertEquals(4L, CursorUtils.decode(actual.getNextCursor()));
+    }
+
+    @Test
+    void getTasksByCursor_LastPage() {
+        Mockito.when(taskStore.findAfter(null, 0L, 11)).thenReturn(List.of(savedTaskDto));
+
+        CursorPageDto<TaskDto> actual = taskService.getTasksByCursor(null, 10);
+
+        assertNull(actual.getNextCursor());
+    }
+
+    @Test
+    void getTasksByCursor_ThrowException() {
+        assertThrows(DataValidationException.class, () -> taskService.getTasksByCursor("not-a-cursor", 10));
+        assertThrows(DataValidationException.class, () -> taskService.getTasksByCursor(null, 0));
+    }
+
+    @Test
+    void searchTasks() {
+        List<Task> tasks = List.of(savedTask);
+        Mockito.when(taskRepository.search("task", 20)).thenReturn(tasks);
+
+        taskService.searchTasks("task", 20);
+
+        Mockito.verify(taskMapper, Mockito.times(1)).toDtoList(tasks);
+    }
+
+    @Test
+    void searchTasks_ThrowException() {
+        assertThrows(DataValidationException.class, () -> taskService.searchTasks(" ", 20));
+    }
+}
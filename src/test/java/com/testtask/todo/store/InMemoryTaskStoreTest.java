@@ -0,0 +1,155 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.config.TaskStoreProperties;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import com.testtask.todo.outbox.TaskOutboxRelay;
+import com.testtask.todo.repository.TaskChangeRepository;
+import com.testtask.todo.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет InMemoryTaskStore на PostgreSQL: загрузку, чтение из fallback до загрузки и синхронизацию по ленте
+ * изменений после записей через TaskService. Проверяемый экземпляр создается в тесте и не получает refresh
+ * от TaskService, поэтому видит изменения только через ленту, как другой экземпляр приложения.
+ */
+@SpringBootTest(properties = "todo.outbox.relay-interval-ms=3600000")
+@Testcontainers
+@Sql(scripts = {"classpath:init_task.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class InMemoryTaskStoreTest {
+
+    @Container
+    public static PostgreSQLContainer<?> POSTGRESQL_CONTAINER =
+            new PostgreSQLContainer<>("postgres:13.6");
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskOutboxRelay taskOutboxRelay;
+
+    @Autowired
+    private TaskChangeRepository taskChangeRepository;
+
+    @Autowired
+    private JpaTaskStore jpaTaskStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskStoreProperties properties;
+
+    private InMemoryTaskStore taskStore;
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        POSTGRESQL_CONTAINER.start();
+
+        registry.add("spring.datasource.url", POSTGRESQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRESQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRESQL_CONTAINER::getPassword);
+    }
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        taskStore = new InMemoryTaskStore(jdbcTemplate, taskChangeRepository, transactionTemplate, jpaTaskStore,
+                properties);
+    }
+
+    @Test
+    void start_LoadsAllTasksAndFallsBackBeforeLoad() {
+        assertFalse(taskStore.isRunning());
+        assertEquals(0, taskStore.size());
+        assertEquals(jpaTaskStore.findById(1L), taskStore.findById(1L));
+        assertEquals(jpaTaskStore.findByName("Task2"), taskStore.findByName("Task2"));
+
+        taskStore.start();
+
+        assertTrue(taskStore.isRunning());
+        assertEquals(countTasks(), taskStore.size());
+        assertEquals(jpaTaskStore.findById(1L), taskStore.findById(1L));
+        assertEquals(jpaTaskStore.findByNameIgnoreCase("task2"), taskStore.findByNameIgnoreCase("task2"));
+    }
+
+    @Test
+    void sync_ConvergesAfterWritesThroughTaskService() {
+        taskStore.start();
+
+        TaskDto created = taskService.createTask(task("memory1"));
+        TaskDto updated = taskService.createTask(task("memory2"));
+        TaskDto deleted = taskService.createTask(task("memory3"));
+        taskService.updateTask(updated.getId(), task("memory2 renamed"));
+        taskService.deleteTask(deleted.getId());
+        taskOutboxRelay.relay();
+        taskStore.sync();
+
+        assertEquals(jpaTaskStore.findById(created.getId()), taskStore.findById(created.getId()));
+        assertEquals("memory2 renamed", taskStore.findById(updated.getId()).orElseThrow().getName());
+        assertEquals(jpaTaskStore.findById(updated.getId()), taskStore.findById(updated.getId()));
+        assertEquals(Optional.empty(), taskStore.findById(deleted.getId()));
+        assertEquals(Optional.empty(), taskStore.findByName("memory2"));
+        assertEquals(countTasks(), taskStore.size());
+    }
+
+    @Test
+    void sync_StaleUpdateAfterDeleteDoesNotResurrectTask() {
+        TaskDto task = taskService.createTask(task("memory4"));
+        taskStore.start();
+        assertTrue(taskStore.findById(task.getId()).isPresent());
+
+        // UPDATED попадает в ленту, DELETED еще нет, а индекс уже знает об удалении, как после refresh своей записи
+        taskService.updateTask(task.getId(), task("memory4 renamed"));
+        taskOutboxRelay.relay();
+        taskService.deleteTask(task.getId());
+        taskStore.refresh(task.getId());
+        assertEquals(Optional.empty(), taskStore.findById(task.getId()));
+
+        taskStore.sync();
+        assertEquals(Optional.empty(), taskStore.findById(task.getId()));
+        assertEquals(Optional.empty(), taskStore.findByName("memory4 renamed"));
+
+        taskOutboxRelay.relay();
+        taskStore.sync();
+        assertEquals(Optional.empty(), taskStore.findById(task.getId()));
+        assertEquals(countTasks(), taskStore.size());
+    }
+
+    private int countTasks() {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM tasks", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private static TaskDto task(String name) {
+        return TaskDto.builder()
+                .name(name)
+                .description("description")
+                .status(Status.IN_PROGRESS)
+                .priority(Priority.HIGH)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.testtask.todo.store;
+
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.TaskFilterDto;
+import com.testtask.todo.entity.Priority;
+import com.testtask.todo.entity.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000);
+
+    private TaskIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskIndex(0);
+    }
+
+    @Test
+    void put_ReturnsSameTask() {
+        TaskDto task = task(1L, "task1", 0L).toBuilder()
+                .description("description")
+                .status(Status.IN_PROGRESS)
+                .priority(Priority.HIGH)
+                .build();
+
+        index.put(task);
+
+        assertEquals(task, index.get(1L));
+        assertEquals(task, index.getByName("task1"));
+        assertNull(index.get(2L));
+    }
+
+    @Test
+    void put_KeepsNullFields() {
+        TaskDto task = TaskDto.builder().id(1L).name("task1").version(0L).build();
+
+        index.put(task);
+
+        assertEquals(task, index.get(1L));
+    }
+
+    @Test
+    void put_IgnoresStaleVersion() {
+        index.put(task(1L, "renamed", 2L));
+
+        assertFalse(index.put(task(1L, "task1", 1L)));
+        assertEquals("renamed", index.get(1L).getName());
+    }
+
+    @Test
+    void putIfPresent_DoesNotAddRemovedTask() {
+        index.put(task(1L, "task1", 0L));
+        index.remove(1L);
+
+        assertFalse(index.putIfPresent(task(1L, "task1", 1L)));
+        assertNull(index.get(1L));
+        assertNull(index.getByName("task1"));
+    }
+
+    @Test
+    void putIfPresent_ReplacesExistingTask() {
+        index.put(task(1L, "task1", 0L));
+
+        assertTrue(index.putIfPresent(task(1L, "renamed", 1L)));
+        assertEquals("renamed", index.get(1L).getName());
+    }
+
+    @Test
+    void put_MovesNameOnRename() {
+        index.put(task(1L, "task1", 0L));
+        index.put(task(1L, "renamed", 1L));
+        index.put(task(2L, "task1", 0L));
+
+        assertEquals(2L, index.getByName("task1").getId());
+        assertEquals(1L, index.getByName("renamed").getId());
+    }
+
+    @Test
+    void getByName_IgnoresCaseOnlyWhenAsked() {
+        index.put(task(1L, "Task1", 0L));
+        index.put(task(1L, "TASK1", 1L));
+
+        assertNull(index.getByName("Task1"));
+        assertNull(index.getByName("task1"));
+        assertEquals(1L, index.getByName("TASK1").getId());
+        assertEquals(1L, index.getByNameIgnoreCase("task1").getId());
+
+        index.remove(1L);
+        assertNull(index.getByNameIgnoreCase("task1"));
+    }
+
+    @Test
+    void remove_FreesNameAndSkipsInListing() {
+        index.put(task(1L, "task1", 0L));
+        index.put(task(2L, "task2", 0L));
+
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+
+        assertNull(index.get(1L));
+        assertNull(index.getByName("task1"));
+        assertEquals(List.of(2L), ids(index.findAfter(null, 0L, 10)));
+    }
+
+    @Test
+    void findAfter_AppliesFilter() {
+        index.put(task(1L, "alpha", 0L).toBuilder().status(Status.PENDING).priority(Priority.LOW).build());
+        index.put(task(2L, "alpine", 0L).toBuilder().status(Status.COMPLETED).priority(Priority.HIGH).build());
+        index.put(task(3L, "beta", 0L).toBuilder().status(Status.PENDING).priority(Priority.HIGH).build());
+        index.put(task(4L, "alps", 0L).toBuilder().createdAt(NOW.plusDays(1)).status(Status.PENDING).build());
+        index.put(task(5L, "alpaca", 0L));
+
+        TaskFilterDto byStatus = TaskFilterDto.builder().status(List.of(Status.PENDING)).build();
+        TaskFilterDto byPrefixAndPriority = TaskFilterDto.builder().namePrefix("alp").priority(List.of(Priority.HIGH)).build();
+        TaskFilterDto byCreatedAt = TaskFilterDto.builder().createdFrom(NOW).createdTo(NOW.plusDays(1)).build();
+
+        assertEquals(List.of(1L, 3L, 4L), ids(index.findAfter(byStatus, 0L, 10)));
+        assertEquals(List.of(3L, 4L), ids(index.findAfter(byStatus, 1L, 10)));
+        assertEquals(List.of(1L), ids(index.findAfter(byStatus, 0L, 1)));
+        assertEquals(List.of(2L), ids(index.findAfter(byPrefixAndPriority, 0L, 10)));
+        assertEquals(List.of(1L, 2L, 3L, 5L), ids(index.findAfter(byCreatedAt, 0L, 10)));
+    }
+
+    @Test
+    void findAfter_MatchesReferenceAfterRandomChanges() {
+        Random random = new Random(42);
+        TreeMap<Long, TaskDto> expected = new TreeMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(5_000) + 1;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, index.remove(id));
+            } else {
+                long version = expected.containsKey(id) ? expected.get(id).getVersion() + 1 : 0;
+                TaskDto task = task(id, "task" + id + "-" + version, version);
+                expected.put(id, task);
+                index.put(task);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        assertEquals(List.copyOf(expected.values()), index.findAfter(null, 0L, Integer.MAX_VALUE));
+        for (TaskDto task : expected.values()) {
+            assertEquals(task, index.getByName(task.getName()));
+        }
+    }
+
+    private static TaskDto task(long id, String name, long version) {
+        return TaskDto.builder()
+                .id(id)
+                .name(name)
+                .createdAt(NOW)
+                .updatedAt(NOW)
+                .version(version)
+                .build();
+    }
+
+    private static List<Long> ids(List<TaskDto> tasks) {
+        return tasks.stream().map(TaskDto::getId).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.testtask.todo.writebehind;
+
+import com.testtask.todo.cache.NoOpTaskCache;
+import com.testtask.todo.config.WriteBehindProperties;
+import com.testtask.todo.dto.TaskDto;
+import com.testtask.todo.dto.WriteStatusDto;
+import com.testtask.todo.entity.Task;
+import com.testtask.todo.exception.EntityNotFoundException;
+import com.testtask.todo.exception.ServiceUnavailableException;
+import com.testtask.todo.mapper.TaskMapperImpl;
+import com.testtask.todo.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskWriteQueueTest {
+
+    private TaskRepository taskRepository;
+    private WriteBehindProperties properties;
+    private TaskWriteQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = Mockito.mock(TaskRepository.class);
+        properties = new WriteBehindProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setOfferTimeout(Duration.ofMillis(1));
+        properties.setShutdownTimeout(Duration.ofSeconds(5));
+        queue = new TaskWriteQueue(taskRepository, new TaskMapperImpl(), new NoOpTaskCache(),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), properties);
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void update_CoalescesSameTask() {
+        Task task = Task.builder().id(1L).name("task1").build();
+        Mockito.when(taskRepository.findAllById(List.of(1L))).thenReturn(List.of(task));
+
+        WriteStatusDto first = queue.update(1L, TaskDto.builder().name("first").build());
+        WriteStatusDto second = queue.update(1L, TaskDto.builder().name("second").build());
+
+        assertEquals(1, queue.size());
+        assertEquals("second", queue.find(1L).getTaskDto().getName());
+
+        queue.flush();
+
+        assertEquals("second", task.getName());
+        assertNull(queue.find(1L));
+        assertEquals(WriteStatusDto.State.COMPLETED, queue.getStatus(first.getTrackingId()).getState());
+        assertEquals(WriteStatusDto.State.COMPLETED, queue.getStatus(second.getTrackingId()).getState());
+        Mockito.verify(taskRepository, Mockito.times(1)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void delete_SupersedesUpdate() {
+        queue.update(1L, TaskDto.builder().name("first").build());
+        queue.delete(1L);
+
+        assertEquals(PendingTaskWrite.Type.DELETE, queue.find(1L).getType());
+        assertThrows(EntityNotFoundException.class, () -> queue.update(1L, TaskDto.builder().name("second").build()));
+
+        queue.flush();
+
+        Mockito.verify(taskRepository, Mockito.never()).findAllById(Mockito.any());
+        Mockito.verify(taskRepository, Mockito.times(1)).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    @Test
+    void flush_RetriesFailedBatchOneByOne() {
+        Mockito.when(taskRepository.findAllById(List.of(1L))).thenReturn(List.of());
+
+        WriteStatusDto update = queue.update(1L, TaskDto.builder().name("first").build());
+        WriteStatusDto delete = queue.delete(2L);
+
+        queue.flush();
+
+        assertEquals(WriteStatusDto.State.FAILED, queue.getStatus(update.getTrackingId()).getState());
+        assertEquals(WriteStatusDto.State.COMPLETED, queue.getStatus(delete.getTrackingId()).getState());
+    }
+
+    @Test
+    void create_ThrowsWhenFull() {
+        properties.setCapacity(1);
+
+        queue.create(TaskDto.builder().name("first").build());
+
+        assertThrows(ServiceUnavailableException.class, () -> queue.create(TaskDto.builder().name("second").build()));
+    }
+}
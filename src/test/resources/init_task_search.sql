@@ -0,0 +1,12 @@
+-- Как в рабочей БД, почти все задачи завершены: в работе и в ожидании по 0,5%
+INSERT INTO tasks (id, name, description, created_at, updated_at, status, priority)
+SELECT g,
+       'Task' || g,
+       'This is a task #' || g,
+       TIMESTAMPTZ '2023-01-01 00:00:00+00' + g * INTERVAL '5 minutes',
+       TIMESTAMPTZ '2023-01-01 00:00:00+00' + g * INTERVAL '5 minutes' + (g % 100) * INTERVAL '1 minute',
+       CASE g % 200 WHEN 0 THEN 1 WHEN 1 THEN 0 ELSE 2 END,
+       (g / 3) % 3
+FROM generate_series(1, 100000) g;
+
+ANALYZE tasks;